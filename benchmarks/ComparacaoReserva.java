@@ -0,0 +1,132 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compara, direto no PostgreSQL, as duas formas corretas de baixar o estoque no checkout:
+// - "lock": SELECT ... FOR UPDATE, conferência na aplicação e UPDATE com o novo valor (o caminho antigo
+//   de realizarVenda, findById + setQuantidadeEstoque + save, com o lock que faltava);
+// - "condicional": um único UPDATE ... WHERE quantidade_estoque >= pedido, como o EstoqueService faz.
+// Nos dois casos a transação também grava a venda e o item, e cada venda leva uma unidade.
+//
+// Uso (Java 11+, driver do PostgreSQL no classpath, sem compilação):
+//   java -cp postgresql.jar benchmarks/ComparacaoReserva.java <url> <usuario> <senha> <threads> <segundos> <rodadas>
+//   java -cp ~/.m2/repository/org/postgresql/postgresql/42.7.3/postgresql-42.7.3.jar \
+//       benchmarks/ComparacaoReserva.java jdbc:postgresql://localhost:5432/ecommerce postgres postgres 8 10 3
+//
+// Use um banco de teste já migrado pelo Flyway: são cadastrados os produtos 900000 a 900099 e as vendas
+// geradas ficam gravadas. Cada medição tem 3 segundos de aquecimento.
+public class ComparacaoReserva {
+
+    private static final long PRIMEIRO_PRODUTO = 900000;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/ecommerce";
+        String usuario = args.length > 1 ? args[1] : "postgres";
+        String senha = args.length > 2 ? args[2] : "postgres";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int segundos = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int rodadas = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+
+        try (Connection conexao = DriverManager.getConnection(url, usuario, senha);
+             Statement comando = conexao.createStatement()) {
+            for (int i = 0; i < 100; i++) {
+                comando.execute("INSERT INTO produto (id, nome, descricao, preco, quantidade_estoque, ativo) VALUES ("
+                        + (PRIMEIRO_PRODUTO + i) + ", 'Comparação', 'Produto da comparação de reserva', 1.0, 100000000, true) "
+                        + "ON CONFLICT (id) DO UPDATE SET quantidade_estoque = 100000000, ativo = true");
+            }
+        }
+
+        System.out.printf("%-7s %-9s %-12s %9s%n", "rodada", "produtos", "modo", "vendas/s");
+        for (int rodada = 1; rodada <= rodadas; rodada++) {
+            for (int produtos : new int[]{1, 100}) {
+                for (String modo : new String[]{"lock", "condicional"}) {
+                    double vendas = medir(url, usuario, senha, modo, produtos, threads, segundos);
+                    System.out.printf("%-7d %-9d %-12s %9.0f%n", rodada, produtos, modo, vendas);
+                }
+            }
+        }
+    }
+
+    private static double medir(String url, String usuario, String senha, String modo, int produtos,
+                                int threads, int segundos) throws Exception {
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean terminou = new AtomicBoolean();
+        AtomicLong vendas = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try (Connection conexao = DriverManager.getConnection(url, usuario, senha)) {
+                    conexao.setAutoCommit(false);
+                    PreparedStatement travar = conexao.prepareStatement(
+                            "SELECT quantidade_estoque, ativo FROM produto WHERE id = ? FOR UPDATE");
+                    PreparedStatement gravar = conexao.prepareStatement(
+                            "UPDATE produto SET quantidade_estoque = ? WHERE id = ?");
+                    PreparedStatement baixar = conexao.prepareStatement(
+                            "UPDATE produto SET quantidade_estoque = quantidade_estoque - 1 "
+                                    + "WHERE id = ? AND ativo = true AND quantidade_estoque >= 1");
+                    PreparedStatement venda = conexao.prepareStatement(
+                            "INSERT INTO venda (data_venda, valor_total) VALUES (now(), 1.0) RETURNING id");
+                    PreparedStatement item = conexao.prepareStatement(
+                            "INSERT INTO item_venda (venda_id, produto_id, quantidade, preco_unitario, data_venda) "
+                                    + "VALUES (?, ?, 1, 1.0, now())");
+                    while (!terminou.get()) {
+                        long produto = PRIMEIRO_PRODUTO + ThreadLocalRandom.current().nextInt(produtos);
+                        boolean reservado;
+                        if (modo.equals("lock")) {
+                            travar.setLong(1, produto);
+                            try (ResultSet linha = travar.executeQuery()) {
+                                linha.next();
+                                reservado = linha.getBoolean(2) && linha.getInt(1) >= 1;
+                                if (reservado) {
+                                    gravar.setInt(1, linha.getInt(1) - 1);
+                                    gravar.setLong(2, produto);
+                                    gravar.executeUpdate();
+                                }
+                            }
+                        } else {
+                            baixar.setLong(1, produto);
+                            reservado = baixar.executeUpdate() == 1;
+                        }
+                        if (!reservado) {
+                            conexao.rollback();
+                            continue;
+                        }
+                        long vendaId;
+                        try (ResultSet gerado = venda.executeQuery()) {
+                            gerado.next();
+                            vendaId = gerado.getLong(1);
+                        }
+                        item.setLong(1, vendaId);
+                        item.setLong(2, produto);
+                        item.executeUpdate();
+                        conexao.commit();
+                        if (medindo.get()) {
+                            vendas.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                return null;
+            });
+        }
+        Thread.sleep(3000);
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(segundos));
+        medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        terminou.set(true);
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        return vendas.get() / decorrido;
+    }
+}
@@ -0,0 +1,148 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Carga mista contra uma instância em execução, para comparar os percentis de latência entre
+// o pool de threads do Tomcat e as virtual threads (spring.threads.virtual.enabled).
+//
+// Uso (Java 11+, sem compilação):
+//   java benchmarks/ComparacaoThreads.java <url> <clientes> <segundos> <produtos> <aquecimento-segundos>
+//   java benchmarks/ComparacaoThreads.java http://localhost:8081 400 60 1000 15
+//
+// Rode uma vez com a aplicação em cada modo e compare as tabelas. Cada cliente repete, sem pausa:
+// 70% GET /produtos/{id} (cache), 15% GET /produtos?limite=50, 10% POST /vendas e
+// 5% GET /vendas/relatorio/resumo. Respostas 503 (controle de admissão) são contadas à parte.
+public class ComparacaoThreads {
+
+    private static final String[] OPERACOES = {"produto-por-id", "listagem", "checkout", "relatorio"};
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8081";
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int produtos = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int aquecimento = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        Map<String, List<long[]>> latencias = new ConcurrentHashMap<>();
+        Map<String, AtomicLong> rejeitadas = new ConcurrentHashMap<>();
+        Map<String, AtomicLong> erros = new ConcurrentHashMap<>();
+        for (String operacao : OPERACOES) {
+            latencias.put(operacao, new ArrayList<>());
+            rejeitadas.put(operacao, new AtomicLong());
+            erros.put(operacao, new AtomicLong());
+        }
+
+        String hoje = java.time.LocalDate.now().toString();
+        // Durante o aquecimento (JIT, cache de produtos) as requisições não são medidas
+        long inicioMedicao = System.nanoTime() + TimeUnit.SECONDS.toNanos(aquecimento);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(segundos);
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        for (int c = 0; c < clientes; c++) {
+            executor.submit(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                Map<String, long[]> locais = new TreeMap<>();
+                Map<String, Integer> tamanhos = new TreeMap<>();
+                for (String operacao : OPERACOES) {
+                    locais.put(operacao, new long[1024]);
+                    tamanhos.put(operacao, 0);
+                }
+                while (System.nanoTime() < fim) {
+                    int sorteio = aleatorio.nextInt(100);
+                    long produto = 1 + aleatorio.nextInt(produtos);
+                    String operacao;
+                    HttpRequest requisicao;
+                    if (sorteio < 70) {
+                        operacao = "produto-por-id";
+                        requisicao = HttpRequest.newBuilder(URI.create(url + "/produtos/" + produto)).GET().build();
+                    } else if (sorteio < 85) {
+                        operacao = "listagem";
+                        requisicao = HttpRequest.newBuilder(URI.create(url + "/produtos?limite=50&apos=" + produto)).GET().build();
+                    } else if (sorteio < 95) {
+                        operacao = "checkout";
+                        requisicao = HttpRequest.newBuilder(URI.create(url + "/vendas"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        "[{\"produto\":{\"id\":" + produto + "},\"quantidade\":1}]"))
+                                .build();
+                    } else {
+                        operacao = "relatorio";
+                        requisicao = HttpRequest.newBuilder(URI.create(
+                                url + "/vendas/relatorio/resumo?startDate=" + hoje + "&endDate=" + hoje)).GET().build();
+                    }
+                    long inicio = System.nanoTime();
+                    try {
+                        int status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (inicio < inicioMedicao) {
+                            continue;
+                        }
+                        if (status == 503) {
+                            rejeitadas.get(operacao).incrementAndGet();
+                            continue;
+                        }
+                        if (status >= 500) {
+                            erros.get(operacao).incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        if (inicio >= inicioMedicao) {
+                            erros.get(operacao).incrementAndGet();
+                        }
+                        continue;
+                    }
+                    long[] amostras = locais.get(operacao);
+                    int tamanho = tamanhos.get(operacao);
+                    if (tamanho == amostras.length) {
+                        amostras = Arrays.copyOf(amostras, tamanho * 2);
+                        locais.put(operacao, amostras);
+                    }
+                    amostras[tamanho] = System.nanoTime() - inicio;
+                    tamanhos.put(operacao, tamanho + 1);
+                }
+                locais.forEach((operacao, amostras) -> {
+                    List<long[]> lista = latencias.get(operacao);
+                    synchronized (lista) {
+                        lista.add(Arrays.copyOf(amostras, tamanhos.get(operacao)));
+                    }
+                });
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(aquecimento + segundos + 60, TimeUnit.SECONDS);
+
+        System.out.printf("%-16s %9s %9s %9s %9s %9s %9s %9s %7s %7s%n",
+                "operacao", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "amostras", "503", "erros");
+        for (String operacao : OPERACOES) {
+            long[] todas = latencias.get(operacao).stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%-16s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %7d %7d%n",
+                    operacao, todas.length / (double) segundos,
+                    percentil(todas, 0.50), percentil(todas, 0.90), percentil(todas, 0.99), percentil(todas, 0.999),
+                    todas.length > 0 ? todas[todas.length - 1] / 1e6 : 0.0, todas.length,
+                    rejeitadas.get(operacao).get(), erros.get(operacao).get());
+        }
+        System.exit(0);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0.0;
+        }
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,37 @@
+package com.projeto.ecommerce.benchmark;
+
+import com.projeto.ecommerce.EcommerceApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Sobe a aplicação sem servidor web, com um banco H2 em memória novo a cada chamada.
+// Os argumentos de linha de comando têm precedência sobre o application.properties da aplicação.
+final class AplicacaoEmbutida {
+
+    private AplicacaoEmbutida() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String... propriedadesExtras) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        for (String propriedade : propriedadesExtras) {
+            argumentos.add("--" + propriedade);
+        }
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run(argumentos.toArray(new String[0]));
+    }
+}
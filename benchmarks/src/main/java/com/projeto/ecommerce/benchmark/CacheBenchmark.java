@@ -0,0 +1,113 @@
+package com.projeto.ecommerce.benchmark;
+
+import com.projeto.ecommerce.config.CacheConfig;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.repository.VendaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.scheduling.annotation.SchedulingConfiguration;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cache "produtos" do CacheConfig sob disputa (4 threads). Os repositórios são substituídos por
+// implementações em memória para medir só o cache: "quente" lê 100 IDs sempre presentes;
+// "uniforme" lê 100 mil IDs, mais que o tamanho máximo do cache, provocando cargas e remoções.
+// As remoções passam pelo barramento de invalidação, com o transporte local.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+    @Param({"quente", "uniforme"})
+    private String distribuicao;
+
+    private AnnotationConfigApplicationContext contexto;
+    private Cache produtos;
+    private int chaves;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new AnnotationConfigApplicationContext();
+        contexto.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        contexto.registerBean(ProdutoRepository.class, () -> repositorio(ProdutoRepository.class, "findById",
+                id -> Optional.of(Dados.produto((Long) id, 10.0))));
+        contexto.registerBean(VendaRepository.class, () -> repositorio(VendaRepository.class, "findComItensById",
+                id -> Optional.of(Dados.venda((Long) id, 3))));
+        contexto.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        contexto.register(CacheConfig.class, SchedulingConfiguration.class);
+        contexto.refresh();
+
+        produtos = contexto.getBean(CacheManager.class).getCache("produtos");
+        chaves = "quente".equals(distribuicao) ? 100 : 100_000;
+        for (long id = 1; id <= Math.min(chaves, 10_000); id++) {
+            produtos.get(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object ler() {
+        return produtos.get(chave());
+    }
+
+    // 90% leituras e 10% remoções, como no checkout (que remove do cache os produtos vendidos)
+    @Benchmark
+    public Object lerERemover() {
+        long id = chave();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            produtos.evict(id);
+            return null;
+        }
+        return produtos.get(id);
+    }
+
+    private long chave() {
+        return 1 + ThreadLocalRandom.current().nextInt(chaves);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repositorio(Class<T> tipo, String metodoBusca, java.util.function.Function<Object, Object> busca) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, argumentos) -> {
+            if (metodo.getName().equals(metodoBusca)) {
+                return busca.apply(argumentos[0]);
+            }
+            if (metodo.getDeclaringClass() == Object.class) {
+                return switch (metodo.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == argumentos[0];
+                    default -> tipo.getSimpleName() + " em memória";
+                };
+            }
+            throw new UnsupportedOperationException(metodo.getName());
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.projeto.ecommerce.benchmark;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.repository.ResumoVendaDiarioRepository;
+import com.projeto.ecommerce.repository.ResumoVendaProdutoDiarioRepository;
+import com.projeto.ecommerce.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ProdutoService.realizarVenda contra H2 em memória: reserva de estoque, gravação da venda
+// e atualização dos resumos diários. "quente" concentra os pedidos em poucos produtos (disputa
+// pelas mesmas linhas); "uniforme" espalha os pedidos pelo catálogo inteiro.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final int PRODUTOS = 10_000;
+    private static final int PRODUTOS_QUENTES = 10;
+
+    @Param({"1", "10"})
+    private int itens;
+
+    @Param({"quente", "uniforme"})
+    private String distribuicao;
+
+    private ConfigurableApplicationContext contexto;
+    private ProdutoService produtoService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacaoEmbutida.iniciar();
+        produtoService = contexto.getBean(ProdutoService.class);
+        ProdutoRepository produtoRepository = contexto.getBean(ProdutoRepository.class);
+
+        List<Produto> produtos = new ArrayList<>(PRODUTOS);
+        for (int i = 1; i <= PRODUTOS; i++) {
+            Produto produto = Dados.produto(i, 10 + i % 90);
+            produto.setId(null);
+            produto.setQuantidadeEstoque(Integer.MAX_VALUE / 2);
+            produtos.add(produto);
+        }
+        ids = produtoRepository.saveAll(produtos).stream().mapToLong(Produto::getId).toArray();
+
+        // Linhas de resumo do dia criadas antes da medição: o MERGE do H2 não é atômico na primeira
+        // inserção concorrente de uma mesma chave (o ON CONFLICT do PostgreSQL é)
+        ResumoVendaDiarioRepository resumoDiario = contexto.getBean(ResumoVendaDiarioRepository.class);
+        ResumoVendaProdutoDiarioRepository resumoProduto = contexto.getBean(ResumoVendaProdutoDiarioRepository.class);
+        contexto.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            LocalDate hoje = LocalDate.now();
+            resumoDiario.acumular(hoje, 0, 0.0, 0);
+            for (long id : ids) {
+                resumoProduto.acumular(hoje, id, 0, 0.0, 0);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Venda checkout() {
+        return produtoService.realizarVenda(pedido());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Venda checkoutConcorrente() {
+        return produtoService.realizarVenda(pedido());
+    }
+
+    private List<ItemVenda> pedido() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int faixa = "quente".equals(distribuicao) ? PRODUTOS_QUENTES : PRODUTOS;
+        List<ItemVenda> pedido = new ArrayList<>(itens);
+        for (int i = 0; i < itens; i++) {
+            Produto referencia = new Produto();
+            referencia.setId(ids[aleatorio.nextInt(faixa)]);
+            ItemVenda item = new ItemVenda();
+            item.setProduto(referencia);
+            item.setQuantidade(1);
+            pedido.add(item);
+        }
+        return pedido;
+    }
+}
@@ -0,0 +1,52 @@
+package com.projeto.ecommerce.benchmark;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Objetos de exemplo usados pelos benchmarks que não precisam do banco
+final class Dados {
+
+    private Dados() {
+    }
+
+    static Produto produto(long id, double preco) {
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setCodigo("SKU-" + id);
+        produto.setNome("Produto " + id);
+        produto.setDescricao("Descrição do produto " + id);
+        produto.setPreco(preco);
+        produto.setQuantidadeEstoque(1_000);
+        return produto;
+    }
+
+    static List<ItemVenda> itens(int quantidade, long semente) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        List<ItemVenda> itens = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            ItemVenda item = new ItemVenda();
+            item.setId((long) i + 1);
+            item.setProduto(produto(i + 1, 1 + aleatorio.nextInt(100_000) / 100.0));
+            item.setQuantidade(1 + aleatorio.nextInt(5));
+            item.setPrecoUnitario(item.getProduto().getPreco());
+            itens.add(item);
+        }
+        return itens;
+    }
+
+    static Venda venda(long id, int quantidadeItens) {
+        Venda venda = new Venda();
+        venda.setId(id);
+        venda.setDataVenda(LocalDateTime.of(2024, 5, 10, 14, 30));
+        List<ItemVenda> itens = itens(quantidadeItens, id);
+        itens.forEach(item -> item.setVenda(venda));
+        venda.setItens(itens);
+        return venda;
+    }
+}
@@ -0,0 +1,23 @@
+package com.projeto.ecommerce.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ponto de entrada do jar de benchmarks: aceita todas as opções da linha de comando do JMH e,
+// se nenhum formato de resultado for informado, grava os resultados em jmh-resultado.json
+// para comparação entre versões.
+public class ExecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(args));
+        if (!argumentos.contains("-rf")) {
+            argumentos.addAll(0, List.of("-rf", "json"));
+        }
+        if (!argumentos.contains("-rff")) {
+            argumentos.addAll(0, List.of("-rff", "jmh-resultado.json"));
+        }
+        Main.main(argumentos.toArray(new String[0]));
+    }
+}
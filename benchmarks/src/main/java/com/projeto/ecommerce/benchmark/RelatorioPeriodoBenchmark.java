@@ -0,0 +1,182 @@
+package com.projeto.ecommerce.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Consulta de itens vendidos em um período (VendaRepository.streamLinhasByPeriodo, usada pela
+// exportação e pelos relatórios) em um histórico de vários anos, no PostgreSQL: "simples" é o
+// esquema anterior às migrações (tabelas sem partição e sem índice por data), "particionado" é o
+// criado por db/migration. Precisa de um PostgreSQL acessível em "url"; os dados são gerados uma
+// vez por tamanho e reaproveitados nas execuções seguintes.
+//
+//   java -jar benchmarks/target/benchmarks.jar RelatorioPeriodo -p url=jdbc:postgresql://localhost:5432/ecommerce
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RelatorioPeriodoBenchmark {
+
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+    private static final int PRODUTOS = 1000;
+
+    private static final String CONSULTA_SIMPLES =
+            "SELECT v.id, v.data_venda, v.valor_total, i.id, p.id, p.nome, i.quantidade, " +
+            "COALESCE(i.preco_unitario, p.preco) " +
+            "FROM venda v JOIN item_venda i ON v.id = i.venda_id JOIN produto p ON p.id = i.produto_id " +
+            "WHERE v.data_venda >= ? AND v.data_venda < ? ORDER BY v.id, i.id";
+
+    private static final String CONSULTA_PARTICIONADA =
+            "SELECT v.id, v.data_venda, v.valor_total, i.id, p.id, p.nome, i.quantidade, " +
+            "COALESCE(i.preco_unitario, p.preco) " +
+            "FROM venda v JOIN item_venda i ON v.id = i.venda_id JOIN produto p ON p.id = i.produto_id " +
+            "WHERE v.data_venda >= ? AND v.data_venda < ? AND i.data_venda >= ? AND i.data_venda < ? " +
+            "ORDER BY v.id, i.id";
+
+    @Param("jdbc:postgresql://localhost:5432/ecommerce")
+    private String url;
+
+    @Param("postgres")
+    private String usuario;
+
+    @Param("1234")
+    private String senha;
+
+    @Param({"simples", "particionado"})
+    private String esquema;
+
+    @Param({"7", "31"})
+    private int dias;
+
+    @Param("3")
+    private int anos;
+
+    @Param("1000")
+    private int vendasPorDia;
+
+    private Connection conexao;
+    private PreparedStatement consulta;
+    private int diasHistorico;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        diasHistorico = (int) (INICIO.plusYears(anos).toEpochDay() - INICIO.toEpochDay());
+        try (Connection administracao = DriverManager.getConnection(url, usuario, senha)) {
+            if (!dadosProntos(administracao)) {
+                gerarDados(administracao);
+            }
+        }
+        conexao = DriverManager.getConnection(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + esquema,
+                usuario, senha);
+        conexao.setReadOnly(true);
+        consulta = conexao.prepareStatement("simples".equals(esquema) ? CONSULTA_SIMPLES : CONSULTA_PARTICIONADA);
+        consulta.setFetchSize(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        conexao.close();
+    }
+
+    @Benchmark
+    public long itensDoPeriodo() throws SQLException {
+        LocalDate inicio = INICIO.plusDays(ThreadLocalRandom.current().nextInt(diasHistorico - dias));
+        Timestamp de = Timestamp.valueOf(inicio.atStartOfDay());
+        Timestamp ate = Timestamp.valueOf(inicio.plusDays(dias).atStartOfDay());
+        consulta.setTimestamp(1, de);
+        consulta.setTimestamp(2, ate);
+        if (!"simples".equals(esquema)) {
+            consulta.setTimestamp(3, de);
+            consulta.setTimestamp(4, ate);
+        }
+        long linhas = 0;
+        try (ResultSet resultado = consulta.executeQuery()) {
+            while (resultado.next()) {
+                linhas++;
+            }
+        }
+        return linhas;
+    }
+
+    private boolean dadosProntos(Connection conexao) throws SQLException {
+        try (Statement comando = conexao.createStatement();
+             ResultSet resultado = comando.executeQuery(
+                     "SELECT obj_description('particionado.venda'::regclass, 'pg_class')")) {
+            return resultado.next() && (anos + "x" + vendasPorDia).equals(resultado.getString(1));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Mesmas vendas nos dois esquemas: de 1 a 3 itens por venda, distribuídas igualmente no tempo
+    private void gerarDados(Connection conexao) throws SQLException {
+        long vendas = (long) diasHistorico * vendasPorDia;
+        LocalDate fim = INICIO.plusYears(anos);
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("DROP SCHEMA IF EXISTS simples CASCADE");
+            comando.execute("DROP SCHEMA IF EXISTS particionado CASCADE");
+            comando.execute("CREATE SCHEMA simples");
+            comando.execute("CREATE TABLE simples.produto (id BIGINT PRIMARY KEY, nome VARCHAR(255) NOT NULL, " +
+                    "preco FLOAT(53) NOT NULL)");
+            comando.execute("CREATE TABLE simples.venda (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "data_venda TIMESTAMP(6) NOT NULL, valor_total FLOAT(53))");
+            comando.execute("CREATE TABLE simples.item_venda (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "venda_id BIGINT REFERENCES simples.venda, produto_id BIGINT NOT NULL REFERENCES simples.produto, " +
+                    "quantidade INTEGER NOT NULL, preco_unitario FLOAT(53))");
+            comando.execute("INSERT INTO simples.produto SELECT g, 'Produto ' || g, 10 + g % 90 " +
+                    "FROM generate_series(1, " + PRODUTOS + ") g");
+            comando.execute("INSERT INTO simples.venda (id, data_venda, valor_total) " +
+                    "SELECT g, TIMESTAMP '" + INICIO + "' + (g - 1) * (INTERVAL '1 day' / " + vendasPorDia + "), 0 " +
+                    "FROM generate_series(1, " + vendas + ") g");
+            comando.execute("INSERT INTO simples.item_venda (venda_id, produto_id, quantidade, preco_unitario) " +
+                    "SELECT v.id, 1 + (v.id * 7 + n) % " + PRODUTOS + ", 1 + n, 10 + (v.id * 7 + n) % 90 " +
+                    "FROM simples.venda v, generate_series(0, (v.id % 3)::INT) n");
+            comando.execute("ANALYZE simples.produto");
+            comando.execute("ANALYZE simples.venda");
+            comando.execute("ANALYZE simples.item_venda");
+        }
+
+        Flyway.configure().dataSource(url, usuario, senha).schemas("particionado").load().migrate();
+
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("SET search_path TO particionado");
+            comando.execute("SELECT criar_particoes_venda('" + INICIO + "', '" + fim + "')");
+            comando.execute("INSERT INTO produto (id, nome, descricao, preco, quantidade_estoque, ativo) " +
+                    "SELECT id, nome, '', preco, 0, true FROM simples.produto");
+            comando.execute("INSERT INTO venda (id, data_venda, valor_total) " +
+                    "SELECT id, data_venda, valor_total FROM simples.venda");
+            comando.execute("INSERT INTO item_venda (id, venda_id, data_venda, produto_id, quantidade, preco_unitario) " +
+                    "SELECT i.id, i.venda_id, v.data_venda, i.produto_id, i.quantidade, i.preco_unitario " +
+                    "FROM simples.item_venda i JOIN simples.venda v ON v.id = i.venda_id");
+            comando.execute("ANALYZE produto");
+            comando.execute("ANALYZE venda");
+            comando.execute("ANALYZE item_venda");
+            comando.execute("COMMENT ON TABLE venda IS '" + anos + "x" + vendasPorDia + "'");
+            comando.execute("SET search_path TO DEFAULT");
+        }
+    }
+}
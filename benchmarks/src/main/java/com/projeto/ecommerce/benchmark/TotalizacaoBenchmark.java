@@ -0,0 +1,45 @@
+package com.projeto.ecommerce.benchmark;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Venda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cálculo do valor total da venda (Venda.setItens -> calcularValorTotal) para listas grandes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TotalizacaoBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int tamanho;
+
+    private List<ItemVenda> itens;
+
+    @Setup
+    public void iniciar() {
+        itens = Dados.itens(tamanho, 42);
+    }
+
+    @Benchmark
+    public Double totalizar() {
+        Venda venda = new Venda();
+        venda.setItens(itens);
+        return venda.getValorTotal();
+    }
+}
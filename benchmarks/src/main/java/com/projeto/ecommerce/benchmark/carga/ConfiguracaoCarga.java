@@ -0,0 +1,91 @@
+package com.projeto.ecommerce.benchmark.carga;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Opções do gerador de carga no formato --nome=valor
+final class ConfiguracaoCarga {
+
+    String url;
+    // Jar executável da aplicação; quando informado, ela é iniciada com o perfil "local" (H2 em memória)
+    String aplicacao;
+    int porta;
+    double taxa;
+    String chegadas;
+    int duracao;
+    int aquecimento;
+    int produtos;
+    int estoque;
+    double zipf;
+    int itensMaximo;
+    int maxPendentes;
+    int timeout;
+    int intervaloRelatorio;
+    String saida;
+    final Map<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+
+    static ConfiguracaoCarga ler(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opção inválida (use --nome=valor): " + arg);
+            }
+            int igual = arg.indexOf('=');
+            opcoes.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+
+        ConfiguracaoCarga configuracao = new ConfiguracaoCarga();
+        configuracao.aplicacao = opcoes.remove("aplicacao");
+        configuracao.porta = Integer.parseInt(valor(opcoes, "porta", "8081"));
+        configuracao.url = valor(opcoes, "url", configuracao.aplicacao != null
+                ? "http://localhost:" + configuracao.porta : "http://localhost:8081");
+        configuracao.taxa = Double.parseDouble(valor(opcoes, "taxa", "200"));
+        configuracao.chegadas = valor(opcoes, "chegadas", "poisson");
+        configuracao.duracao = Integer.parseInt(valor(opcoes, "duracao", "60"));
+        configuracao.aquecimento = Integer.parseInt(valor(opcoes, "aquecimento", "15"));
+        configuracao.produtos = Integer.parseInt(valor(opcoes, "produtos", "10000"));
+        configuracao.estoque = Integer.parseInt(valor(opcoes, "estoque", "1000000"));
+        configuracao.zipf = Double.parseDouble(valor(opcoes, "zipf", "1.0"));
+        configuracao.itensMaximo = Integer.parseInt(valor(opcoes, "itens-maximo", "3"));
+        configuracao.maxPendentes = Integer.parseInt(valor(opcoes, "max-pendentes", "2000"));
+        configuracao.timeout = Integer.parseInt(valor(opcoes, "timeout", "30"));
+        configuracao.intervaloRelatorio = Integer.parseInt(valor(opcoes, "intervalo-relatorio", "5"));
+        configuracao.saida = opcoes.remove("saida");
+        lerMix(valor(opcoes, "mix", "produto:55,ativos:5,listagem:10,checkout:25,relatorio:5"), configuracao.mix);
+
+        if (!opcoes.isEmpty()) {
+            throw new IllegalArgumentException("Opções desconhecidas: " + opcoes.keySet());
+        }
+        if (!configuracao.chegadas.equals("poisson") && !configuracao.chegadas.equals("constante")) {
+            throw new IllegalArgumentException("--chegadas deve ser poisson ou constante");
+        }
+        if (configuracao.taxa <= 0 || configuracao.duracao <= 0) {
+            throw new IllegalArgumentException("--taxa e --duracao devem ser positivos");
+        }
+        return configuracao;
+    }
+
+    // Consome a opção: as que sobrarem no mapa são desconhecidas
+    private static String valor(Map<String, String> opcoes, String nome, String padrao) {
+        String valor = opcoes.remove(nome);
+        return valor != null ? valor : padrao;
+    }
+
+    // Ex.: produto:55,ativos:5,listagem:10,checkout:25,relatorio:5 (pesos relativos)
+    private static void lerMix(String valor, Map<Operacao, Integer> mix) {
+        for (String parte : valor.split(",")) {
+            String[] nomePeso = parte.trim().split(":");
+            if (nomePeso.length != 2) {
+                throw new IllegalArgumentException("Mix inválido: " + parte);
+            }
+            int peso = Integer.parseInt(nomePeso[1].trim());
+            if (peso > 0) {
+                mix.put(Operacao.de(nomePeso[0].trim()), peso);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("O mix deve ter ao menos uma operação com peso positivo");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.projeto.ecommerce.benchmark.carga;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sorteio de produtos com popularidade Zipf: o produto de posição k é escolhido com
+// probabilidade proporcional a 1 / k^expoente. As posições são distribuídas entre os IDs por uma
+// permutação com semente fixa, para que os produtos quentes não sejam sempre os primeiros IDs
+// e cada execução use os mesmos produtos quentes.
+final class DistribuicaoZipf {
+
+    private final long[] ids;
+    private final double[] acumulada;
+
+    DistribuicaoZipf(long[] idsProdutos, double expoente, long semente) {
+        ids = idsProdutos.clone();
+        Random aleatorio = new Random(semente);
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = aleatorio.nextInt(i + 1);
+            long troca = ids[i];
+            ids[i] = ids[j];
+            ids[j] = troca;
+        }
+
+        acumulada = new double[ids.length];
+        double soma = 0;
+        for (int k = 0; k < ids.length; k++) {
+            soma += 1.0 / Math.pow(k + 1, expoente);
+            acumulada[k] = soma;
+        }
+        for (int k = 0; k < acumulada.length; k++) {
+            acumulada[k] /= soma;
+        }
+    }
+
+    long sortear() {
+        int posicao = Arrays.binarySearch(acumulada, ThreadLocalRandom.current().nextDouble());
+        if (posicao < 0) {
+            posicao = -posicao - 1;
+        }
+        return ids[Math.min(posicao, ids.length - 1)];
+    }
+
+    // Fração das escolhas que cai nos n produtos mais populares
+    double participacao(int n) {
+        return n <= 0 ? 0 : acumulada[Math.min(n, acumulada.length) - 1];
+    }
+
+    int tamanho() {
+        return ids.length;
+    }
+}
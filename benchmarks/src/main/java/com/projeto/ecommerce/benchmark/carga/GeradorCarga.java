@@ -0,0 +1,368 @@
+package com.projeto.ecommerce.benchmark.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga em modelo aberto: as requisições são disparadas em instantes definidos pela
+// taxa de chegada (--taxa por segundo, chegadas Poisson ou constantes), independentemente de as
+// anteriores já terem respondido. A latência é medida a partir do instante previsto de envio,
+// e não do envio efetivo; assim, quando a aplicação (ou o próprio gerador) atrasa, o tempo de
+// espera entra nos percentis em vez de desaparecer (correção de "coordinated omission").
+// A coluna "servico" mostra a latência medida a partir do envio efetivo, para comparação.
+//
+// Uso:
+//   java -cp benchmarks/target/benchmarks.jar com.projeto.ecommerce.benchmark.carga.GeradorCarga \
+//        --aplicacao=ecommerce/target/ecommerce-0.0.1-SNAPSHOT-exec.jar --taxa=300 --duracao=60
+public final class GeradorCarga {
+
+    private static final String PREFIXO_CODIGO = "carga-";
+    private static final int TAMANHO_LOTE_VENDA_INICIAL = 500;
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(10);
+
+    private final ConfiguracaoCarga configuracao;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operacao, Metricas> metricas = new EnumMap<>(Operacao.class);
+    private final Recorder intervalo = new Recorder(LATENCIA_MAXIMA_US, 3);
+    private final Semaphore pendentes;
+    private final AtomicLong enviadasIntervalo = new AtomicLong();
+    private final Operacao[] operacoes;
+    private final int[] pesosAcumulados;
+    private DistribuicaoZipf produtos;
+    private Histogram ultimoIntervalo;
+
+    private GeradorCarga(ConfiguracaoCarga configuracao) {
+        this.configuracao = configuracao;
+        ExecutorService respostas = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "carga-respostas");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(respostas)
+                .build();
+        this.pendentes = new Semaphore(configuracao.maxPendentes);
+
+        operacoes = configuracao.mix.keySet().toArray(new Operacao[0]);
+        pesosAcumulados = new int[operacoes.length];
+        int soma = 0;
+        for (int i = 0; i < operacoes.length; i++) {
+            soma += configuracao.mix.get(operacoes[i]);
+            pesosAcumulados[i] = soma;
+            metricas.put(operacoes[i], new Metricas());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracaoCarga configuracao = ConfiguracaoCarga.ler(args);
+        Process aplicacao = configuracao.aplicacao != null ? iniciarAplicacao(configuracao) : null;
+        try {
+            GeradorCarga gerador = new GeradorCarga(configuracao);
+            gerador.preparar();
+            gerador.executar();
+            gerador.relatar();
+        } finally {
+            if (aplicacao != null) {
+                aplicacao.destroy();
+                aplicacao.waitFor(30, TimeUnit.SECONDS);
+            }
+        }
+        System.exit(0);
+    }
+
+    // Sobe a aplicação com o perfil "local" (H2 em memória) e espera o health check responder
+    private static Process iniciarAplicacao(ConfiguracaoCarga configuracao) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        File log = new File("carga-aplicacao.log");
+        Process processo = new ProcessBuilder(java, "-jar", configuracao.aplicacao,
+                "--spring.profiles.active=local", "--server.port=" + configuracao.porta)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(processo::destroy));
+
+        System.out.printf("Iniciando %s na porta %d (log em %s)%n", configuracao.aplicacao, configuracao.porta, log);
+        HttpClient cliente = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(configuracao.url + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2)).build();
+        long prazo = System.nanoTime() + TimeUnit.MINUTES.toNanos(3);
+        while (System.nanoTime() < prazo) {
+            if (!processo.isAlive()) {
+                throw new IllegalStateException("A aplicação terminou durante a inicialização; veja " + log);
+            }
+            try {
+                if (cliente.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return processo;
+                }
+            } catch (IOException e) {
+                // Ainda não está aceitando conexões
+            }
+            Thread.sleep(500);
+        }
+        processo.destroy();
+        throw new IllegalStateException("A aplicação não respondeu ao health check em 3 minutos; veja " + log);
+    }
+
+    // Cadastra (ou redefine, pelo código) o catálogo de teste e carrega os IDs para o sorteio
+    private void preparar() throws Exception {
+        if (configuracao.produtos > 0) {
+            StringBuilder corpo = new StringBuilder(configuracao.produtos * 120);
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 1; i <= configuracao.produtos; i++) {
+                corpo.append("{\"codigo\":\"").append(PREFIXO_CODIGO).append(i)
+                        .append("\",\"nome\":\"Produto de carga ").append(i)
+                        .append("\",\"descricao\":\"Gerado pelo GeradorCarga\",\"preco\":")
+                        .append(String.format(Locale.ROOT, "%.2f", 5 + aleatorio.nextDouble(500)))
+                        .append(",\"quantidadeEstoque\":").append(configuracao.estoque)
+                        .append(",\"ativo\":true}\n");
+            }
+            HttpResponse<String> resposta = http.send(HttpRequest.newBuilder(URI.create(configuracao.url + "/produtos/importacao"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .timeout(Duration.ofMinutes(10))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo.toString()))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (resposta.statusCode() != 200) {
+                throw new IllegalStateException("Falha ao importar os produtos de carga: HTTP " + resposta.statusCode()
+                        + " " + resposta.body());
+            }
+            JsonNode resultado = objectMapper.readTree(resposta.body());
+            System.out.printf("Catálogo de carga: %d inseridos, %d atualizados, %d rejeitados%n",
+                    resultado.path("inseridos").asLong(), resultado.path("atualizados").asLong(),
+                    resultado.path("rejeitados").asLong());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = "0";
+        while (true) {
+            HttpResponse<String> pagina = http.send(HttpRequest.newBuilder(
+                    URI.create(configuracao.url + "/produtos?limite=1000&apos=" + cursor)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode produtosPagina = objectMapper.readTree(pagina.body());
+            if (pagina.statusCode() != 200 || produtosPagina.isEmpty()) {
+                break;
+            }
+            for (JsonNode produto : produtosPagina) {
+                boolean deCarga = produto.path("codigo").asText("").startsWith(PREFIXO_CODIGO);
+                if (produto.path("ativo").asBoolean() && (configuracao.produtos == 0 || deCarga)) {
+                    ids.add(produto.path("id").asLong());
+                }
+            }
+            cursor = pagina.headers().firstValue("X-Proximo-Cursor").orElse(null);
+            if (cursor == null) {
+                break;
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("Nenhum produto ativo disponível em " + configuracao.url);
+        }
+        produtos = new DistribuicaoZipf(ids.stream().mapToLong(Long::longValue).toArray(), configuracao.zipf, 42);
+        if (configuracao.mix.containsKey(Operacao.CHECKOUT)) {
+            criarResumosDoDia(ids);
+        }
+
+        int umPorCento = Math.max(1, produtos.tamanho() / 100);
+        System.out.printf(Locale.ROOT, "%d produtos, Zipf s=%.2f: top 10 recebem %.1f%% das escolhas, top 1%% (%d) recebe %.1f%%%n",
+                produtos.tamanho(), configuracao.zipf, 100 * produtos.participacao(10), umPorCento,
+                100 * produtos.participacao(umPorCento));
+        System.out.printf(Locale.ROOT, "Taxa %.1f req/s (%s), aquecimento %d s, medição %d s, mix %s%n",
+                configuracao.taxa, configuracao.chegadas, configuracao.aquecimento, configuracao.duracao, configuracao.mix);
+    }
+
+    // Vendas sequenciais com todos os produtos (uma unidade de cada, em lotes) criam as linhas de
+    // resumo do dia antes da carga: no H2 a primeira inserção concorrente da mesma linha falha
+    private void criarResumosDoDia(List<Long> ids) throws Exception {
+        for (int i = 0; i < ids.size(); i += TAMANHO_LOTE_VENDA_INICIAL) {
+            StringBuilder corpo = new StringBuilder("[");
+            for (Long id : ids.subList(i, Math.min(i + TAMANHO_LOTE_VENDA_INICIAL, ids.size()))) {
+                corpo.append(corpo.length() > 1 ? "," : "").append("{\"produto\":{\"id\":").append(id).append("},\"quantidade\":1}");
+            }
+            HttpResponse<Void> resposta = http.send(HttpRequest.newBuilder(URI.create(configuracao.url + "/vendas"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo.append(']').toString()))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (resposta.statusCode() != 201) {
+                System.out.println("Venda inicial recusada (HTTP " + resposta.statusCode() + "); seguindo sem ela");
+                return;
+            }
+        }
+    }
+
+    private void executar() throws InterruptedException {
+        long inicio = System.nanoTime();
+        long inicioMedicao = inicio + TimeUnit.SECONDS.toNanos(configuracao.aquecimento);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(configuracao.duracao);
+        Duration timeout = Duration.ofSeconds(configuracao.timeout);
+
+        ScheduledExecutorService relatorio = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "carga-relatorio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relatorio.scheduleAtFixedRate(() -> relatarIntervalo(inicio, inicioMedicao),
+                configuracao.intervaloRelatorio, configuracao.intervaloRelatorio, TimeUnit.SECONDS);
+
+        double intervaloMedioNanos = TimeUnit.SECONDS.toNanos(1) / configuracao.taxa;
+        double proxima = inicio;
+        while (true) {
+            proxima += configuracao.chegadas.equals("poisson")
+                    ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * intervaloMedioNanos
+                    : intervaloMedioNanos;
+            long previsto = (long) proxima;
+            if (previsto >= fim) {
+                break;
+            }
+            long espera = previsto - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            // Com max-pendentes requisições em andamento o disparo espera por uma vaga; o atraso
+            // continua contado, porque a latência parte do instante previsto
+            pendentes.acquire();
+            disparar(sortearOperacao(), previsto, previsto >= inicioMedicao, timeout);
+        }
+
+        // Espera as requisições em andamento terminarem
+        if (!pendentes.tryAcquire(configuracao.maxPendentes, configuracao.timeout + 5L, TimeUnit.SECONDS)) {
+            System.out.println("Algumas requisições não terminaram dentro do timeout");
+        }
+        relatorio.shutdownNow();
+    }
+
+    private void disparar(Operacao operacao, long previsto, boolean medir, Duration timeout) {
+        HttpRequest requisicao = operacao.requisicao(configuracao.url, produtos, configuracao.itensMaximo, timeout);
+        long envio = System.nanoTime();
+        enviadasIntervalo.incrementAndGet();
+        http.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, erro) -> {
+            long agora = System.nanoTime();
+            pendentes.release();
+            intervalo.recordValue(Math.min(micros(agora - previsto), LATENCIA_MAXIMA_US));
+            if (!medir) {
+                return;
+            }
+            Metricas metrica = metricas.get(operacao);
+            if (erro != null) {
+                metrica.erros.increment();
+                return;
+            }
+            int status = resposta.statusCode();
+            if (status == 503) {
+                metrica.rejeitadas.increment();
+            } else if (status >= 500) {
+                metrica.erros.increment();
+            } else if (status >= 400) {
+                metrica.recusadas.increment();
+            }
+            metrica.corrigida.recordValue(Math.min(micros(agora - previsto), LATENCIA_MAXIMA_US));
+            metrica.servico.recordValue(Math.min(micros(agora - envio), LATENCIA_MAXIMA_US));
+        });
+    }
+
+    private Operacao sortearOperacao() {
+        int sorteio = ThreadLocalRandom.current().nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (sorteio < pesosAcumulados[i]) {
+                return operacoes[i];
+            }
+        }
+        return operacoes[operacoes.length - 1];
+    }
+
+    private void relatarIntervalo(long inicio, long inicioMedicao) {
+        ultimoIntervalo = intervalo.getIntervalHistogram(ultimoIntervalo);
+        long agora = System.nanoTime();
+        System.out.printf(Locale.ROOT, "[%5ds] %-11s enviadas/s %8.1f  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  pendentes %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(agora - inicio), agora < inicioMedicao ? "aquecimento" : "medição",
+                enviadasIntervalo.getAndSet(0) / (double) configuracao.intervaloRelatorio,
+                ms(ultimoIntervalo.getValueAtPercentile(50)), ms(ultimoIntervalo.getValueAtPercentile(99)),
+                ms(ultimoIntervalo.getMaxValue()), configuracao.maxPendentes - pendentes.availablePermits());
+    }
+
+    private void relatar() throws IOException {
+        System.out.println();
+        System.out.println("Latência corrigida (desde o instante previsto de envio), em ms:");
+        System.out.printf("%-10s %9s %9s %9s %9s %9s %9s %11s %7s %7s %7s%n", "operacao", "req/s", "p50", "p90",
+                "p99", "p99.9", "max", "servico p99", "4xx", "503", "erros");
+        Histogram total = new Histogram(LATENCIA_MAXIMA_US, 3);
+        Histogram totalServico = new Histogram(LATENCIA_MAXIMA_US, 3);
+        Metricas soma = new Metricas();
+        for (Operacao operacao : operacoes) {
+            Metricas metrica = metricas.get(operacao);
+            imprimirLinha(operacao.nome, metrica.corrigida, metrica.servico, metrica);
+            total.add(metrica.corrigida);
+            totalServico.add(metrica.servico);
+            soma.recusadas.add(metrica.recusadas.sum());
+            soma.rejeitadas.add(metrica.rejeitadas.sum());
+            soma.erros.add(metrica.erros.sum());
+            gravarDistribuicao(operacao.nome, metrica.corrigida);
+        }
+        imprimirLinha("total", total, totalServico, soma);
+        gravarDistribuicao("total", total);
+    }
+
+    private void imprimirLinha(String nome, Histogram corrigida, Histogram servico, Metricas metrica) {
+        System.out.printf(Locale.ROOT, "%-10s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f %7d %7d %7d%n",
+                nome, corrigida.getTotalCount() / (double) configuracao.duracao,
+                ms(corrigida.getValueAtPercentile(50)), ms(corrigida.getValueAtPercentile(90)),
+                ms(corrigida.getValueAtPercentile(99)), ms(corrigida.getValueAtPercentile(99.9)),
+                ms(corrigida.getMaxValue()), ms(servico.getValueAtPercentile(99)),
+                metrica.recusadas.sum(), metrica.rejeitadas.sum(), metrica.erros.sum());
+    }
+
+    // Distribuição completa no formato .hgrm do HdrHistogram (pode ser plotada no HistogramLogAnalyzer)
+    private void gravarDistribuicao(String nome, Histogram histograma) throws IOException {
+        if (configuracao.saida == null) {
+            return;
+        }
+        Path diretorio = Files.createDirectories(Path.of(configuracao.saida));
+        try (PrintStream saida = new PrintStream(Files.newOutputStream(diretorio.resolve(nome + ".hgrm")))) {
+            histograma.outputPercentileDistribution(saida, 1000.0);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class Metricas {
+        final Histogram corrigida = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+        final Histogram servico = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+        final LongAdder recusadas = new LongAdder();
+        final LongAdder rejeitadas = new LongAdder();
+        final LongAdder erros = new LongAdder();
+    }
+}
@@ -0,0 +1,69 @@
+package com.projeto.ecommerce.benchmark.carga;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Tipos de requisição do mix de carga
+enum Operacao {
+
+    // GET /produtos/{id}, produto sorteado pela distribuição Zipf (cache "produtos")
+    PRODUTO("produto"),
+    // GET /produtos/ativos
+    ATIVOS("ativos"),
+    // GET /produtos?apos=..&limite=50, página a partir de um ID sorteado
+    LISTAGEM("listagem"),
+    // POST /vendas com 1 a itens-maximo produtos sorteados pela distribuição Zipf
+    CHECKOUT("checkout"),
+    // GET /vendas/relatorio/*, alternando entre os relatórios do dia e da semana
+    RELATORIO("relatorio");
+
+    private static final String[] RELATORIOS = {
+            "/vendas/relatorio/resumo?startDate=%1$s&endDate=%1$s",
+            "/vendas/relatorio/resumo/semana-atual",
+            "/vendas/relatorio/data?startDate=%1$s&endDate=%1$s",
+    };
+
+    final String nome;
+
+    Operacao(String nome) {
+        this.nome = nome;
+    }
+
+    static Operacao de(String nome) {
+        for (Operacao operacao : values()) {
+            if (operacao.nome.equalsIgnoreCase(nome)) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação desconhecida no mix: " + nome);
+    }
+
+    HttpRequest requisicao(String url, DistribuicaoZipf produtos, int itensMaximo, Duration timeout) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        HttpRequest.Builder builder = switch (this) {
+            case PRODUTO -> HttpRequest.newBuilder(URI.create(url + "/produtos/" + produtos.sortear()));
+            case ATIVOS -> HttpRequest.newBuilder(URI.create(url + "/produtos/ativos"));
+            case LISTAGEM -> HttpRequest.newBuilder(URI.create(url + "/produtos?limite=50&apos=" + produtos.sortear()));
+            case CHECKOUT -> HttpRequest.newBuilder(URI.create(url + "/vendas"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpoVenda(produtos, 1 + aleatorio.nextInt(itensMaximo))));
+            case RELATORIO -> HttpRequest.newBuilder(URI.create(url
+                    + String.format(RELATORIOS[aleatorio.nextInt(RELATORIOS.length)], LocalDate.now())));
+        };
+        return builder.timeout(timeout).build();
+    }
+
+    private static String corpoVenda(DistribuicaoZipf produtos, int itens) {
+        StringBuilder corpo = new StringBuilder("[");
+        for (int i = 0; i < itens; i++) {
+            if (i > 0) {
+                corpo.append(',');
+            }
+            corpo.append("{\"produto\":{\"id\":").append(produtos.sortear()).append("},\"quantidade\":1}");
+        }
+        return corpo.append(']').toString();
+    }
+}
@@ -2,25 +2,5 @@ CREATE DATABASE ecommerce;
 
 \c ecommerce
 
-CREATE TABLE Produto (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    nome VARCHAR(255) NOT NULL,
-    preco DECIMAL(10, 2) NOT NULL,
-    quantidade_estoque INTEGER NOT NULL,
-    ativo BOOLEAN NOT NULL
-);
-
-CREATE TABLE Venda (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    data_venda TIMESTAMP NOT NULL,
-    valor_total DECIMAL(10, 2)
-);
-
-CREATE TABLE ItemVenda (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    venda_id BIGINT NOT NULL,
-    produto_id BIGINT NOT NULL,
-    quantidade INTEGER NOT NULL,
-    FOREIGN KEY (venda_id) REFERENCES Venda(id) ON DELETE CASCADE,
-    FOREIGN KEY (produto_id) REFERENCES Produto(id)
-);
+-- As tabelas são criadas pela aplicação ao iniciar, com as migrações do Flyway em
+-- src/main/resources/db/migration (V1: esquema inicial; V2: vendas particionadas por mês).
@@ -0,0 +1,19 @@
+package com.projeto.ecommerce.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marca um endpoint que acessa o banco com a classe de operação usada pelo ControleAdmissao.
+// Endpoints sem a anotação (ex.: leituras por ID servidas pelo cache) não passam pelo controle.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admissao {
+
+    Classe value();
+
+    enum Classe {
+        CHECKOUT, RELATORIO, CATALOGO
+    }
+}
@@ -0,0 +1,164 @@
+package com.projeto.ecommerce.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Propaga para as outras instâncias as alterações feitas nos caches desta (CaffeineCacheInvalidavel)
+// e aplica nos caches locais as que chegam delas. As alterações são acumuladas e enviadas em lote a
+// cada intervalo-ms, uma por chave: várias alterações da mesma chave no intervalo viram uma só, com
+// a maior versão. Se o envio falhar, o lote volta para a fila e vai no próximo; passando de
+// max-pendentes, a fila é trocada por uma limpeza completa de cada cache.
+public class BarramentoInvalidacao {
+
+    private static final Logger log = LoggerFactory.getLogger(BarramentoInvalidacao.class);
+
+    private final String origem = UUID.randomUUID().toString();
+    private final TransporteInvalidacao transporte;
+    private final int maxPendentes;
+    private final Map<String, CaffeineCacheInvalidavel> caches = new ConcurrentHashMap<>();
+
+    // Por (cache, chave), a versão a enviar; nula se alguma alteração da chave veio sem versão
+    private Map<Destino, Long> pendentes = new LinkedHashMap<>();
+    private boolean falhando;
+
+    private final Counter enviadas;
+    private final Counter recebidas;
+    private final Counter obsoletas;
+    private final Counter falhasEnvio;
+
+    public BarramentoInvalidacao(TransporteInvalidacao transporte, int maxPendentes, MeterRegistry meterRegistry) {
+        this.transporte = transporte;
+        this.maxPendentes = maxPendentes;
+        this.enviadas = Counter.builder("cache.invalidacao.enviadas")
+                .description("Invalidações de cache enviadas às outras instâncias")
+                .register(meterRegistry);
+        this.recebidas = Counter.builder("cache.invalidacao.recebidas")
+                .description("Invalidações de cache recebidas de outras instâncias")
+                .register(meterRegistry);
+        this.obsoletas = Counter.builder("cache.invalidacao.obsoletas")
+                .description("Invalidações recebidas e gravações locais ignoradas por trazerem versão mais antiga que a do cache")
+                .register(meterRegistry);
+        this.falhasEnvio = Counter.builder("cache.invalidacao.falhas")
+                .description("Falhas ao enviar ou escutar invalidações de cache")
+                .tag("etapa", "envio")
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidacao.pendentes", this, BarramentoInvalidacao::quantidadePendente)
+                .description("Invalidações aguardando envio")
+                .register(meterRegistry);
+        transporte.assinar(this);
+    }
+
+    CaffeineCacheInvalidavel registrar(CaffeineCacheInvalidavel cache) {
+        caches.put(cache.getName(), cache);
+        return cache;
+    }
+
+    void publicar(String cache, Object chave, Long versao) {
+        synchronized (this) {
+            acumular(new Destino(cache, chave), versao);
+            if (pendentes.size() > maxPendentes) {
+                log.warn("Mais de {} invalidações pendentes; enviando limpeza completa dos caches", maxPendentes);
+                pendentes = new LinkedHashMap<>();
+                for (String nome : caches.keySet()) {
+                    pendentes.put(new Destino(nome, null), null);
+                }
+            }
+        }
+    }
+
+    void obsoleta() {
+        obsoletas.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${ecommerce.cache.invalidacao.intervalo-ms:20}")
+    public void enviar() {
+        Map<Destino, Long> lote;
+        synchronized (this) {
+            if (pendentes.isEmpty()) {
+                return;
+            }
+            lote = pendentes;
+            pendentes = new LinkedHashMap<>();
+        }
+        List<LoteInvalidacao.Item> itens = new ArrayList<>(lote.size());
+        lote.forEach((destino, versao) -> itens.add(new LoteInvalidacao.Item(destino.cache, destino.chave, versao)));
+        try {
+            transporte.enviar(new LoteInvalidacao(origem, itens));
+            enviadas.increment(itens.size());
+            falhando = false;
+        } catch (RuntimeException e) {
+            falhasEnvio.increment();
+            // Só a primeira falha de uma sequência é registrada
+            if (!falhando) {
+                log.warn("Falha ao enviar invalidações de cache: {}", e.getMessage());
+                falhando = true;
+            }
+            synchronized (this) {
+                lote.forEach(this::acumular);
+            }
+        }
+    }
+
+    void receber(LoteInvalidacao lote) {
+        if (origem.equals(lote.getOrigem())) {
+            return;
+        }
+        for (LoteInvalidacao.Item item : lote.getItens()) {
+            CaffeineCacheInvalidavel cache = caches.get(item.getCache());
+            if (cache != null) {
+                cache.aplicarRemota(item.getChave(), item.getVersao());
+                recebidas.increment();
+            }
+        }
+    }
+
+    // Chamado pelo transporte quando mensagens podem ter se perdido
+    void descartarTudo() {
+        caches.values().forEach(CaffeineCacheInvalidavel::limparLocal);
+    }
+
+    private void acumular(Destino destino, Long versao) {
+        if (pendentes.containsKey(destino)) {
+            Long atual = pendentes.get(destino);
+            versao = atual == null || versao == null ? null : Math.max(atual, versao);
+        }
+        pendentes.put(destino, versao);
+    }
+
+    private synchronized int quantidadePendente() {
+        return pendentes.size();
+    }
+
+    private static final class Destino {
+
+        private final String cache;
+        private final Object chave;
+
+        private Destino(String cache, Object chave) {
+            this.cache = cache;
+            this.chave = chave;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            return outro instanceof Destino destino && cache.equals(destino.cache) && Objects.equals(chave, destino.chave);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cache.hashCode() + Objects.hashCode(chave);
+        }
+    }
+}
@@ -1,18 +1,135 @@
 package com.projeto.ecommerce.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.repository.VendaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${ecommerce.cache.produtos.tamanho-maximo:10000}")
+    private long tamanhoMaximoProdutos;
+
+    // Peso de uma venda = 1 + número de itens
+    @Value("${ecommerce.cache.vendas.peso-maximo:100000}")
+    private long pesoMaximoVendas;
+
+    @Value("${ecommerce.cache.expiracao:10m}")
+    private Duration expiracao;
+
+    @Value("${ecommerce.cache.atualizacao:1m}")
+    private Duration atualizacao;
+
+    @Value("${ecommerce.cache.threads-carga:8}")
+    private int threadsCarga;
+
+    @Value("${ecommerce.cache.invalidacao.max-versoes:100000}")
+    private long maxVersoes;
+
+    // Threads de plataforma que executam as cargas do banco. Assim a consulta não roda dentro do
+    // lock do Caffeine: com virtual threads (Java 21) isso prenderia a thread portadora e, com o
+    // pool de conexões esgotado, podia travar todas as requisições.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService executorCargaCache() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(threadsCarga, tarefa -> {
+            Thread thread = new Thread(tarefa, "cache-carga-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Invalidação entre instâncias: "local" entrega só dentro desta JVM (instância única, testes);
+    // "postgres" usa LISTEN/NOTIFY no banco primário
+    @Bean(destroyMethod = "fechar")
+    @ConditionalOnProperty(name = "ecommerce.cache.invalidacao.transporte", havingValue = "local", matchIfMissing = true)
+    public TransporteInvalidacao transporteInvalidacaoLocal() {
+        return new TransporteInvalidacaoLocal();
+    }
+
+    @Bean(destroyMethod = "fechar")
+    @ConditionalOnProperty(name = "ecommerce.cache.invalidacao.transporte", havingValue = "postgres")
+    public TransporteInvalidacao transporteInvalidacaoPostgres(DataSource dataSource, DataSourceProperties propriedades,
+                                                               ObjectMapper objectMapper,
+                                                               @Value("${ecommerce.cache.invalidacao.canal:ecommerce_cache}") String canal,
+                                                               @Value("${ecommerce.cache.invalidacao.espera-reconexao:1s}") Duration esperaReconexao,
+                                                               MeterRegistry meterRegistry) {
+        return new TransporteInvalidacaoPostgres(dataSource, propriedades, objectMapper, canal, esperaReconexao, meterRegistry);
+    }
+
+    @Bean
+    public BarramentoInvalidacao barramentoInvalidacao(TransporteInvalidacao transporteInvalidacao,
+                                                       @Value("${ecommerce.cache.invalidacao.max-pendentes:100000}") int maxPendentes,
+                                                       MeterRegistry meterRegistry) {
+        return new BarramentoInvalidacao(transporteInvalidacao, maxPendentes, meterRegistry);
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        // Usando o cache em memória baseado em ConcurrentMap
-        return new ConcurrentMapCacheManager("produtos", "vendas");
+    public CacheManager cacheManager(ProdutoRepository produtoRepository, VendaRepository vendaRepository,
+                                     ExecutorService executorCargaCache, BarramentoInvalidacao barramentoInvalidacao) {
+        // Cache em memória limitado (Caffeine), com uma entrada por ID.
+        // Entradas lidas depois do intervalo de atualização são recarregadas em segundo plano.
+        // As alterações de cada cache são propagadas às outras instâncias (CaffeineCacheInvalidavel).
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String nome, AsyncCache<Object, Object> cache) {
+                return barramentoInvalidacao.registrar(new CaffeineCacheInvalidavel(nome, cache, isAllowNullValues(),
+                        barramentoInvalidacao, CacheConfig::versao, maxVersoes, expiracao));
+            }
+        };
+        cacheManager.setAsyncCacheMode(true);
+
+        cacheManager.registerCustomCache("produtos", Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoProdutos)
+                .expireAfterWrite(expiracao)
+                .refreshAfterWrite(atualizacao)
+                .recordStats()
+                .executor(executorCargaCache)
+                .buildAsync(id -> produtoRepository.findById((Long) id).orElse(null)));
+
+        cacheManager.registerCustomCache("vendas", Caffeine.newBuilder()
+                .maximumWeight(pesoMaximoVendas)
+                .weigher((Object id, Object venda) -> 1 + ((Venda) venda).getItens().size())
+                .expireAfterWrite(expiracao)
+                .refreshAfterWrite(atualizacao)
+                .recordStats()
+                .executor(executorCargaCache)
+                .buildAsync(id -> vendaRepository.findComItensById((Long) id).orElse(null)));
+
+        // put/evict só depois do commit da transação corrente
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // Versão (@Version) dos valores guardados nos caches
+    private static Long versao(Object valor) {
+        if (valor instanceof Produto produto) {
+            return produto.getVersao();
+        }
+        if (valor instanceof Venda venda) {
+            return venda.getVersao();
+        }
+        return null;
     }
 }
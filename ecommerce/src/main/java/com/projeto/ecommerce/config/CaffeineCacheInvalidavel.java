@@ -0,0 +1,123 @@
+package com.projeto.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Cache Caffeine cujas gravações (put) e remoções (evict/clear) são publicadas no
+// BarramentoInvalidacao. Nas outras instâncias elas só removem a entrada, que é relida do banco no
+// próximo acesso; o valor em si nunca trafega.
+//
+// Para que uma alteração antiga não passe por cima de uma nova (lotes fora de ordem, ou dois
+// commits locais cujo put depois do commit sai na ordem inversa), cada chave guarda a maior versão
+// (@Version) já vista: put com versão menor é ignorado, e invalidação recebida com versão menor ou
+// igual à da entrada local não a remove. Alterações sem versão (estoque, inativação) sempre removem.
+public class CaffeineCacheInvalidavel extends CaffeineCache {
+
+    private final BarramentoInvalidacao barramento;
+    private final Function<Object, Long> versao;
+    private final Cache<Object, Long> versoes;
+
+    public CaffeineCacheInvalidavel(String nome, AsyncCache<Object, Object> cache, boolean permitirNulos,
+                                    BarramentoInvalidacao barramento, Function<Object, Long> versao,
+                                    long maxVersoes, Duration expiracaoVersoes) {
+        super(nome, cache, permitirNulos);
+        this.barramento = barramento;
+        this.versao = versao;
+        this.versoes = Caffeine.newBuilder()
+                .maximumSize(maxVersoes)
+                .expireAfterWrite(expiracaoVersoes)
+                .build();
+    }
+
+    @Override
+    public void put(Object chave, Object valor) {
+        Long versaoValor = versao.apply(valor);
+        if (versaoValor == null) {
+            super.put(chave, valor);
+            barramento.publicar(getName(), chave, null);
+            return;
+        }
+        boolean[] gravado = {false};
+        // compute serializa a gravação com aplicarRemota da mesma chave
+        versoes.asMap().compute(chave, (k, atual) -> {
+            if (atual != null && versaoValor < atual) {
+                return atual;
+            }
+            super.put(chave, valor);
+            gravado[0] = true;
+            return versaoValor;
+        });
+        if (!gravado[0]) {
+            barramento.obsoleta();
+        } else if (versaoValor > 0) {
+            // Na versão inicial (acabou de ser inserido) nenhuma outra instância pode ter cópia diferente
+            barramento.publicar(getName(), chave, versaoValor);
+        }
+    }
+
+    @Override
+    public void evict(Object chave) {
+        super.evict(chave);
+        barramento.publicar(getName(), chave, null);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object chave) {
+        boolean presente = super.evictIfPresent(chave);
+        // Outra instância pode ter a entrada mesmo que esta não tenha
+        barramento.publicar(getName(), chave, null);
+        return presente;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        barramento.publicar(getName(), null, null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean havia = super.invalidate();
+        barramento.publicar(getName(), null, null);
+        return havia;
+    }
+
+    void aplicarRemota(Object chave, Long versaoRemota) {
+        if (chave == null) {
+            super.clear();
+            return;
+        }
+        if (versaoRemota == null) {
+            super.evict(chave);
+            return;
+        }
+        versoes.asMap().compute(chave, (k, atual) -> {
+            if (versaoLocal(chave) >= versaoRemota) {
+                barramento.obsoleta();
+            } else {
+                super.evict(chave);
+            }
+            return atual == null ? versaoRemota : Math.max(atual, versaoRemota);
+        });
+    }
+
+    void limparLocal() {
+        super.clear();
+    }
+
+    // Versão da entrada já carregada; o resultado de uma carga ainda em andamento é descartado pelo evict
+    private long versaoLocal(Object chave) {
+        CompletableFuture<Object> futuro = getAsyncCache().getIfPresent(chave);
+        if (futuro == null || !futuro.isDone() || futuro.isCompletedExceptionally()) {
+            return -1;
+        }
+        Long versaoValor = versao.apply(futuro.join());
+        return versaoValor != null ? versaoValor : -1;
+    }
+}
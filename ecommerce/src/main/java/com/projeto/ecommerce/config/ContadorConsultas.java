@@ -0,0 +1,25 @@
+package com.projeto.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Conta os comandos SQL preparados pelo Hibernate na thread corrente. O custo por comando é
+// um incremento em um ThreadLocal; MetricasRequisicao zera a contagem no início de cada
+// requisição e registra o total no fim.
+public class ContadorConsultas implements StatementInspector {
+
+    private static final ThreadLocal<long[]> CONTAGEM = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        CONTAGEM.get()[0]++;
+        return sql;
+    }
+
+    public static void zerar() {
+        CONTAGEM.get()[0] = 0;
+    }
+
+    public static long total() {
+        return CONTAGEM.get()[0];
+    }
+}
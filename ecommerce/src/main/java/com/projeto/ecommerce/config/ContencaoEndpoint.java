@@ -0,0 +1,25 @@
+package com.projeto.ecommerce.config;
+
+import com.projeto.ecommerce.response.ContencaoProdutoResponse;
+import com.projeto.ecommerce.service.MetricasCheckout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/contencao?limite=N: produtos com mais disputas de estoque desde a inicialização
+@Component
+@Endpoint(id = "contencao")
+public class ContencaoEndpoint {
+
+    @Autowired
+    private MetricasCheckout metricasCheckout;
+
+    @ReadOperation
+    public List<ContencaoProdutoResponse> maisDisputados(@Nullable Integer limite) {
+        return metricasCheckout.maisDisputados(limite != null ? Math.max(limite, 1) : 20);
+    }
+}
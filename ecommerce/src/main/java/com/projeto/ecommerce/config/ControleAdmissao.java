@@ -0,0 +1,114 @@
+package com.projeto.ecommerce.config;
+
+import com.projeto.ecommerce.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Limita as requisições simultâneas que usam o banco, por classe de operação (@Admissao).
+// Quando o banco fica lento as permissões se esgotam e o excedente recebe 503 depois de no máximo
+// espera-ms, em vez de ocupar threads e conexões indefinidamente. Como cada classe tem o seu
+// limite, relatórios lentos não bloqueiam o checkout, e vice-versa.
+// Os limites somados à reserva de conexões (tarefas agendadas, aplicador do diário, lotes do
+// checkout agrupado, relatórios assíncronos) não podem passar do pool do Hikari: se passarem, as
+// requisições admitidas ficariam esperando conexão em vez de receber 503, e a aplicação não sobe.
+@Component
+public class ControleAdmissao implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_PERMISSAO = ControleAdmissao.class.getName() + ".permissao";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int tamanhoPool;
+
+    @Value("${ecommerce.admissao.reserva-conexoes:6}")
+    private int reservaConexoes;
+
+    @Value("${ecommerce.admissao.checkout.limite:8}")
+    private int limiteCheckout;
+
+    @Value("${ecommerce.admissao.relatorio.limite:2}")
+    private int limiteRelatorio;
+
+    @Value("${ecommerce.admissao.catalogo.limite:4}")
+    private int limiteCatalogo;
+
+    @Value("${ecommerce.admissao.espera-ms:50}")
+    private long esperaMs;
+
+    private final Map<Admissao.Classe, Semaphore> permissoes = new EnumMap<>(Admissao.Classe.class);
+    private final Map<Admissao.Classe, Counter> rejeicoes = new EnumMap<>(Admissao.Classe.class);
+
+    @PostConstruct
+    public void iniciar() {
+        int conexoes = limiteCheckout + limiteRelatorio + limiteCatalogo + reservaConexoes;
+        if (conexoes > tamanhoPool) {
+            throw new IllegalStateException(String.format(
+                    "Limites de admissão (checkout %d + relatório %d + catálogo %d) mais a reserva de %d conexões "
+                            + "somam %d, acima do pool de %d conexões (spring.datasource.hikari.maximum-pool-size)",
+                    limiteCheckout, limiteRelatorio, limiteCatalogo, reservaConexoes, conexoes, tamanhoPool));
+        }
+        registrar(Admissao.Classe.CHECKOUT, limiteCheckout);
+        registrar(Admissao.Classe.RELATORIO, limiteRelatorio);
+        registrar(Admissao.Classe.CATALOGO, limiteCatalogo);
+    }
+
+    private void registrar(Admissao.Classe classe, int limite) {
+        Semaphore semaforo = new Semaphore(limite);
+        permissoes.put(classe, semaforo);
+        String tag = classe.name().toLowerCase();
+        Gauge.builder("admissao.em.uso", semaforo, s -> limite - s.availablePermits())
+                .description("Requisições em execução na classe de operação")
+                .tag("classe", tag)
+                .register(meterRegistry);
+        rejeicoes.put(classe, Counter.builder("admissao.rejeitadas")
+                .description("Requisições recusadas com 503 por falta de permissão")
+                .tag("classe", tag)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws InterruptedException {
+        // Redespacho de uma resposta assíncrona (StreamingResponseBody): a permissão já é desta requisição
+        if (request.getAttribute(ATRIBUTO_PERMISSAO) != null || !(handler instanceof HandlerMethod metodo)) {
+            return true;
+        }
+        Admissao admissao = metodo.getMethodAnnotation(Admissao.class);
+        if (admissao == null) {
+            return true;
+        }
+        Semaphore semaforo = permissoes.get(admissao.value());
+        if (!semaforo.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+            rejeicoes.get(admissao.value()).increment();
+            throw new ServicoSobrecarregadoException("Limite de requisições simultâneas atingido para operações de "
+                    + admissao.value().name().toLowerCase() + ". Tente novamente em instantes.");
+        }
+        request.setAttribute(ATRIBUTO_PERMISSAO, semaforo);
+        return true;
+    }
+
+    // Chamado ao fim da requisição; em respostas assíncronas, só ao fim do redespacho
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object semaforo = request.getAttribute(ATRIBUTO_PERMISSAO);
+        if (semaforo != null) {
+            request.removeAttribute(ATRIBUTO_PERMISSAO);
+            ((Semaphore) semaforo).release();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.projeto.ecommerce.config;
+
+import java.util.List;
+
+// Invalidações de cache acumuladas por uma instância durante um intervalo de envio. Em cada item,
+// chave nula vale pelo cache inteiro e versao nula indica que a versão da entidade não é conhecida
+// (quem recebe descarta a entrada de qualquer forma).
+public class LoteInvalidacao {
+
+    private final String origem;
+    private final List<Item> itens;
+
+    public LoteInvalidacao(String origem, List<Item> itens) {
+        this.origem = origem;
+        this.itens = itens;
+    }
+
+    // Getters
+    public String getOrigem() {
+        return origem;
+    }
+
+    public List<Item> getItens() {
+        return itens;
+    }
+
+    public static class Item {
+
+        private final String cache;
+        private final Object chave;
+        private final Long versao;
+
+        public Item(String cache, Object chave, Long versao) {
+            this.cache = cache;
+            this.chave = chave;
+            this.versao = versao;
+        }
+
+        // Getters
+        public String getCache() {
+            return cache;
+        }
+
+        public Object getChave() {
+            return chave;
+        }
+
+        public Long getVersao() {
+            return versao;
+        }
+    }
+}
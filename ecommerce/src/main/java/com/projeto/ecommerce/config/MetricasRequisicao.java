@@ -0,0 +1,50 @@
+package com.projeto.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Comandos SQL por requisição (requisicao.consultas), com as mesmas tags method/uri
+// do http.server.requests. Em respostas assíncronas conta a parte executada na thread da
+// requisição e a do redespacho. Não entram os comandos de outras threads: o corpo escrito pelo
+// StreamingResponseBody e as vendas gravadas pelo checkout agrupado.
+@Component
+public class MetricasRequisicao implements AsyncHandlerInterceptor {
+
+    private static final String ATRIBUTO_CONSULTAS = MetricasRequisicao.class.getName() + ".consultas";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ContadorConsultas.zerar();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ATRIBUTO_CONSULTAS, ContadorConsultas.total());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long consultas = ContadorConsultas.total();
+        if (request.getAttribute(ATRIBUTO_CONSULTAS) instanceof Long anteriores) {
+            consultas += anteriores;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("requisicao.consultas")
+                .description("Comandos SQL executados por requisição")
+                .baseUnit("comandos")
+                .tag("method", request.getMethod())
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(consultas);
+    }
+}
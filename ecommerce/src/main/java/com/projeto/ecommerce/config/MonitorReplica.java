@@ -0,0 +1,72 @@
+package com.projeto.ecommerce.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Mede periodicamente o atraso de replicação (consulta-atraso, em segundos) e tira a réplica do
+// roteamento enquanto ele passar de atraso-maximo ou a consulta falhar.
+public class MonitorReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorReplica.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String consultaAtraso;
+    private final Duration atrasoMaximo;
+
+    private volatile boolean disponivel;
+    private volatile double atrasoSegundos = Double.NaN;
+    private boolean falhando;
+
+    public MonitorReplica(DataSource replica, String consultaAtraso, Duration atrasoMaximo, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(replica);
+        this.jdbcTemplate.setQueryTimeout(5);
+        this.consultaAtraso = consultaAtraso;
+        this.atrasoMaximo = atrasoMaximo;
+        Gauge.builder("replica.atraso", this, monitor -> monitor.atrasoSegundos)
+                .description("Atraso de replicação medido na réplica de leitura (NaN se a medição falhou)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("replica.disponivel", this, monitor -> monitor.disponivel ? 1 : 0)
+                .description("1 se as leituras estão indo para a réplica, 0 se estão no primário")
+                .register(meterRegistry);
+    }
+
+    public boolean disponivel() {
+        return disponivel;
+    }
+
+    @Scheduled(fixedDelayString = "${ecommerce.replica.intervalo-verificacao-ms:1000}")
+    public void verificar() {
+        boolean agora;
+        try {
+            Double atraso = jdbcTemplate.queryForObject(consultaAtraso, Double.class);
+            atrasoSegundos = atraso != null ? atraso : 0;
+            agora = atrasoSegundos * 1000 <= atrasoMaximo.toMillis();
+            falhando = false;
+        } catch (RuntimeException e) {
+            atrasoSegundos = Double.NaN;
+            agora = false;
+            // Só a primeira falha de uma sequência é registrada
+            if (!falhando) {
+                log.warn("Falha ao medir o atraso da réplica: {}", e.getMessage());
+                falhando = true;
+            }
+        }
+        if (agora != disponivel) {
+            if (agora) {
+                log.info("Réplica de leitura em uso (atraso de {} s)", atrasoSegundos);
+            } else {
+                log.warn("Leituras redirecionadas ao primário: atraso da réplica de {} s (máximo {})",
+                        atrasoSegundos, atrasoMaximo);
+            }
+            disponivel = agora;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.projeto.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Com ecommerce.replica.habilitada=true a aplicação passa a ter dois pools: o primário
+// (spring.datasource.*) e a réplica de leitura (ecommerce.replica.datasource.*, com tamanho próprio).
+// O DataSource usado pelo JPA roteia cada transação para um deles (RoteamentoDataSource).
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.replica.habilitada", havingValue = "true")
+public class ReplicaLeituraConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propriedades) {
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName("primario");
+        return primario;
+    }
+
+    @Bean
+    @ConfigurationProperties("ecommerce.replica.datasource")
+    public HikariDataSource dataSourceReplica() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("dataSourceReplica") DataSource replica,
+                                         @Value("${ecommerce.replica.consulta-atraso}") String consultaAtraso,
+                                         @Value("${ecommerce.replica.atraso-maximo:5s}") Duration atrasoMaximo,
+                                         MeterRegistry meterRegistry) {
+        return new MonitorReplica(replica, consultaAtraso, atrasoMaximo, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 MonitorReplica monitorReplica, MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica, monitorReplica, meterRegistry));
+    }
+}
@@ -0,0 +1,51 @@
+package com.projeto.ecommerce.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Escolhe o pool a cada conexão física: transações readOnly vão para a réplica enquanto ela
+// estiver em dia (MonitorReplica); todo o resto vai para o primário. Precisa ficar atrás de um
+// LazyConnectionDataSourceProxy, pois o flag readOnly só é marcado depois que o gerenciador de
+// transações pede a conexão.
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    private final MonitorReplica monitorReplica;
+    private final Counter paraPrimario;
+    private final Counter paraReplica;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, MonitorReplica monitorReplica,
+                                MeterRegistry meterRegistry) {
+        this.monitorReplica = monitorReplica;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+        paraPrimario = contador(meterRegistry, "primario");
+        paraReplica = contador(meterRegistry, "replica");
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String destino) {
+        return Counter.builder("datasource.roteamento")
+                .description("Conexões obtidas por pool de destino")
+                .tag("destino", destino)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitorReplica.disponivel()) {
+            paraReplica.increment();
+            return Destino.REPLICA;
+        }
+        paraPrimario.increment();
+        return Destino.PRIMARIO;
+    }
+}
@@ -0,0 +1,13 @@
+package com.projeto.ecommerce.config;
+
+// Leva os lotes de invalidação do BarramentoInvalidacao de uma instância para as demais.
+// A entrega pode chegar fora de ordem ou repetida; se o transporte souber que perdeu mensagens
+// (reconexão, por exemplo), deve chamar descartarTudo() no barramento assinado.
+public interface TransporteInvalidacao {
+
+    void enviar(LoteInvalidacao lote);
+
+    void assinar(BarramentoInvalidacao barramento);
+
+    void fechar();
+}
@@ -0,0 +1,34 @@
+package com.projeto.ecommerce.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Entrega os lotes aos barramentos da mesma JVM. Com uma só aplicação por processo não há a quem
+// entregar; serve para instância única e para testes que sobem mais de um contexto Spring no mesmo
+// processo.
+public class TransporteInvalidacaoLocal implements TransporteInvalidacao {
+
+    private static final List<BarramentoInvalidacao> ASSINANTES = new CopyOnWriteArrayList<>();
+
+    private BarramentoInvalidacao assinado;
+
+    @Override
+    public void enviar(LoteInvalidacao lote) {
+        for (BarramentoInvalidacao barramento : ASSINANTES) {
+            if (barramento != assinado) {
+                barramento.receber(lote);
+            }
+        }
+    }
+
+    @Override
+    public void assinar(BarramentoInvalidacao barramento) {
+        assinado = barramento;
+        ASSINANTES.add(barramento);
+    }
+
+    @Override
+    public void fechar() {
+        ASSINANTES.remove(assinado);
+    }
+}
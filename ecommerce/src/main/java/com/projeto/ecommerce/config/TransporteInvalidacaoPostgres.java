@@ -0,0 +1,170 @@
+package com.projeto.ecommerce.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Lotes de invalidação por LISTEN/NOTIFY do PostgreSQL primário. O envio é um pg_notify por uma
+// conexão do pool; a escuta usa uma conexão própria, fora do pool, presa a uma thread. As
+// notificações que chegarem enquanto a escuta estiver desconectada se perdem, por isso cada
+// reconexão descarta os caches locais inteiros.
+public class TransporteInvalidacaoPostgres implements TransporteInvalidacao {
+
+    private static final Logger log = LoggerFactory.getLogger(TransporteInvalidacaoPostgres.class);
+
+    // O payload de um NOTIFY tem no máximo 8000 bytes
+    private static final int TAMANHO_MAXIMO_PAYLOAD = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties propriedades;
+    private final ObjectMapper objectMapper;
+    private final String canal;
+    private final Duration esperaReconexao;
+    private final Counter falhasEscuta;
+
+    private volatile boolean encerrado;
+    private Thread escuta;
+
+    public TransporteInvalidacaoPostgres(DataSource dataSource, DataSourceProperties propriedades, ObjectMapper objectMapper,
+                                         String canal, Duration esperaReconexao, MeterRegistry meterRegistry) {
+        // O nome do canal entra no LISTEN sem parâmetro de bind
+        if (!canal.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Canal de invalidação inválido: " + canal);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout(5);
+        this.propriedades = propriedades;
+        this.objectMapper = objectMapper;
+        this.canal = canal;
+        this.esperaReconexao = esperaReconexao;
+        this.falhasEscuta = Counter.builder("cache.invalidacao.falhas")
+                .description("Falhas ao enviar ou escutar invalidações de cache")
+                .tag("etapa", "escuta")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void enviar(LoteInvalidacao lote) {
+        String payload = codificar(lote);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > TAMANHO_MAXIMO_PAYLOAD && lote.getItens().size() > 1) {
+            List<LoteInvalidacao.Item> itens = lote.getItens();
+            int meio = itens.size() / 2;
+            enviar(new LoteInvalidacao(lote.getOrigem(), itens.subList(0, meio)));
+            enviar(new LoteInvalidacao(lote.getOrigem(), itens.subList(meio, itens.size())));
+            return;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+        }, canal, payload);
+    }
+
+    @Override
+    public void assinar(BarramentoInvalidacao barramento) {
+        escuta = new Thread(() -> escutar(barramento), "cache-invalidacao-escuta");
+        escuta.setDaemon(true);
+        escuta.start();
+    }
+
+    @Override
+    public void fechar() {
+        encerrado = true;
+        if (escuta != null) {
+            escuta.interrupt();
+        }
+    }
+
+    private void escutar(BarramentoInvalidacao barramento) {
+        boolean conectouAntes = false;
+        boolean falhando = false;
+        while (!encerrado) {
+            try (Connection conexao = DriverManager.getConnection(propriedades.determineUrl(),
+                    propriedades.determineUsername(), propriedades.determinePassword())) {
+                try (Statement statement = conexao.createStatement()) {
+                    statement.execute("LISTEN " + canal);
+                }
+                // Já escutando de novo: o que foi notificado durante a queda é coberto pela limpeza
+                if (conectouAntes) {
+                    log.info("Escuta de invalidações reconectada; caches locais descartados");
+                    barramento.descartarTudo();
+                }
+                conectouAntes = true;
+                falhando = false;
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                while (!encerrado) {
+                    PGNotification[] notificacoes = pg.getNotifications(1000);
+                    if (notificacoes == null) {
+                        continue;
+                    }
+                    for (PGNotification notificacao : notificacoes) {
+                        receber(barramento, notificacao.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                falhasEscuta.increment();
+                // Só a primeira falha de uma sequência é registrada
+                if (!falhando) {
+                    log.warn("Falha na escuta de invalidações de cache: {}", e.getMessage());
+                    falhando = true;
+                }
+                try {
+                    Thread.sleep(esperaReconexao.toMillis());
+                } catch (InterruptedException interrompido) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receber(BarramentoInvalidacao barramento, String payload) {
+        try {
+            barramento.receber(decodificar(payload));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Notificação de invalidação ignorada: {}", e.getMessage());
+        }
+    }
+
+    // {"o": origem, "i": [[cache, chave, versao], ...]}
+    private String codificar(LoteInvalidacao lote) {
+        List<Object[]> itens = new ArrayList<>(lote.getItens().size());
+        for (LoteInvalidacao.Item item : lote.getItens()) {
+            itens.add(new Object[]{item.getCache(), item.getChave(), item.getVersao()});
+        }
+        try {
+            return objectMapper.writeValueAsString(Map.of("o", lote.getOrigem(), "i", itens));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao codificar invalidação de cache", e);
+        }
+    }
+
+    // As chaves dos caches são IDs (Long); o JSON devolve números pequenos como int
+    private LoteInvalidacao decodificar(String payload) throws JsonProcessingException {
+        JsonNode raiz = objectMapper.readTree(payload);
+        List<LoteInvalidacao.Item> itens = new ArrayList<>();
+        for (JsonNode item : raiz.get("i")) {
+            JsonNode chave = item.get(1);
+            JsonNode versao = item.get(2);
+            itens.add(new LoteInvalidacao.Item(item.get(0).asText(),
+                    chave.isNull() ? null : chave.isNumber() ? (Object) chave.asLong() : chave.asText(),
+                    versao.isNull() ? null : versao.asLong()));
+        }
+        return new LoteInvalidacao(raiz.get("o").asText(), itens);
+    }
+}
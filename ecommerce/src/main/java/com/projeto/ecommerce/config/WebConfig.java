@@ -0,0 +1,22 @@
+package com.projeto.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
+    @Autowired
+    private MetricasRequisicao metricasRequisicao;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricasRequisicao);
+        registry.addInterceptor(controleAdmissao);
+    }
+}
@@ -1,14 +1,36 @@
 package com.projeto.ecommerce.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.projeto.ecommerce.config.Admissao;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ConflitoException;
 import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.response.ImportacaoResponse;
+import com.projeto.ecommerce.response.MaisVendidosResponse;
+import com.projeto.ecommerce.response.ProdutoBuscaResponse;
+import com.projeto.ecommerce.service.AlteracoesProduto;
+import com.projeto.ecommerce.service.BuscaProdutoService;
+import com.projeto.ecommerce.service.ImportacaoProdutoService;
+import com.projeto.ecommerce.service.MaisVendidosService;
 import com.projeto.ecommerce.service.ProdutoService;
+import com.projeto.ecommerce.service.RespostasCatalogo;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -19,39 +41,228 @@ public class ProdutoController {
     @Autowired
     private ProdutoService produtoService;
 
+    @Autowired
+    private ImportacaoProdutoService importacaoProdutoService;
+
+    @Autowired
+    private BuscaProdutoService buscaProdutoService;
+
+    @Autowired
+    private MaisVendidosService maisVendidosService;
+
+    @Autowired
+    private RespostasCatalogo respostasCatalogo;
+
+    @Autowired
+    private AlteracoesProduto alteracoesProduto;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Admissao(Admissao.Classe.CATALOGO)
     @PostMapping
     public ResponseEntity<Produto> criarProduto(@Valid @RequestBody Produto produto) {
         Produto novoProduto = produtoService.criarProduto(produto);
         return new ResponseEntity<>(novoProduto, HttpStatus.CREATED);
     }
 
+    // Importação em lote: corpo com array JSON, NDJSON ou CSV; produtos com código já cadastrado são atualizados
+    @Admissao(Admissao.Classe.RELATORIO)
+    @PostMapping(value = "/importacao", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportacaoResponse> importarProdutos(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+                                                               InputStream corpo) throws IOException {
+        ImportacaoResponse resultado = importacaoProdutoService.importar(corpo, ImportacaoProdutoService.Formato.de(tipo));
+        return new ResponseEntity<>(resultado, HttpStatus.OK);
+    }
+
+    // Mesma importação a partir de um arquivo enviado por formulário (campo "arquivo", .json ou .csv)
+    @Admissao(Admissao.Classe.RELATORIO)
+    @PostMapping(value = "/importacao", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoResponse> importarArquivo(@RequestParam("arquivo") MultipartFile arquivo) throws IOException {
+        try (InputStream entrada = arquivo.getInputStream()) {
+            ImportacaoResponse resultado = importacaoProdutoService.importar(entrada,
+                    ImportacaoProdutoService.Formato.de(arquivo.getOriginalFilename()));
+            return new ResponseEntity<>(resultado, HttpStatus.OK);
+        }
+    }
+
+    // If-Match opcional, com o ETag de GET /produtos/{id}: com ele, 412 se o cadastro mudou desde a
+    // leitura e o estoque enviado é aplicado como diferença sobre o lido; sem ele, o cadastro é
+    // sobrescrito (com repetição em caso de conflito)
+    @Admissao(Admissao.Classe.CATALOGO)
     @PutMapping("/{id}")
-    public ResponseEntity<Produto> atualizarProduto(@PathVariable Long id, @Valid @RequestBody Produto produtoAtualizado) {
-        Produto produto = produtoService.atualizarProduto(id, produtoAtualizado);
-        return new ResponseEntity<>(produto, HttpStatus.OK);
+    public ResponseEntity<Produto> atualizarProduto(@PathVariable Long id, @Valid @RequestBody Produto produtoAtualizado,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long[] lido = estadoDoIfMatch(ifMatch);
+        Produto produto = lido == null
+                ? produtoService.atualizarProduto(id, produtoAtualizado)
+                : produtoService.atualizarProduto(id, produtoAtualizado, lido[0], (int) lido[1]);
+        return ResponseEntity.ok().eTag(etag(produto)).body(produto);
     }
 
+    @Admissao(Admissao.Classe.CATALOGO)
     @PatchMapping("/{id}/inativar")
     public ResponseEntity<Void> inativarProduto(@PathVariable Long id) {
         produtoService.inativarProduto(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // O ETag identifica a versão do cadastro e o estoque devolvidos, usados no If-Match do PUT
     @GetMapping("/{id}")
     public ResponseEntity<Produto> buscarProdutoPorId(@PathVariable Long id) {
         Produto produto = produtoService.buscarProdutoPorId(id);
-        return new ResponseEntity<>(produto, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag(produto)).body(produto);
+    }
+
+    // Busca em nome e descrição, sem diferenciar acentos, com a última palavra como prefixo e
+    // tolerando um erro de digitação por palavra. Servida do índice em memória, sem acessar o banco.
+    @GetMapping("/busca")
+    public ResponseEntity<List<ProdutoBuscaResponse>> buscarProdutos(@RequestParam String q,
+                                                                     @RequestParam(defaultValue = "true") boolean ativos,
+                                                                     @RequestParam(required = false) Double precoMin,
+                                                                     @RequestParam(required = false) Double precoMax,
+                                                                     @RequestParam(required = false) Integer limite) {
+        List<ProdutoBuscaResponse> resultados = buscaProdutoService.buscar(q, ativos, precoMin, precoMax, limite);
+        return new ResponseEntity<>(resultados, HttpStatus.OK);
+    }
+
+    // Alterações de estoque, preço e situação em Server-Sent Events (evento "produto", com a versão
+    // como id). "ids" restringe a alguns produtos; ao reconectar, o Last-Event-ID retoma de onde parou.
+    @GetMapping(value = "/alteracoes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanharAlteracoes(@RequestParam(required = false) List<Long> ids,
+                                           @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEvento) {
+        return alteracoesProduto.assinar(ids, ultimoEvento);
+    }
+
+    // Mais vendidos em unidades, desde sempre ou nos últimos "minutos", calculados em memória
+    @GetMapping("/mais-vendidos")
+    public ResponseEntity<MaisVendidosResponse> listarMaisVendidos(@RequestParam(defaultValue = "10") int limite,
+                                                                   @RequestParam(required = false) Integer minutos) {
+        return new ResponseEntity<>(maisVendidosService.maisVendidos(limite, minutos), HttpStatus.OK);
     }
 
+    // Refaz os mais vendidos a partir do histórico de vendas, em segundo plano
+    @Admissao(Admissao.Classe.RELATORIO)
+    @PostMapping("/mais-vendidos/reconstrucao")
+    public ResponseEntity<Void> reconstruirMaisVendidos() {
+        if (!maisVendidosService.reconstruirEmSegundoPlano()) {
+            throw new ConflitoException("A reconstrução dos mais vendidos já está em andamento.");
+        }
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    // Paginação por cursor: o cabeçalho X-Proximo-Cursor traz o valor de "apos" da próxima página.
+    // Corpo já serializado (RespostasCatalogo); com If-None-Match igual ao ETag a resposta é 304.
+    @Admissao(Admissao.Classe.CATALOGO)
     @GetMapping
-    public ResponseEntity<List<Produto>> listarTodosProdutos() {
-        List<Produto> produtos = produtoService.listarTodosProdutos();
-        return new ResponseEntity<>(produtos, HttpStatus.OK);
+    public ResponseEntity<byte[]> listarTodosProdutos(@RequestParam(required = false) Long apos,
+                                                      @RequestParam(required = false) Integer limite,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String codificacoes,
+                                                      ServletWebRequest request) {
+        return responder(respostasCatalogo.pagina(apos, limite), codificacoes, request);
+    }
+
+    // Todos os produtos em NDJSON (um por linha), lidos do banco por cursor
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProdutos() {
+        StreamingResponseBody corpo = saida -> {
+            try (SequenceWriter escritor = objectMapper.writer().withRootValueSeparator("\n").writeValues(saida)) {
+                produtoService.percorrerProdutos(produto -> {
+                    try {
+                        escritor.write(produto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
     }
 
     @GetMapping("/ativos")
-    public ResponseEntity<List<Produto>> listarProdutosAtivos() {
-        List<Produto> produtosAtivos = produtoService.listarProdutosAtivos();
-        return new ResponseEntity<>(produtosAtivos, HttpStatus.OK);
+    public ResponseEntity<byte[]> listarProdutosAtivos(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String codificacoes,
+                                                       ServletWebRequest request) {
+        return responder(respostasCatalogo.ativos(), codificacoes, request);
+    }
+
+    // "versão-estoque": o estoque muda com as vendas sem mudar a versão, e também faz parte da representação
+    private static String etag(Produto produto) {
+        return "\"" + produto.getVersao() + "-" + produto.getQuantidadeEstoque() + "\"";
+    }
+
+    // [versão, estoque] do ETag enviado no If-Match, ou null sem o cabeçalho. Só ETags fortes
+    // ("3-17"); "*" não identifica o estado lido e não é aceito.
+    private static long[] estadoDoIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        int separador = valor.indexOf('-');
+        if (valor.length() < 5 || !valor.startsWith("\"") || !valor.endsWith("\"") || separador < 0) {
+            throw new BadRequestException("If-Match inválido: " + ifMatch);
+        }
+        try {
+            long versao = Long.parseLong(valor.substring(1, separador));
+            int estoque = Integer.parseInt(valor.substring(separador + 1, valor.length() - 1));
+            return new long[]{versao, estoque};
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match inválido: " + ifMatch);
+        }
+    }
+
+    // If-None-Match igual ao ETag da codificação escolhida: 304 sem corpo (checkNotModified já preenche
+    // a resposta). O Vary vai também no 304, para que um cache intermediário separe as duas versões.
+    private ResponseEntity<byte[]> responder(RespostasCatalogo.Corpo corpo, String codificacoes, ServletWebRequest request) {
+        boolean gzip = aceitaGzip(codificacoes);
+        String etag = gzip ? corpo.getEtagGzip() : corpo.getEtag();
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setETag(etag);
+        if (corpo.getProximoCursor() != null) {
+            headers.set("X-Proximo-Cursor", String.valueOf(corpo.getProximoCursor()));
+        }
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(corpo.getGzip(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(corpo.getJson(), headers, HttpStatus.OK);
+    }
+
+    // Accept-Encoding com pesos: "gzip;q=0" é recusa, e "*" vale para o gzip quando ele não aparece
+    static boolean aceitaGzip(String codificacoes) {
+        if (codificacoes == null) {
+            return false;
+        }
+        Double pesoGzip = null;
+        Double pesoCoringa = null;
+        for (String parte : codificacoes.split(",")) {
+            String[] campos = parte.split(";");
+            String nome = campos[0].trim().toLowerCase();
+            double peso = 1.0;
+            for (int i = 1; i < campos.length; i++) {
+                String parametro = campos[i].trim();
+                if (parametro.startsWith("q=") || parametro.startsWith("Q=")) {
+                    try {
+                        peso = Double.parseDouble(parametro.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        peso = 0;
+                    }
+                }
+            }
+            if (nome.equals("gzip") || nome.equals("x-gzip")) {
+                pesoGzip = peso;
+            } else if (nome.equals("*")) {
+                pesoCoringa = peso;
+            }
+        }
+        double peso = pesoGzip != null ? pesoGzip : pesoCoringa != null ? pesoCoringa : 0;
+        return peso > 0;
     }
 }
@@ -1,20 +1,39 @@
 package com.projeto.ecommerce.controller;
 
-import com.projeto.ecommerce.exception.BadRequestException;
-import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.projeto.ecommerce.config.Admissao;
 import com.projeto.ecommerce.model.ItemVenda;
 import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.response.PedidoDiarioResponse;
+import com.projeto.ecommerce.response.ResumoVendasResponse;
+import com.projeto.ecommerce.response.TrabalhoRelatorioResponse;
+import com.projeto.ecommerce.response.VendaResumoResponse;
+import com.projeto.ecommerce.service.AgrupadorCheckout;
+import com.projeto.ecommerce.service.DiarioVendas;
+import com.projeto.ecommerce.service.ExportacaoVendaService;
+import com.projeto.ecommerce.service.IdempotenciaCheckout;
 import com.projeto.ecommerce.service.ProdutoService;
+import com.projeto.ecommerce.service.RelatorioAssincronoService;
 import com.projeto.ecommerce.service.VendaService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/vendas")
@@ -26,29 +45,63 @@ public class VendaController {
     @Autowired
     private VendaService vendaService;
 
+    @Autowired
+    private AgrupadorCheckout agrupadorCheckout;
+
+    @Autowired
+    private IdempotenciaCheckout idempotenciaCheckout;
+
+    @Autowired
+    private DiarioVendas diarioVendas;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExportacaoVendaService exportacaoVendaService;
+
+    @Autowired
+    private RelatorioAssincronoService relatorioAssincronoService;
+
+    @Admissao(Admissao.Classe.CHECKOUT)
     @PostMapping
-    public ResponseEntity<Venda> criarVenda(@RequestBody List<ItemVenda> itensVenda) {
-        try {
-            Venda novaVenda = produtoService.realizarVenda(itensVenda);
-            return new ResponseEntity<>(novaVenda, HttpStatus.CREATED);
-        } catch (RuntimeException e) {
-            System.err.println(e);
-            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<Venda> criarVenda(@RequestBody List<ItemVenda> itensVenda,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        // Estoque insuficiente, produto inativo ou inexistente e conflitos seguem para o GlobalExceptionHandler
+        if (chaveIdempotencia != null) {
+            // Repetição de uma chave já usada: a venda original, sem nova baixa de estoque
+            IdempotenciaCheckout.Resultado resultado = idempotenciaCheckout.realizarVenda(chaveIdempotencia, itensVenda);
+            HttpHeaders headers = new HttpHeaders();
+            if (resultado.isRepetida()) {
+                headers.set("Idempotent-Replayed", "true");
+            }
+            return new ResponseEntity<>(resultado.getVenda(), headers, HttpStatus.CREATED);
+        }
+        if (diarioVendas.habilitado()) {
+            // Venda aceita pelo diário, ainda sem ID: o andamento é consultado pelo Location
+            DiarioVendas.Aceite aceite = diarioVendas.aceitar(itensVenda);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/vendas/diario/" + aceite.getNumero()))
+                    .body(aceite.getVenda());
         }
+        Venda novaVenda = agrupadorCheckout.realizarVenda(itensVenda);
+        return new ResponseEntity<>(novaVenda, HttpStatus.CREATED);
     }
 
+    // Situação de uma venda aceita pelo diário: PENDENTE até ser gravada, depois APLICADO com o ID da venda
+    @GetMapping("/diario/{numero}")
+    public ResponseEntity<PedidoDiarioResponse> consultarPedidoDiario(@PathVariable long numero) {
+        return ResponseEntity.ok(diarioVendas.consultar(numero));
+    }
+
+    @Admissao(Admissao.Classe.CHECKOUT)
     @PutMapping("/{id}")
     public ResponseEntity<Venda> atualizarVenda(@PathVariable Long id, @RequestBody List<ItemVenda> itensAtualizados) {
-        try {
-            Venda venda = produtoService.atualizarVenda(id, itensAtualizados);
-            return new ResponseEntity<>(venda, HttpStatus.OK);
-        } catch (ResourceNotFoundException e) {
-            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
-        } catch (BadRequestException e) {
-            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
-        }
+        Venda venda = produtoService.atualizarVenda(id, itensAtualizados);
+        return new ResponseEntity<>(venda, HttpStatus.OK);
     }
 
+    @Admissao(Admissao.Classe.CHECKOUT)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> excluirVenda(@PathVariable Long id) {
         try {
@@ -69,29 +122,152 @@ public class VendaController {
         }
     }
 
+    // Paginação por cursor: o cabeçalho X-Proximo-Cursor traz o valor de "apos" da próxima página
+    @Admissao(Admissao.Classe.CATALOGO)
     @GetMapping
-    public ResponseEntity<List<Venda>> listarVendas() {
-        List<Venda> vendas = produtoService.listarVendas();
-        return new ResponseEntity<>(vendas, HttpStatus.OK);
+    public ResponseEntity<List<Venda>> listarVendas(@RequestParam(required = false) Long apos,
+                                                    @RequestParam(required = false) Integer limite) {
+        List<Venda> vendas = produtoService.listarVendas(apos, limite);
+        HttpHeaders headers = new HttpHeaders();
+        if (!vendas.isEmpty()) {
+            headers.set("X-Proximo-Cursor", String.valueOf(vendas.get(vendas.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(vendas, headers, HttpStatus.OK);
+    }
+
+    // Mesma paginação de GET /vendas, mas só com os totais de cada venda (sem itens)
+    @Admissao(Admissao.Classe.CATALOGO)
+    @GetMapping("/resumos")
+    public ResponseEntity<List<VendaResumoResponse>> listarResumosVendas(@RequestParam(required = false) Long apos,
+                                                                        @RequestParam(required = false) Integer limite) {
+        List<VendaResumoResponse> vendas = produtoService.listarResumosVendas(apos, limite);
+        HttpHeaders headers = new HttpHeaders();
+        if (!vendas.isEmpty()) {
+            headers.set("X-Proximo-Cursor", String.valueOf(vendas.get(vendas.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(vendas, headers, HttpStatus.OK);
+    }
+
+    // Todas as vendas em NDJSON (uma por linha), lidas do banco por cursor
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamVendas() {
+        StreamingResponseBody corpo = saida -> {
+            try (SequenceWriter escritor = objectMapper.writer().withRootValueSeparator("\n").writeValues(saida)) {
+                produtoService.percorrerVendas(venda -> {
+                    try {
+                        escritor.write(venda);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    // Exportação dos itens vendidos no período em CSV ou NDJSON, opcionalmente compactada com gzip
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping("/exportacao")
+    public ResponseEntity<StreamingResponseBody> exportarVendas(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportacaoVendaService.Formato formatoExportacao = ExportacaoVendaService.Formato.de(formato);
+        StreamingResponseBody corpo = saida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(saida, 64 * 1024) : saida;
+            exportacaoVendaService.exportar(startDate, endDate, formatoExportacao, destino);
+            if (destino instanceof GZIPOutputStream compactado) {
+                compactado.finish();
+            }
+        };
+
+        String extensao = formatoExportacao == ExportacaoVendaService.Formato.CSV ? "csv" : "ndjson";
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(formatoExportacao == ExportacaoVendaService.Formato.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"vendas-" + startDate + "-" + endDate + "." + extensao + "\"");
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
     }
 
     // Endpoint para obter vendas por data específica
+    @Admissao(Admissao.Classe.RELATORIO)
     @GetMapping("/relatorio/data")
     public List<Venda> obterVendasPorData(
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         return vendaService.obterVendasPorData(startDate, endDate);
     }
 
     // Endpoint para obter vendas por mês
+    @Admissao(Admissao.Classe.RELATORIO)
     @GetMapping("/relatorio/mes")
     public List<Venda> obterVendasPorMes(@RequestParam int ano, @RequestParam int mes) {
         return vendaService.obterVendasPorMes(ano, mes);
     }
 
     // Endpoint para obter vendas pela semana atual
+    @Admissao(Admissao.Classe.RELATORIO)
     @GetMapping("/relatorio/semana-atual")
     public List<Venda> obterVendasPorSemanaAtual() {
         return vendaService.obterVendasPorSemanaAtual();
     }
+
+    // Totais do período calculados a partir dos resumos diários
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping("/relatorio/resumo")
+    public ResumoVendasResponse obterResumo(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return vendaService.obterResumo(startDate, endDate);
+    }
+
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping("/relatorio/resumo/mes")
+    public ResumoVendasResponse obterResumoPorMes(@RequestParam int ano, @RequestParam int mes) {
+        return vendaService.obterResumoPorMes(ano, mes);
+    }
+
+    @Admissao(Admissao.Classe.RELATORIO)
+    @GetMapping("/relatorio/resumo/semana-atual")
+    public ResumoVendasResponse obterResumoPorSemanaAtual() {
+        return vendaService.obterResumoPorSemanaAtual();
+    }
+
+    // Recalcula os resumos diários a partir da tabela de vendas
+    @Admissao(Admissao.Classe.RELATORIO)
+    @PostMapping("/relatorio/resumo/reconstruir")
+    public ResponseEntity<Void> reconstruirResumos() {
+        vendaService.reconstruirResumos();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    // Resumo de períodos longos em segundo plano: responde 202 com o trabalho, acompanhado em
+    // GET /vendas/relatorio/trabalhos/{id}. Sem @Admissao: a leitura roda no pool limitado do serviço
+    @PostMapping("/relatorio/trabalhos")
+    public ResponseEntity<TrabalhoRelatorioResponse> submeterRelatorio(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        TrabalhoRelatorioResponse trabalho = relatorioAssincronoService.submeter(startDate, endDate);
+        return ResponseEntity.accepted()
+                .location(URI.create("/vendas/relatorio/trabalhos/" + trabalho.getId()))
+                .body(trabalho);
+    }
+
+    @GetMapping("/relatorio/trabalhos/{id}")
+    public TrabalhoRelatorioResponse consultarRelatorio(@PathVariable String id) {
+        return relatorioAssincronoService.consultar(id);
+    }
+
+    // 409 enquanto o trabalho estiver em andamento
+    @GetMapping("/relatorio/trabalhos/{id}/resultado")
+    public ResumoVendasResponse obterResultadoRelatorio(@PathVariable String id) {
+        return relatorioAssincronoService.resultado(id);
+    }
 }
@@ -0,0 +1,19 @@
+package com.projeto.ecommerce.event;
+
+import java.util.Set;
+
+// Estoque dos produtos baixado por uma venda. Leva só os IDs: quem precisar da quantidade lê o
+// valor confirmado depois do commit, o que também cobre vendas desfeitas por rollback.
+public class EstoqueAlteradoEvent {
+
+    private final Set<Long> produtoIds;
+
+    public EstoqueAlteradoEvent(Set<Long> produtoIds) {
+        this.produtoIds = Set.copyOf(produtoIds);
+    }
+
+    // Getters
+    public Set<Long> getProdutoIds() {
+        return produtoIds;
+    }
+}
@@ -0,0 +1,56 @@
+package com.projeto.ecommerce.event;
+
+import com.projeto.ecommerce.model.Produto;
+
+// Produto criado, alterado ou inativado. Leva uma cópia dos campos, e não a entidade, que pode
+// continuar sendo alterada pela sessão. Os listeners (@TransactionalEventListener) recebem o
+// evento depois do commit; fora de transação, imediatamente.
+public class ProdutoAlteradoEvent {
+
+    private final Long id;
+    private final String codigo;
+    private final String nome;
+    private final String descricao;
+    private final Double preco;
+    private final Integer quantidadeEstoque;
+    private final boolean ativo;
+
+    public ProdutoAlteradoEvent(Produto produto) {
+        this.id = produto.getId();
+        this.codigo = produto.getCodigo();
+        this.nome = produto.getNome();
+        this.descricao = produto.getDescricao();
+        this.preco = produto.getPreco();
+        this.quantidadeEstoque = produto.getQuantidadeEstoque();
+        this.ativo = Boolean.TRUE.equals(produto.getAtivo());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public Double getPreco() {
+        return preco;
+    }
+
+    public Integer getQuantidadeEstoque() {
+        return quantidadeEstoque;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+}
@@ -0,0 +1,34 @@
+package com.projeto.ecommerce.event;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Venda somada (sinal = 1) ou retirada (sinal = -1) dos agregados: publicada por
+// VendaService.registrarNoResumo, por onde passam o checkout direto e agrupado, o diário de vendas,
+// a alteração e a exclusão. Leva a data e as unidades por produto, e não a entidade. Os listeners
+// (@TransactionalEventListener) recebem o evento só depois do commit.
+public class VendaRegistradaEvent {
+
+    private final LocalDateTime dataVenda;
+    private final Map<Long, Long> unidadesPorProduto;
+    private final int sinal;
+
+    public VendaRegistradaEvent(LocalDateTime dataVenda, Map<Long, Long> unidadesPorProduto, int sinal) {
+        this.dataVenda = dataVenda;
+        this.unidadesPorProduto = Map.copyOf(unidadesPorProduto);
+        this.sinal = sinal;
+    }
+
+    // Getters
+    public LocalDateTime getDataVenda() {
+        return dataVenda;
+    }
+
+    public Map<Long, Long> getUnidadesPorProduto() {
+        return unidadesPorProduto;
+    }
+
+    public int getSinal() {
+        return sinal;
+    }
+}
@@ -0,0 +1,8 @@
+package com.projeto.ecommerce.exception;
+
+public class ConflitoException extends RuntimeException {
+
+    public ConflitoException(String mensagem) {
+        super(mensagem);
+    }
+}
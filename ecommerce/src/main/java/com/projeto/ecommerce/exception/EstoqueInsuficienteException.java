@@ -0,0 +1,17 @@
+package com.projeto.ecommerce.exception;
+
+import java.util.List;
+
+public class EstoqueInsuficienteException extends BadRequestException {
+
+    private final List<Long> produtoIds;
+
+    public EstoqueInsuficienteException(List<Long> produtoIds) {
+        super("Estoque insuficiente para os produtos: " + produtoIds);
+        this.produtoIds = List.copyOf(produtoIds);
+    }
+
+    public List<Long> getProdutoIds() {
+        return produtoIds;
+    }
+}
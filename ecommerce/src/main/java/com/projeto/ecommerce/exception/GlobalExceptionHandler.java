@@ -3,6 +3,7 @@ package com.projeto.ecommerce.exception;
 import com.projeto.ecommerce.exception.BadRequestException;
 import com.projeto.ecommerce.exception.ResourceNotFoundException;
 import com.projeto.ecommerce.response.ErroResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -49,4 +50,44 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(erroResponse, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<ErroResponse> handleServicoSobrecarregadoException(ServicoSobrecarregadoException ex, WebRequest request) {
+        ErroResponse erroResponse = new ErroResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Serviço Sobrecarregado",
+                ex.getLocalizedMessage(),
+                request.getDescription(false)
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(erroResponse);
+    }
+
+    @ExceptionHandler(ConflitoException.class)
+    public ResponseEntity<ErroResponse> handleConflitoException(ConflitoException ex, WebRequest request) {
+        ErroResponse erroResponse = new ErroResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflito",
+                ex.getLocalizedMessage(),
+                request.getDescription(false)
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(erroResponse);
+    }
+
+    @ExceptionHandler(VersaoDesatualizadaException.class)
+    public ResponseEntity<ErroResponse> handleVersaoDesatualizadaException(VersaoDesatualizadaException ex, WebRequest request) {
+        ErroResponse erroResponse = new ErroResponse(
+                LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                "Versão Desatualizada",
+                ex.getLocalizedMessage(),
+                request.getDescription(false)
+        );
+        return new ResponseEntity<>(erroResponse, HttpStatus.PRECONDITION_FAILED);
+    }
 }
@@ -0,0 +1,15 @@
+package com.projeto.ecommerce.exception;
+
+public class ProdutoInativoException extends BadRequestException {
+
+    private final Long produtoId;
+
+    public ProdutoInativoException(Long produtoId) {
+        super("Produto inativo: " + produtoId);
+        this.produtoId = produtoId;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+}
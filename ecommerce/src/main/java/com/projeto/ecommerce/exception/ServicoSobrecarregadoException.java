@@ -0,0 +1,8 @@
+package com.projeto.ecommerce.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    public ServicoSobrecarregadoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,9 @@
+package com.projeto.ecommerce.exception;
+
+// If-Match com uma versão que não é mais a atual: o registro mudou desde a leitura do cliente
+public class VersaoDesatualizadaException extends RuntimeException {
+
+    public VersaoDesatualizadaException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,67 @@
+package com.projeto.ecommerce.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+// Idempotency-Key de um POST /vendas e a venda criada por ele; sem venda enquanto a venda está
+// em andamento (gravada só com ecommerce.idempotencia.persistir=true)
+@Entity
+public class ChaveIdempotencia {
+
+    @Id
+    @Column(length = 255)
+    private String chave;
+
+    @Column(nullable = false, length = 64)
+    private String impressao;
+
+    private Long vendaId;
+
+    @Column(nullable = false)
+    private LocalDateTime criadaEm;
+
+    public ChaveIdempotencia() {
+    }
+
+    public ChaveIdempotencia(String chave, String impressao, Long vendaId, LocalDateTime criadaEm) {
+        this.chave = chave;
+        this.impressao = impressao;
+        this.vendaId = vendaId;
+        this.criadaEm = criadaEm;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public void setChave(String chave) {
+        this.chave = chave;
+    }
+
+    public String getImpressao() {
+        return impressao;
+    }
+
+    public void setImpressao(String impressao) {
+        this.impressao = impressao;
+    }
+
+    public Long getVendaId() {
+        return vendaId;
+    }
+
+    public void setVendaId(Long vendaId) {
+        this.vendaId = vendaId;
+    }
+
+    public LocalDateTime getCriadaEm() {
+        return criadaEm;
+    }
+
+    public void setCriadaEm(LocalDateTime criadaEm) {
+        this.criadaEm = criadaEm;
+    }
+}
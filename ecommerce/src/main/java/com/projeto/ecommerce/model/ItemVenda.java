@@ -1,6 +1,8 @@
 package com.projeto.ecommerce.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -8,9 +10,13 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.time.LocalDateTime;
+
 @Entity
 public class ItemVenda {
 
@@ -31,6 +37,22 @@ public class ItemVenda {
     @Min(value = 1, message = "Quantidade deve ser pelo menos 1")
     private Integer quantidade;
 
+    // Preço do produto no momento da venda
+    private Double precoUnitario;
+
+    // Cópia da data da venda: coluna de partição de item_venda (db/migration/V2)
+    @JsonIgnore
+    @Column(nullable = false)
+    private LocalDateTime dataVenda;
+
+    @PrePersist
+    @PreUpdate
+    private void copiarDataVenda() {
+        if (venda != null) {
+            dataVenda = venda.getDataVenda();
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -62,4 +84,20 @@ public class ItemVenda {
     public void setQuantidade(Integer quantidade) {
         this.quantidade = quantidade;
     }
-}
\ No newline at end of file
+
+    public Double getPrecoUnitario() {
+        return precoUnitario;
+    }
+
+    public void setPrecoUnitario(Double precoUnitario) {
+        this.precoUnitario = precoUnitario;
+    }
+
+    public LocalDateTime getDataVenda() {
+        return dataVenda;
+    }
+
+    public void setDataVenda(LocalDateTime dataVenda) {
+        this.dataVenda = dataVenda;
+    }
+}
@@ -0,0 +1,43 @@
+package com.projeto.ecommerce.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+// Último registro do diário de vendas já gravado nas tabelas, atualizado na mesma transação das
+// vendas aplicadas (uma única linha). Na recuperação, só os registros posteriores são reaplicados.
+@Entity
+public class PosicaoDiario {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long ultimoLsn;
+
+    public PosicaoDiario() {
+    }
+
+    public PosicaoDiario(Integer id, Long ultimoLsn) {
+        this.id = id;
+        this.ultimoLsn = ultimoLsn;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getUltimoLsn() {
+        return ultimoLsn;
+    }
+
+    public void setUltimoLsn(Long ultimoLsn) {
+        this.ultimoLsn = ultimoLsn;
+    }
+}
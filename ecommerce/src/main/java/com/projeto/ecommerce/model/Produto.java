@@ -1,9 +1,13 @@
 package com.projeto.ecommerce.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -12,10 +16,17 @@ import jakarta.validation.constraints.Size;
 @Entity
 public class Produto {
 
+    // IDs reservados em blocos de 50 pela sequência, o que permite inserir produtos em lote (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produto_seq")
+    @SequenceGenerator(name = "produto_seq", sequenceName = "produto_seq", allocationSize = 50)
     private Long id;
 
+    // Código do produto no catálogo de origem; identifica o produto na importação em lote
+    @Size(max = 64, message = "O código não pode ter mais de 64 caracteres")
+    @Column(unique = true, length = 64)
+    private String codigo;
+
     @NotBlank(message = "O nome do produto não pode estar vazio")
     private String nome;
 
@@ -33,6 +44,12 @@ public class Produto {
 
     private Boolean ativo = true; // Novo campo para indicar se o produto está ativo
 
+    // Lock otimista das alterações do cadastro (RepeticaoOtimista e If-Match do PUT). As baixas de estoque
+    // das vendas são UPDATEs em massa e não mudam a versão, para não disputar com o checkout.
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long versao;
+
     // Getters e Setters
 
     public Long getId() {
@@ -43,6 +60,14 @@ public class Produto {
         this.id = id;
     }
 
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
     public String getNome() {
         return nome;
     }
@@ -82,4 +107,12 @@ public class Produto {
     public void setAtivo(Boolean ativo) {
         this.ativo = ativo;
     }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
 }
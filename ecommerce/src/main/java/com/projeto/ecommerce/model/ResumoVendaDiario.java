@@ -0,0 +1,52 @@
+package com.projeto.ecommerce.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDate;
+
+// Agregado de vendas por dia, mantido incrementalmente a cada venda
+@Entity
+public class ResumoVendaDiario {
+
+    @Id
+    private LocalDate dia;
+
+    private Long quantidadeVendas;
+
+    private Double receita;
+
+    private Long unidades;
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public void setDia(LocalDate dia) {
+        this.dia = dia;
+    }
+
+    public Long getQuantidadeVendas() {
+        return quantidadeVendas;
+    }
+
+    public void setQuantidadeVendas(Long quantidadeVendas) {
+        this.quantidadeVendas = quantidadeVendas;
+    }
+
+    public Double getReceita() {
+        return receita;
+    }
+
+    public void setReceita(Double receita) {
+        this.receita = receita;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+}
@@ -0,0 +1,97 @@
+package com.projeto.ecommerce.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Agregado de vendas por produto e por dia, mantido incrementalmente a cada venda
+@Entity
+@IdClass(ResumoVendaProdutoDiario.Chave.class)
+public class ResumoVendaProdutoDiario {
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    private Long produtoId;
+
+    private Long quantidadeVendas;
+
+    private Double receita;
+
+    private Long unidades;
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public void setDia(LocalDate dia) {
+        this.dia = dia;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public void setProdutoId(Long produtoId) {
+        this.produtoId = produtoId;
+    }
+
+    public Long getQuantidadeVendas() {
+        return quantidadeVendas;
+    }
+
+    public void setQuantidadeVendas(Long quantidadeVendas) {
+        this.quantidadeVendas = quantidadeVendas;
+    }
+
+    public Double getReceita() {
+        return receita;
+    }
+
+    public void setReceita(Double receita) {
+        this.receita = receita;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+
+    public static class Chave implements Serializable {
+
+        private LocalDate dia;
+        private Long produtoId;
+
+        public Chave() {
+        }
+
+        public Chave(LocalDate dia, Long produtoId) {
+            this.dia = dia;
+            this.produtoId = produtoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Chave outra)) {
+                return false;
+            }
+            return Objects.equals(dia, outra.dia) && Objects.equals(produtoId, outra.produtoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, produtoId);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.projeto.ecommerce.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.CascadeType;
@@ -8,29 +9,44 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+// Plano de busca usado nas listagens e relatórios: itens e produtos em uma única consulta
+@NamedEntityGraph(name = Venda.GRAFO_ITENS_COM_PRODUTO,
+        attributeNodes = @NamedAttributeNode(value = "itens", subgraph = "itens"),
+        subgraphs = @NamedSubgraph(name = "itens", attributeNodes = @NamedAttributeNode("produto")))
 @Entity
 public class Venda {
 
+    public static final String GRAFO_ITENS_COM_PRODUTO = "Venda.itensComProduto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToMany(mappedBy = "venda")
+    @OneToMany(mappedBy = "venda", cascade = CascadeType.ALL)
     @JsonManagedReference
     private List<ItemVenda> itens = new ArrayList<>();
 
     @NotNull(message = "Data da venda não pode ser nula")
-    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssXXX")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime dataVenda;
 
     private Double valorTotal;
 
+    // Lock otimista: duas alterações simultâneas da mesma venda não se sobrepõem (RepeticaoOtimista)
+    @Version
+    @JsonIgnore
+    private Long versao;
+
     public Long getId() {
         return id;
     }
@@ -64,6 +80,14 @@ public class Venda {
         this.valorTotal = valorTotal;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     private void calcularValorTotal() {
         if (itens != null) {
             valorTotal = itens.stream()
@@ -0,0 +1,68 @@
+package com.projeto.ecommerce.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+// Venda aceita pelo diário que o banco recusou ao aplicá-la (violação de restrição). Fica separada
+// para tratamento manual, com os itens como "produto:quantidade:preço" separados por vírgula.
+@Entity
+public class VendaDiarioRejeitada {
+
+    @Id
+    private Long lsn;
+
+    @Column(nullable = false)
+    private LocalDateTime dataVenda;
+
+    @Column(nullable = false)
+    private Double valorTotal;
+
+    @Column(nullable = false, length = 4000)
+    private String itens;
+
+    @Column(nullable = false, length = 1000)
+    private String motivo;
+
+    @Column(nullable = false)
+    private LocalDateTime rejeitadaEm;
+
+    public VendaDiarioRejeitada() {
+    }
+
+    public VendaDiarioRejeitada(Long lsn, LocalDateTime dataVenda, Double valorTotal, String itens, String motivo,
+                                LocalDateTime rejeitadaEm) {
+        this.lsn = lsn;
+        this.dataVenda = dataVenda;
+        this.valorTotal = valorTotal;
+        this.itens = itens;
+        this.motivo = motivo;
+        this.rejeitadaEm = rejeitadaEm;
+    }
+
+    public Long getLsn() {
+        return lsn;
+    }
+
+    public LocalDateTime getDataVenda() {
+        return dataVenda;
+    }
+
+    public Double getValorTotal() {
+        return valorTotal;
+    }
+
+    public String getItens() {
+        return itens;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public LocalDateTime getRejeitadaEm() {
+        return rejeitadaEm;
+    }
+}
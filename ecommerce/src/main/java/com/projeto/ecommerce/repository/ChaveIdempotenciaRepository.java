@@ -0,0 +1,53 @@
+package com.projeto.ecommerce.repository;
+
+import com.projeto.ecommerce.model.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+
+    // Transação de escrita para ser lida no primário mesmo com réplica de leitura: a chave pode
+    // ter acabado de ser gravada por outra instância
+    @Override
+    @Transactional
+    Optional<ChaveIdempotencia> findById(String chave);
+
+    // Reserva a chave antes da venda: 1 se esta requisição ficou com ela, 0 se já existia
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO ChaveIdempotencia (chave, impressao, criadaEm) VALUES (:chave, :impressao, :agora) " +
+           "ON CONFLICT (chave) DO NOTHING")
+    int reservar(@Param("chave") String chave, @Param("impressao") String impressao, @Param("agora") LocalDateTime agora);
+
+    // Assume uma reserva abandonada (sem venda e anterior ao limite) por uma instância que caiu
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChaveIdempotencia c SET c.criadaEm = :agora " +
+           "WHERE c.chave = :chave AND c.vendaId IS NULL AND c.criadaEm < :limite")
+    int retomar(@Param("chave") String chave, @Param("limite") LocalDateTime limite, @Param("agora") LocalDateTime agora);
+
+    // Grava a venda na transação da própria venda, só se a reserva ainda for a desta requisição
+    // (mesmo criadaEm): 0 se ela foi assumida por outra instância nesse meio tempo
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChaveIdempotencia c SET c.vendaId = :vendaId " +
+           "WHERE c.chave = :chave AND c.vendaId IS NULL AND c.criadaEm = :reservadaEm")
+    int concluir(@Param("chave") String chave, @Param("reservadaEm") LocalDateTime reservadaEm,
+                 @Param("vendaId") Long vendaId);
+
+    // Venda não realizada: a chave volta a ficar livre, se a reserva ainda for desta requisição
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.vendaId IS NULL AND c.criadaEm = :reservadaEm")
+    int liberar(@Param("chave") String chave, @Param("reservadaEm") LocalDateTime reservadaEm);
+
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.criadaEm < :limite")
+    int excluirAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,15 @@
+package com.projeto.ecommerce.repository;
+
+import com.projeto.ecommerce.model.PosicaoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface PosicaoDiarioRepository extends JpaRepository<PosicaoDiario, Integer> {
+
+    // Lida no primário mesmo com réplica de leitura: decide o que é reaplicado na recuperação
+    @Override
+    @Transactional
+    Optional<PosicaoDiario> findById(Integer id);
+}
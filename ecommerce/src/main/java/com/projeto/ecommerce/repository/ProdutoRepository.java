@@ -1,7 +1,55 @@
 package com.projeto.ecommerce.repository;
 
 import com.projeto.ecommerce.model.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
-}
\ No newline at end of file
+
+    String FETCH_SIZE = "500";
+
+    // Paginação por cursor (keyset): produtos com ID maior que o último da página anterior
+    List<Produto> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    // Produtos ativos em ordem de ID; no PostgreSQL usa o índice parcial idx_produto_ativo (database.sql)
+    List<Produto> findByAtivoTrueOrderByIdAsc();
+
+    // Produtos já cadastrados com os códigos de um lote de importação
+    List<Produto> findByCodigoIn(Collection<String> codigos);
+
+    // Percorre a tabela inteira por um cursor JDBC, buscando FETCH_SIZE linhas por vez
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Produto p ORDER BY p.id")
+    Stream<Produto> streamAll();
+
+    // Baixa o estoque apenas se o produto estiver ativo e tiver quantidade suficiente (0 linhas = falha)
+    @Modifying
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade " +
+           "WHERE p.id = :id AND p.ativo = true AND p.quantidadeEstoque >= :quantidade")
+    int baixarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Trava as linhas dos produtos em ordem de ID e devolve [id, ativo, quantidade_estoque] de cada uma,
+    // sem carregar entidades no contexto de persistência (checkout agrupado, EstoqueService.reservarConferido)
+    @Query(value = "SELECT id, ativo, quantidade_estoque FROM produto WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> travarEstoque(@Param("ids") Collection<Long> ids);
+
+    // Aplica um delta de estoque sem condição (flush do LedgerEstoque, aplicador do diário de vendas e
+    // devolução das unidades retiradas de uma venda alterada)
+    @Modifying
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque + :delta WHERE p.id = :id")
+    int ajustarEstoque(@Param("id") Long id, @Param("delta") int delta);
+}
@@ -0,0 +1,27 @@
+package com.projeto.ecommerce.repository;
+
+import com.projeto.ecommerce.model.ResumoVendaDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoVendaDiarioRepository extends JpaRepository<ResumoVendaDiario, LocalDate> {
+
+    List<ResumoVendaDiario> findByDiaBetweenOrderByDia(LocalDate inicio, LocalDate fim);
+
+    // Reconstrução a partir da tabela Venda (as unidades vêm depois, do resumo por produto)
+    @Modifying
+    @Query("INSERT INTO ResumoVendaDiario (dia, quantidadeVendas, receita, unidades) " +
+           "SELECT CAST(v.dataVenda AS LocalDate), COUNT(v), COALESCE(SUM(v.valorTotal), 0), 0 " +
+           "FROM Venda v GROUP BY CAST(v.dataVenda AS LocalDate)")
+    int reconstruir();
+
+    @Modifying
+    @Query("UPDATE ResumoVendaDiario d SET d.unidades = " +
+           "(SELECT COALESCE(SUM(r.unidades), 0) FROM ResumoVendaProdutoDiario r WHERE r.dia = d.dia)")
+    int reconstruirUnidades();
+}
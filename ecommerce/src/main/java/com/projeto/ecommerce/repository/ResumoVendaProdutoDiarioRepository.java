@@ -0,0 +1,31 @@
+package com.projeto.ecommerce.repository;
+
+import com.projeto.ecommerce.model.ResumoVendaProdutoDiario;
+import com.projeto.ecommerce.response.ResumoProdutoResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoVendaProdutoDiarioRepository
+        extends JpaRepository<ResumoVendaProdutoDiario, ResumoVendaProdutoDiario.Chave> {
+
+    // Totais por produto no período, somando uma linha por produto e por dia
+    @Query("SELECT new com.projeto.ecommerce.response.ResumoProdutoResponse(" +
+           "r.produtoId, SUM(r.quantidadeVendas), SUM(r.receita), SUM(r.unidades)) " +
+           "FROM ResumoVendaProdutoDiario r WHERE r.dia BETWEEN :inicio AND :fim " +
+           "GROUP BY r.produtoId ORDER BY SUM(r.receita) DESC")
+    List<ResumoProdutoResponse> totalizarPorProduto(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    // Reconstrução a partir de ItemVenda, usando o preço gravado no item (ou o atual, em itens antigos)
+    @Modifying
+    @Query("INSERT INTO ResumoVendaProdutoDiario (dia, produtoId, quantidadeVendas, receita, unidades) " +
+           "SELECT CAST(v.dataVenda AS LocalDate), p.id, COUNT(DISTINCT v.id), " +
+           "SUM(COALESCE(i.precoUnitario, p.preco) * i.quantidade), SUM(i.quantidade) " +
+           "FROM ItemVenda i JOIN i.venda v JOIN i.produto p " +
+           "GROUP BY CAST(v.dataVenda AS LocalDate), p.id")
+    int reconstruir();
+}
@@ -0,0 +1,13 @@
+package com.projeto.ecommerce.repository;
+
+import com.projeto.ecommerce.model.VendaDiarioRejeitada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface VendaDiarioRejeitadaRepository extends JpaRepository<VendaDiarioRejeitada, Long> {
+
+    // Lida no primário mesmo com réplica de leitura: a rejeição pode ter acabado de ser gravada
+    @Override
+    @Transactional
+    boolean existsById(Long lsn);
+}
@@ -1,24 +1,72 @@
 package com.projeto.ecommerce.repository;
 
 import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.response.ItemVendaLinha;
+import com.projeto.ecommerce.response.VendaResumoResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VendaRepository extends JpaRepository<Venda, Long> {
 
-    // Relatório de vendas por data específica
-    @Query("SELECT v FROM Venda v WHERE v.dataVenda BETWEEN :startDate AND :endDate")
-    List<Venda> findVendasByData(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    String FETCH_SIZE = "500";
 
-    // Relatório de vendas por mês
-    @Query("SELECT v FROM Venda v WHERE v.dataVenda BETWEEN :startDate AND :endDate")
-    List<Venda> findVendasByMes(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    String FETCH_SIZE_EXPORTACAO = "2000";
 
-    // Relatório de vendas pela semana atual
-    @Query("SELECT v FROM Venda v WHERE v.dataVenda BETWEEN :startDate AND :endDate")
-    List<Venda> findVendasBySemanaAtual(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    // Venda com itens e produtos já carregados (usada pelo cache "vendas")
+    @EntityGraph(Venda.GRAFO_ITENS_COM_PRODUTO)
+    Optional<Venda> findComItensById(Long id);
+
+    // Paginação por cursor (keyset): IDs das vendas depois do último da página anterior.
+    // O LIMIT fica nesta consulta porque não pode ser aplicado junto com o fetch dos itens.
+    @Query("SELECT v.id FROM Venda v WHERE v.id > :apos ORDER BY v.id")
+    List<Long> findIdsApos(@Param("apos") Long apos, Limit limite);
+
+    @EntityGraph(Venda.GRAFO_ITENS_COM_PRODUTO)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Venda> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // Projeção somente leitura para listagens: uma linha por venda, sem carregar entidades
+    @Query("SELECT new com.projeto.ecommerce.response.VendaResumoResponse(" +
+           "v.id, v.dataVenda, v.valorTotal, COUNT(i), COALESCE(SUM(i.quantidade), 0)) " +
+           "FROM Venda v LEFT JOIN v.itens i WHERE v.id > :apos " +
+           "GROUP BY v.id, v.dataVenda, v.valorTotal ORDER BY v.id")
+    List<VendaResumoResponse> findResumosApos(@Param("apos") Long apos, Limit limite);
+
+    // Percorre a tabela inteira por um cursor JDBC, buscando FETCH_SIZE linhas por vez
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT v FROM Venda v ORDER BY v.id")
+    Stream<Venda> streamAll();
+
+    // Exportação: uma linha por item no período [inicio, fim), lida por cursor sem criar entidades.
+    // O período é repetido nos itens para que o banco leia só as partições do período nas duas tabelas.
+    // Sem ORDER BY: ordenar pelos IDs obrigaria o banco a ordenar todas as linhas do período antes de
+    // entregar a primeira; as linhas de uma venda saem em qualquer ordem.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE_EXPORTACAO))
+    @Query("SELECT new com.projeto.ecommerce.response.ItemVendaLinha(v.id, v.dataVenda, v.valorTotal, " +
+           "i.id, p.id, p.nome, i.quantidade, COALESCE(i.precoUnitario, p.preco)) " +
+           "FROM Venda v JOIN v.itens i JOIN i.produto p " +
+           "WHERE v.dataVenda >= :inicio AND v.dataVenda < :fim " +
+           "AND i.dataVenda >= :inicio AND i.dataVenda < :fim")
+    Stream<ItemVendaLinha> streamLinhasByPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    // Relatório de vendas no período [inicio, fim), com itens e produtos em uma única consulta
+    @EntityGraph(Venda.GRAFO_ITENS_COM_PRODUTO)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT v FROM Venda v WHERE v.dataVenda >= :inicio AND v.dataVenda < :fim ORDER BY v.id")
+    List<Venda> findVendasByPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
 }
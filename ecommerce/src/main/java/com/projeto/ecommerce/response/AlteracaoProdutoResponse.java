@@ -0,0 +1,39 @@
+package com.projeto.ecommerce.response;
+
+public class AlteracaoProdutoResponse {
+
+    private Long id;
+    private Integer quantidadeEstoque;
+    private Double preco;
+    private boolean ativo;
+    private long versao;
+
+    public AlteracaoProdutoResponse(Long id, Integer quantidadeEstoque, Double preco, boolean ativo, long versao) {
+        this.id = id;
+        this.quantidadeEstoque = quantidadeEstoque;
+        this.preco = preco;
+        this.ativo = ativo;
+        this.versao = versao;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getQuantidadeEstoque() {
+        return quantidadeEstoque;
+    }
+
+    public Double getPreco() {
+        return preco;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+}
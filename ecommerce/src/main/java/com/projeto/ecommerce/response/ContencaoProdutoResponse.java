@@ -0,0 +1,33 @@
+package com.projeto.ecommerce.response;
+
+public class ContencaoProdutoResponse {
+
+    private Long produtoId;
+    private Long disputas;
+    private Long esperaMs;
+    private Long semEstoque;
+
+    public ContencaoProdutoResponse(Long produtoId, Long disputas, Long esperaMs, Long semEstoque) {
+        this.produtoId = produtoId;
+        this.disputas = disputas;
+        this.esperaMs = esperaMs;
+        this.semEstoque = semEstoque;
+    }
+
+    // Getters
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getDisputas() {
+        return disputas;
+    }
+
+    public Long getEsperaMs() {
+        return esperaMs;
+    }
+
+    public Long getSemEstoque() {
+        return semEstoque;
+    }
+}
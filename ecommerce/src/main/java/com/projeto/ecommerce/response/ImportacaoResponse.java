@@ -0,0 +1,89 @@
+package com.projeto.ecommerce.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportacaoResponse {
+
+    private long recebidos;
+    private long inseridos;
+    private long atualizados;
+    private long rejeitados;
+    private long duracaoMs;
+    private List<ErroLinha> erros = new ArrayList<>();
+
+    public static class ErroLinha {
+
+        private long linha;
+        private String codigo;
+        private String mensagem;
+
+        public ErroLinha(long linha, String codigo, String mensagem) {
+            this.linha = linha;
+            this.codigo = codigo;
+            this.mensagem = mensagem;
+        }
+
+        // Getters
+        public long getLinha() {
+            return linha;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+    }
+
+    // Getters e setters
+    public long getRecebidos() {
+        return recebidos;
+    }
+
+    public void setRecebidos(long recebidos) {
+        this.recebidos = recebidos;
+    }
+
+    public long getInseridos() {
+        return inseridos;
+    }
+
+    public void setInseridos(long inseridos) {
+        this.inseridos = inseridos;
+    }
+
+    public long getAtualizados() {
+        return atualizados;
+    }
+
+    public void setAtualizados(long atualizados) {
+        this.atualizados = atualizados;
+    }
+
+    public long getRejeitados() {
+        return rejeitados;
+    }
+
+    public void setRejeitados(long rejeitados) {
+        this.rejeitados = rejeitados;
+    }
+
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    public void setDuracaoMs(long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+
+    public List<ErroLinha> getErros() {
+        return erros;
+    }
+
+    public void setErros(List<ErroLinha> erros) {
+        this.erros = erros;
+    }
+}
@@ -0,0 +1,64 @@
+package com.projeto.ecommerce.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+// Linha achatada venda + item + produto, usada na exportação (não é entidade gerenciada)
+public class ItemVendaLinha {
+
+    private Long vendaId;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime dataVenda;
+    private Double valorTotal;
+    private Long itemId;
+    private Long produtoId;
+    private String produtoNome;
+    private Integer quantidade;
+    private Double precoUnitario;
+
+    public ItemVendaLinha(Long vendaId, LocalDateTime dataVenda, Double valorTotal, Long itemId, Long produtoId,
+                          String produtoNome, Integer quantidade, Double precoUnitario) {
+        this.vendaId = vendaId;
+        this.dataVenda = dataVenda;
+        this.valorTotal = valorTotal;
+        this.itemId = itemId;
+        this.produtoId = produtoId;
+        this.produtoNome = produtoNome;
+        this.quantidade = quantidade;
+        this.precoUnitario = precoUnitario;
+    }
+
+    // Getters
+    public Long getVendaId() {
+        return vendaId;
+    }
+
+    public LocalDateTime getDataVenda() {
+        return dataVenda;
+    }
+
+    public Double getValorTotal() {
+        return valorTotal;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public String getProdutoNome() {
+        return produtoNome;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public Double getPrecoUnitario() {
+        return precoUnitario;
+    }
+}
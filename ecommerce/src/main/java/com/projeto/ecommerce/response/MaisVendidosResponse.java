@@ -0,0 +1,83 @@
+package com.projeto.ecommerce.response;
+
+import java.util.List;
+
+public class MaisVendidosResponse {
+
+    // Nulo: desde sempre
+    private Integer minutos;
+    private long totalUnidades;
+    private int capacidade;
+    // Nenhuma quantidade abaixo deste valor é garantidamente um dos mais vendidos
+    private long erroMaximo;
+    private boolean reconstruindo;
+    private List<Item> produtos;
+
+    public static class Item {
+
+        private long produtoId;
+        private String nome;
+        // Limite superior das unidades vendidas; quantidade - erro é o limite inferior
+        private long quantidade;
+        private long erro;
+
+        public Item(long produtoId, String nome, long quantidade, long erro) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.quantidade = quantidade;
+            this.erro = erro;
+        }
+
+        // Getters
+        public long getProdutoId() {
+            return produtoId;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        public long getErro() {
+            return erro;
+        }
+    }
+
+    public MaisVendidosResponse(Integer minutos, long totalUnidades, int capacidade, long erroMaximo,
+                                boolean reconstruindo, List<Item> produtos) {
+        this.minutos = minutos;
+        this.totalUnidades = totalUnidades;
+        this.capacidade = capacidade;
+        this.erroMaximo = erroMaximo;
+        this.reconstruindo = reconstruindo;
+        this.produtos = produtos;
+    }
+
+    // Getters
+    public Integer getMinutos() {
+        return minutos;
+    }
+
+    public long getTotalUnidades() {
+        return totalUnidades;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public long getErroMaximo() {
+        return erroMaximo;
+    }
+
+    public boolean isReconstruindo() {
+        return reconstruindo;
+    }
+
+    public List<Item> getProdutos() {
+        return produtos;
+    }
+}
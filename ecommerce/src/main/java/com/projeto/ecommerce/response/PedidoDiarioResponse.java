@@ -0,0 +1,27 @@
+package com.projeto.ecommerce.response;
+
+public class PedidoDiarioResponse {
+
+    private long numero;
+    private String estado;
+    private Long vendaId;
+
+    public PedidoDiarioResponse(long numero, String estado, Long vendaId) {
+        this.numero = numero;
+        this.estado = estado;
+        this.vendaId = vendaId;
+    }
+
+    // Getters
+    public long getNumero() {
+        return numero;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public Long getVendaId() {
+        return vendaId;
+    }
+}
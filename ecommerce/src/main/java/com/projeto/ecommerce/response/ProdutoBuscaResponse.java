@@ -0,0 +1,39 @@
+package com.projeto.ecommerce.response;
+
+public class ProdutoBuscaResponse {
+
+    private Long id;
+    private String nome;
+    private Double preco;
+    private boolean ativo;
+    private float pontuacao;
+
+    public ProdutoBuscaResponse(Long id, String nome, Double preco, boolean ativo, float pontuacao) {
+        this.id = id;
+        this.nome = nome;
+        this.preco = preco;
+        this.ativo = ativo;
+        this.pontuacao = pontuacao;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public Double getPreco() {
+        return preco;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    public float getPontuacao() {
+        return pontuacao;
+    }
+}
@@ -0,0 +1,33 @@
+package com.projeto.ecommerce.response;
+
+public class ResumoProdutoResponse {
+
+    private Long produtoId;
+    private Long quantidadeVendas;
+    private Double receita;
+    private Long unidades;
+
+    public ResumoProdutoResponse(Long produtoId, Long quantidadeVendas, Double receita, Long unidades) {
+        this.produtoId = produtoId;
+        this.quantidadeVendas = quantidadeVendas;
+        this.receita = receita;
+        this.unidades = unidades;
+    }
+
+    // Getters
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getQuantidadeVendas() {
+        return quantidadeVendas;
+    }
+
+    public Double getReceita() {
+        return receita;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+}
@@ -0,0 +1,59 @@
+package com.projeto.ecommerce.response;
+
+import com.projeto.ecommerce.model.ResumoVendaDiario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class ResumoVendasResponse {
+
+    private LocalDate inicio;
+    private LocalDate fim;
+    private long quantidadeVendas;
+    private double receita;
+    private long unidades;
+    private List<ResumoVendaDiario> dias;
+    private List<ResumoProdutoResponse> produtos;
+
+    public ResumoVendasResponse(LocalDate inicio, LocalDate fim, List<ResumoVendaDiario> dias,
+                                List<ResumoProdutoResponse> produtos) {
+        this.inicio = inicio;
+        this.fim = fim;
+        this.dias = dias;
+        this.produtos = produtos;
+        for (ResumoVendaDiario dia : dias) {
+            quantidadeVendas += dia.getQuantidadeVendas();
+            receita += dia.getReceita();
+            unidades += dia.getUnidades();
+        }
+    }
+
+    // Getters
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public LocalDate getFim() {
+        return fim;
+    }
+
+    public long getQuantidadeVendas() {
+        return quantidadeVendas;
+    }
+
+    public double getReceita() {
+        return receita;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public List<ResumoVendaDiario> getDias() {
+        return dias;
+    }
+
+    public List<ResumoProdutoResponse> getProdutos() {
+        return produtos;
+    }
+}
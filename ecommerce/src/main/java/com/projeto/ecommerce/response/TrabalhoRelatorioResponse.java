@@ -0,0 +1,68 @@
+package com.projeto.ecommerce.response;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class TrabalhoRelatorioResponse {
+
+    private String id;
+    private LocalDate inicio;
+    private LocalDate fim;
+    private String estado;
+    private int particoes;
+    private int particoesConcluidas;
+    private LocalDateTime criadoEm;
+    private LocalDateTime concluidoEm;
+    private String erro;
+
+    public TrabalhoRelatorioResponse(String id, LocalDate inicio, LocalDate fim, String estado, int particoes,
+                                     int particoesConcluidas, LocalDateTime criadoEm, LocalDateTime concluidoEm,
+                                     String erro) {
+        this.id = id;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.estado = estado;
+        this.particoes = particoes;
+        this.particoesConcluidas = particoesConcluidas;
+        this.criadoEm = criadoEm;
+        this.concluidoEm = concluidoEm;
+        this.erro = erro;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public LocalDate getFim() {
+        return fim;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public int getParticoes() {
+        return particoes;
+    }
+
+    public int getParticoesConcluidas() {
+        return particoesConcluidas;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public LocalDateTime getConcluidoEm() {
+        return concluidoEm;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+}
@@ -0,0 +1,44 @@
+package com.projeto.ecommerce.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public class VendaResumoResponse {
+
+    private Long id;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime dataVenda;
+    private Double valorTotal;
+    private Long quantidadeItens;
+    private Long unidades;
+
+    public VendaResumoResponse(Long id, LocalDateTime dataVenda, Double valorTotal, Long quantidadeItens, Long unidades) {
+        this.id = id;
+        this.dataVenda = dataVenda;
+        this.valorTotal = valorTotal;
+        this.quantidadeItens = quantidadeItens;
+        this.unidades = unidades;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getDataVenda() {
+        return dataVenda;
+    }
+
+    public Double getValorTotal() {
+        return valorTotal;
+    }
+
+    public Long getQuantidadeItens() {
+        return quantidadeItens;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+}
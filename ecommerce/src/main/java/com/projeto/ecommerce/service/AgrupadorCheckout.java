@@ -0,0 +1,277 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ConflitoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ChaveIdempotenciaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+// Checkout com "group commit": vendas que chegam ao mesmo tempo esperam até espera-maxima-ms
+// (ou até tamanho-maximo pedidos) e são gravadas em uma única transação. O JPA não oferece savepoints,
+// então cada pedido é conferido (linhas travadas, estoque e status) antes de gravar qualquer coisa:
+// a recusa de um (ex.: estoque insuficiente) não deixa nada a desfazer e não afeta os outros.
+// Um único despachante processa os lotes em sequência, o que também evita deadlocks entre lotes.
+@Service
+public class AgrupadorCheckout {
+
+    private static final Logger log = LoggerFactory.getLogger(AgrupadorCheckout.class);
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MetricasCheckout metricasCheckout;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ecommerce.checkout.agrupamento.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${ecommerce.checkout.agrupamento.tamanho-maximo:32}")
+    private int tamanhoMaximo;
+
+    @Value("${ecommerce.checkout.agrupamento.espera-maxima-ms:5}")
+    private long esperaMaximaMs;
+
+    @Value("${ecommerce.checkout.agrupamento.capacidade-fila:10000}")
+    private int capacidadeFila;
+
+    private BlockingQueue<Pedido> fila;
+    private TransactionTemplate transacao;
+    private Thread despachante;
+    private volatile boolean ativo;
+
+    private DistributionSummary tamanhoLote;
+    private Timer esperaFila;
+    private Counter lotesRefeitos;
+
+    @PostConstruct
+    public void iniciar() {
+        transacao = new TransactionTemplate(transactionManager);
+        if (!habilitado) {
+            return;
+        }
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        // A média de checkout.agrupamento.lote é o fator de agrupamento obtido
+        tamanhoLote = DistributionSummary.builder("checkout.agrupamento.lote")
+                .description("Pedidos gravados por transação do checkout agrupado")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        esperaFila = Timer.builder("checkout.agrupamento.espera")
+                .description("Tempo de espera de um pedido na fila até o início do seu lote")
+                .register(meterRegistry);
+        lotesRefeitos = Counter.builder("checkout.agrupamento.lotes.refeitos")
+                .description("Lotes cuja transação falhou e foram regravados pedido a pedido")
+                .register(meterRegistry);
+
+        ativo = true;
+        despachante = new Thread(this::despachar, "checkout-agrupador");
+        despachante.setDaemon(true);
+        despachante.start();
+        log.info("Checkout agrupado habilitado: até {} pedidos ou {} ms por lote", tamanhoMaximo, esperaMaximaMs);
+    }
+
+    // Ponto de entrada do POST /vendas: com o agrupamento desabilitado (ou a fila cheia) a venda
+    // é gravada direto na thread da requisição, como antes
+    public Venda realizarVenda(List<ItemVenda> itensVenda) {
+        return realizarVenda(itensVenda, null, null);
+    }
+
+    // Venda com a Idempotency-Key reservada no banco (IdempotenciaCheckout): a venda é gravada na chave
+    // na mesma transação da venda, sozinha ou no lote
+    public Venda realizarVenda(List<ItemVenda> itensVenda, String chaveIdempotencia, LocalDateTime reservadaEm) {
+        try {
+            Venda venda = gravar(new Pedido(itensVenda, chaveIdempotencia, reservadaEm));
+            metricasCheckout.sucesso();
+            return venda;
+        } catch (RuntimeException e) {
+            metricasCheckout.falha(e);
+            throw e;
+        }
+    }
+
+    private Venda gravar(Pedido pedido) {
+        if (!ativo || !fila.offer(pedido)) {
+            return gravarSozinho(pedido);
+        }
+        try {
+            return pedido.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void despachar() {
+        List<Pedido> lote = new ArrayList<>(tamanhoMaximo);
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Pedido primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                // O prazo conta a partir da chegada do primeiro pedido, não do início da coleta
+                long prazo = primeiro.chegada + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+                while (lote.size() < tamanhoMaximo) {
+                    long restante = prazo - System.nanoTime();
+                    Pedido proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                }
+            } catch (InterruptedException e) {
+                ativo = false;
+            }
+            if (!lote.isEmpty()) {
+                gravarLote(lote);
+                lote.clear();
+            }
+        }
+        Pedido restante;
+        while ((restante = fila.poll()) != null) {
+            gravarIsolado(restante);
+        }
+    }
+
+    private void gravarLote(List<Pedido> lote) {
+        long inicio = System.nanoTime();
+        lote.forEach(pedido -> esperaFila.record(inicio - pedido.chegada, TimeUnit.NANOSECONDS));
+
+        List<Pedido> gravados = new ArrayList<>(lote.size());
+        List<Venda> vendas = new ArrayList<>(lote.size());
+        try {
+            transacao.executeWithoutResult(status -> {
+                for (Pedido pedido : lote) {
+                    try {
+                        vendas.add(gravarPedido(pedido));
+                        gravados.add(pedido);
+                    } catch (BadRequestException | ResourceNotFoundException e) {
+                        // Recusa do pedido: conferida antes de qualquer gravação, o lote segue
+                        pedido.resultado.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Erro inesperado derrubou a transação do lote: cada pedido ainda pendente é gravado sozinho
+            lotesRefeitos.increment();
+            log.warn("Falha na transação do lote de {} pedidos, regravando individualmente: {}", lote.size(), e.getMessage());
+            for (Pedido pedido : lote) {
+                if (!pedido.resultado.isDone()) {
+                    gravarIsolado(pedido);
+                }
+            }
+            return;
+        }
+        // Só depois do commit os pedidos gravados são respondidos e contam no tamanho do lote
+        if (!gravados.isEmpty()) {
+            tamanhoLote.record(gravados.size());
+        }
+        for (int i = 0; i < gravados.size(); i++) {
+            gravados.get(i).resultado.complete(vendas.get(i));
+        }
+    }
+
+    // Dentro da transação do lote. O clear descarta os produtos carregados por este pedido,
+    // que ficariam com o estoque desatualizado para os pedidos seguintes do lote.
+    private Venda gravarPedido(Pedido pedido) {
+        Venda venda = produtoService.realizarVendaNoLote(pedido.itens);
+        vincularChave(pedido, venda);
+        entityManager.flush();
+        entityManager.clear();
+        return venda;
+    }
+
+    // Fora do lote; com Idempotency-Key, a venda e a chave em uma transação
+    private Venda gravarSozinho(Pedido pedido) {
+        if (pedido.chaveIdempotencia == null) {
+            return produtoService.realizarVenda(pedido.itens);
+        }
+        return transacao.execute(status -> {
+            Venda venda = produtoService.realizarVenda(pedido.itens);
+            vincularChave(pedido, venda);
+            return venda;
+        });
+    }
+
+    // Reserva assumida por outra instância (a venda passou do prazo de retomada): esta venda é
+    // desfeita, já que a outra instância pode estar gravando a sua
+    private void vincularChave(Pedido pedido, Venda venda) {
+        if (pedido.chaveIdempotencia != null
+                && chaveIdempotenciaRepository.concluir(pedido.chaveIdempotencia, pedido.reservadaEm, venda.getId()) == 0) {
+            throw new ConflitoException("A reserva da Idempotency-Key " + pedido.chaveIdempotencia
+                    + " foi assumida por outra requisição.");
+        }
+    }
+
+    private void gravarIsolado(Pedido pedido) {
+        try {
+            pedido.resultado.complete(gravarSozinho(pedido));
+            // Gravado sozinho: um lote de um pedido
+            tamanhoLote.record(1);
+        } catch (RuntimeException e) {
+            pedido.resultado.completeExceptionally(e);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        if (despachante != null) {
+            ativo = false;
+            despachante.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private static class Pedido {
+        final List<ItemVenda> itens;
+        final String chaveIdempotencia;
+        final LocalDateTime reservadaEm;
+        final long chegada = System.nanoTime();
+        final CompletableFuture<Venda> resultado = new CompletableFuture<>();
+
+        Pedido(List<ItemVenda> itens, String chaveIdempotencia, LocalDateTime reservadaEm) {
+            this.itens = itens;
+            this.chaveIdempotencia = chaveIdempotencia;
+            this.reservadaEm = reservadaEm;
+        }
+    }
+}
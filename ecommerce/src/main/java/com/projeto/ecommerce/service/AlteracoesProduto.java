@@ -0,0 +1,290 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.event.EstoqueAlteradoEvent;
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
+import com.projeto.ecommerce.exception.ServicoSobrecarregadoException;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.response.AlteracaoProdutoResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Alterações de estoque, preço e situação dos produtos para GET /produtos/alteracoes (SSE).
+// Os eventos de produto e de estoque são acumulados depois do commit e publicados a cada
+// intervalo-ms, um por produto com o estado mais recente; estados iguais ao último publicado não
+// geram evento. Cada evento recebe uma versão crescente, que é também o id do evento SSE: as
+// últimas "historico" alterações ficam guardadas para retomar uma conexão pelo Last-Event-ID.
+@Component
+public class AlteracoesProduto {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Leituras em transação de escrita, para virem do primário mesmo com réplica de leitura
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${ecommerce.produtos.alteracoes.historico:10000}")
+    private int tamanhoHistorico;
+
+    @Value("${ecommerce.produtos.alteracoes.max-assinantes:10000}")
+    private int maxAssinantes;
+
+    @Value("${ecommerce.produtos.alteracoes.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${ecommerce.produtos.alteracoes.intervalo-heartbeat-ms:15000}")
+    private long intervaloHeartbeatMs;
+
+    private final Map<Long, ProdutoAlteradoEvent> produtosPendentes = new ConcurrentHashMap<>();
+    private final Set<Long> estoquePendente = ConcurrentHashMap.newKeySet();
+    // Último estado publicado de cada produto: completa as alterações só de estoque do ledger
+    private final Map<Long, AlteracaoProdutoResponse> ultimos = new ConcurrentHashMap<>();
+
+    private final ArrayDeque<AlteracaoProdutoResponse> historico = new ArrayDeque<>();
+    // Começa no instante de início, em microssegundos: um Last-Event-ID de uma execução anterior
+    // fica sempre abaixo do histórico desta e leva ao evento "reinicio"
+    private long ultimaVersao = System.currentTimeMillis() * 1000;
+    private final List<Assinante> assinantes = new CopyOnWriteArrayList<>();
+    private long ultimoHeartbeat = System.currentTimeMillis();
+
+    @PostConstruct
+    public void iniciar() {
+        Gauge.builder("produtos.alteracoes.assinantes", assinantes, List::size)
+                .description("Conexões abertas em GET /produtos/alteracoes")
+                .register(meterRegistry);
+    }
+
+    // Depois do commit de quem alterou o produto; fora de transação (importação), na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        produtosPendentes.put(evento.getId(), evento);
+    }
+
+    @TransactionalEventListener
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        estoquePendente.addAll(evento.getProdutoIds());
+    }
+
+    // "ids" vazio recebe todos os produtos. Sem Last-Event-ID, só as alterações a partir de agora;
+    // com um Last-Event-ID fora do histórico, o evento "reinicio" avisa que o estado deve ser relido.
+    public SseEmitter assinar(Collection<Long> ids, String ultimoEventoId) {
+        if (assinantes.size() >= maxAssinantes) {
+            throw new ServicoSobrecarregadoException("Limite de conexões de alterações de produtos atingido.");
+        }
+        SseEmitter emissor = new SseEmitter(timeout.toMillis());
+        Assinante assinante = new Assinante(emissor, ids != null ? Set.copyOf(ids) : Set.of());
+        emissor.onCompletion(() -> assinantes.remove(assinante));
+        emissor.onError(erro -> assinantes.remove(assinante));
+
+        Long ultimoEvento = null;
+        try {
+            ultimoEvento = ultimoEventoId != null ? Long.valueOf(ultimoEventoId.trim()) : null;
+        } catch (NumberFormatException e) {
+            // Tratado como um id fora do histórico
+        }
+
+        boolean reinicio;
+        List<AlteracaoProdutoResponse> pendentes = new ArrayList<>();
+        // A trava do assinante é tomada antes de ele ficar visível para publicar(): os eventos
+        // do histórico saem antes de qualquer evento novo
+        synchronized (historico) {
+            long minima = historico.isEmpty() ? ultimaVersao : historico.peekFirst().getVersao() - 1;
+            reinicio = ultimoEventoId != null && (ultimoEvento == null || ultimoEvento < minima || ultimoEvento > ultimaVersao);
+            assinante.ultimaEnviada = ultimoEvento == null || reinicio ? ultimaVersao : ultimoEvento;
+            for (AlteracaoProdutoResponse alteracao : historico) {
+                if (alteracao.getVersao() > assinante.ultimaEnviada) {
+                    pendentes.add(alteracao);
+                }
+            }
+            assinante.trava.lock();
+            assinantes.add(assinante);
+        }
+        try {
+            if (reinicio) {
+                emissor.send(SseEmitter.event().id(String.valueOf(assinante.ultimaEnviada)).name("reinicio")
+                        .data(assinante.ultimaEnviada));
+            } else {
+                // Envia os cabeçalhos já na conexão, sem esperar pela primeira alteração
+                emissor.send(SseEmitter.event().comment("conectado"));
+            }
+            assinante.enviar(pendentes);
+        } catch (IOException | IllegalStateException e) {
+            assinante.encerrar();
+        } finally {
+            assinante.trava.unlock();
+        }
+        return emissor;
+    }
+
+    @Scheduled(fixedDelayString = "${ecommerce.produtos.alteracoes.intervalo-ms:200}")
+    public void publicar() {
+        List<AlteracaoProdutoResponse> novas = lerAlteracoes();
+        if (!novas.isEmpty()) {
+            for (Assinante assinante : assinantes) {
+                assinante.trava.lock();
+                try {
+                    assinante.enviar(novas);
+                } catch (IOException | IllegalStateException e) {
+                    assinante.encerrar();
+                } finally {
+                    assinante.trava.unlock();
+                }
+            }
+        }
+        heartbeat();
+    }
+
+    // Estado atual dos produtos alterados: o estoque vem do ledger quando ele gere o produto e,
+    // no resto, do próprio evento de produto; o banco só é lido quando nenhum dos dois basta
+    private List<AlteracaoProdutoResponse> lerAlteracoes() {
+        if (produtosPendentes.isEmpty() && estoquePendente.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProdutoAlteradoEvent> produtos = new HashMap<>();
+        for (Iterator<Map.Entry<Long, ProdutoAlteradoEvent>> iterador = produtosPendentes.entrySet().iterator(); iterador.hasNext(); ) {
+            Map.Entry<Long, ProdutoAlteradoEvent> entrada = iterador.next();
+            produtos.put(entrada.getKey(), entrada.getValue());
+            iterador.remove();
+        }
+        Set<Long> estoque = new TreeSet<>();
+        for (Iterator<Long> iterador = estoquePendente.iterator(); iterador.hasNext(); ) {
+            estoque.add(iterador.next());
+            iterador.remove();
+        }
+        Set<Long> ids = new TreeSet<>(estoque);
+        ids.addAll(produtos.keySet());
+
+        Map<Long, AlteracaoProdutoResponse> estados = new HashMap<>();
+        List<Long> doBanco = new ArrayList<>();
+        for (Long id : ids) {
+            ProdutoAlteradoEvent evento = produtos.get(id);
+            AlteracaoProdutoResponse anterior = ultimos.get(id);
+            Integer saldo = ledgerEstoque.disponivel(id);
+            if (evento != null && (saldo != null || !estoque.contains(id))) {
+                estados.put(id, new AlteracaoProdutoResponse(id, saldo != null ? saldo : evento.getQuantidadeEstoque(),
+                        evento.getPreco(), evento.isAtivo(), 0));
+            } else if (evento == null && saldo != null && anterior != null) {
+                estados.put(id, new AlteracaoProdutoResponse(id, saldo, anterior.getPreco(), anterior.isAtivo(), 0));
+            } else {
+                doBanco.add(id);
+            }
+        }
+        if (!doBanco.isEmpty()) {
+            for (Produto produto : transactionTemplate.execute(status -> produtoRepository.findAllById(doBanco))) {
+                Integer saldo = ledgerEstoque.disponivel(produto.getId());
+                estados.put(produto.getId(), new AlteracaoProdutoResponse(produto.getId(),
+                        saldo != null ? saldo : produto.getQuantidadeEstoque(), produto.getPreco(),
+                        Boolean.TRUE.equals(produto.getAtivo()), 0));
+            }
+        }
+
+        List<AlteracaoProdutoResponse> novas = new ArrayList<>();
+        synchronized (historico) {
+            for (Long id : ids) {
+                AlteracaoProdutoResponse estado = estados.get(id);
+                if (estado == null || igual(estado, ultimos.get(id))) {
+                    continue;
+                }
+                AlteracaoProdutoResponse alteracao = new AlteracaoProdutoResponse(id, estado.getQuantidadeEstoque(),
+                        estado.getPreco(), estado.isAtivo(), ++ultimaVersao);
+                historico.addLast(alteracao);
+                if (historico.size() > tamanhoHistorico) {
+                    historico.removeFirst();
+                }
+                ultimos.put(id, alteracao);
+                novas.add(alteracao);
+            }
+        }
+        return novas;
+    }
+
+    // Comentário SSE periódico: mantém a conexão aberta em proxies e descobre clientes que saíram
+    private void heartbeat() {
+        long agora = System.currentTimeMillis();
+        if (agora - ultimoHeartbeat < intervaloHeartbeatMs) {
+            return;
+        }
+        ultimoHeartbeat = agora;
+        for (Assinante assinante : assinantes) {
+            assinante.trava.lock();
+            try {
+                assinante.emissor.send(SseEmitter.event().comment(""));
+            } catch (IOException | IllegalStateException e) {
+                assinante.encerrar();
+            } finally {
+                assinante.trava.unlock();
+            }
+        }
+    }
+
+    private static boolean igual(AlteracaoProdutoResponse estado, AlteracaoProdutoResponse anterior) {
+        return anterior != null
+                && Objects.equals(estado.getQuantidadeEstoque(), anterior.getQuantidadeEstoque())
+                && Objects.equals(estado.getPreco(), anterior.getPreco())
+                && estado.isAtivo() == anterior.isAtivo();
+    }
+
+    private class Assinante {
+        final SseEmitter emissor;
+        final Set<Long> filtro;
+        // Envios de um assinante em ordem de versão, mesmo entre a retomada e a publicação
+        final ReentrantLock trava = new ReentrantLock();
+        long ultimaEnviada;
+
+        Assinante(SseEmitter emissor, Set<Long> filtro) {
+            this.emissor = emissor;
+            this.filtro = filtro;
+        }
+
+        // Chamado com a trava
+        void enviar(List<AlteracaoProdutoResponse> alteracoes) throws IOException {
+            for (AlteracaoProdutoResponse alteracao : alteracoes) {
+                if (alteracao.getVersao() <= ultimaEnviada) {
+                    continue;
+                }
+                if (filtro.isEmpty() || filtro.contains(alteracao.getId())) {
+                    emissor.send(SseEmitter.event().id(String.valueOf(alteracao.getVersao())).name("produto")
+                            .data(alteracao, MediaType.APPLICATION_JSON));
+                }
+                ultimaEnviada = alteracao.getVersao();
+            }
+        }
+
+        void encerrar() {
+            assinantes.remove(this);
+            emissor.complete();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ServicoSobrecarregadoException;
+import com.projeto.ecommerce.response.ProdutoBuscaResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Busca textual de produtos sobre o IndiceBusca em memória. O índice é montado a partir do banco
+// quando a aplicação sobe (em paralelo, numa thread própria) e depois mantido pelos eventos de
+// alteração de produto. Alterações que chegam durante uma reconstrução ficam pendentes e são
+// aplicadas ao novo índice antes de ele substituir o anterior.
+@Service
+public class BuscaProdutoService {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaProdutoService.class);
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = número de processadores
+    @Value("${ecommerce.busca.threads-reconstrucao:0}")
+    private int threadsReconstrucao;
+
+    @Value("${ecommerce.busca.max-expansoes:100}")
+    private int maxExpansoes;
+
+    @Value("${ecommerce.busca.limite-padrao:20}")
+    private int limitePadrao;
+
+    @Value("${ecommerce.busca.limite-maximo:100}")
+    private int limiteMaximo;
+
+    private final Object trava = new Object();
+    private volatile IndiceBusca indice;
+    private List<ProdutoAlteradoEvent> pendentes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        Gauge.builder("busca.indice.produtos", this, s -> s.indice != null ? s.indice.quantidadeProdutos() : 0)
+                .description("Produtos no índice de busca")
+                .register(meterRegistry);
+        Gauge.builder("busca.indice.termos", this, s -> s.indice != null ? s.indice.quantidadeTermos() : 0)
+                .description("Termos distintos no índice de busca")
+                .register(meterRegistry);
+
+        Thread reconstrucao = new Thread(this::reconstruir, "busca-reconstrucao");
+        reconstrucao.setDaemon(true);
+        reconstrucao.start();
+    }
+
+    public void reconstruir() {
+        synchronized (trava) {
+            if (pendentes != null) {
+                return;
+            }
+            pendentes = new ArrayList<>();
+        }
+        long inicio = System.nanoTime();
+        IndiceBusca novo = null;
+        try {
+            List<ProdutoAlteradoEvent> produtos = new ArrayList<>();
+            produtoService.percorrerProdutos(produto -> produtos.add(new ProdutoAlteradoEvent(produto)));
+            int threads = threadsReconstrucao > 0 ? threadsReconstrucao : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                novo = IndiceBusca.construir(produtos, pool);
+            } finally {
+                pool.shutdown();
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao construir o índice de busca", e);
+        } finally {
+            synchronized (trava) {
+                IndiceBusca destino = novo != null ? novo : indice;
+                if (destino != null) {
+                    pendentes.forEach(destino::atualizar);
+                }
+                pendentes = null;
+                indice = destino;
+            }
+        }
+        if (novo != null) {
+            log.info("Índice de busca construído: {} produtos, {} termos em {} ms", novo.quantidadeProdutos(),
+                    novo.quantidadeTermos(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    // Depois do commit de quem alterou o produto; fora de transação (importação), na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        synchronized (trava) {
+            if (pendentes != null) {
+                pendentes.add(evento);
+            } else if (indice != null) {
+                indice.atualizar(evento);
+            }
+        }
+    }
+
+    public List<ProdutoBuscaResponse> buscar(String consulta, boolean somenteAtivos, Double precoMin, Double precoMax,
+                                             Integer limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new BadRequestException("Informe o texto da busca.");
+        }
+        if (limite != null && (limite < 1 || limite > limiteMaximo)) {
+            throw new BadRequestException("O limite deve estar entre 1 e " + limiteMaximo + ".");
+        }
+        IndiceBusca atual = indice;
+        if (atual == null) {
+            throw new ServicoSobrecarregadoException("O índice de busca ainda está sendo construído. Tente novamente em instantes.");
+        }
+        return atual.buscar(consulta, somenteAtivos, precoMin, precoMax, limite != null ? limite : limitePadrao, maxExpansoes);
+    }
+}
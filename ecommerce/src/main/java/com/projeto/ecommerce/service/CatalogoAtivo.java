@@ -0,0 +1,189 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.event.EstoqueAlteradoEvent;
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Produtos ativos em memória, em ordem de ID, para o GET /produtos/ativos. Carregado uma vez do
+// banco (índice parcial) e mantido pelos eventos de alteração de produto. A lista entregue é uma
+// cópia imutável, refeita só na primeira leitura depois de uma alteração. Os produtos publicados
+// nela nunca são alterados: cada mudança troca o produto do mapa por uma cópia nova.
+// O estoque muda a cada venda: os IDs vendidos são acumulados e relidos em lote a cada
+// intervalo-estoque-ms, de modo que a leitura nunca vai ao banco.
+@Component
+public class CatalogoAtivo {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoAtivo.class);
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Leituras em transação de escrita, para virem do primário mesmo com réplica de leitura:
+    // o que for lido aqui só é corrigido na próxima alteração do produto
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final TreeMap<Long, Produto> ativos = new TreeMap<>();
+    private final Set<Long> estoquePendente = ConcurrentHashMap.newKeySet();
+    private volatile List<Produto> instantaneo;
+    // Muda a cada alteração de produto ou de estoque já refletida aqui (RespostasCatalogo)
+    private final AtomicLong versao = new AtomicLong();
+
+    @PostConstruct
+    public void carregar() {
+        List<Produto> produtos = transactionTemplate.execute(status -> produtoRepository.findByAtivoTrueOrderByIdAsc());
+        synchronized (ativos) {
+            produtos.forEach(produto -> ativos.put(produto.getId(), copiar(produto)));
+            instantaneo = null;
+        }
+        log.info("Catálogo de produtos ativos carregado com {} produtos", produtos.size());
+
+        Gauge.builder("catalogo.ativos", this, catalogo -> catalogo.quantidade())
+                .description("Produtos ativos mantidos em memória para a listagem")
+                .register(meterRegistry);
+    }
+
+    public long versao() {
+        return versao.get();
+    }
+
+    public List<Produto> listar() {
+        List<Produto> atual = instantaneo;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (ativos) {
+            if (instantaneo == null) {
+                instantaneo = List.copyOf(ativos.values());
+            }
+            return instantaneo;
+        }
+    }
+
+    // Cópia do produto ativo, ou null se não estiver ativo; não deve ser alterada por quem chama
+    public Produto buscar(Long id) {
+        synchronized (ativos) {
+            return ativos.get(id);
+        }
+    }
+
+    // Depois do commit de quem alterou o produto; fora de transação (importação), na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        synchronized (ativos) {
+            if (evento.isAtivo()) {
+                ativos.put(evento.getId(), copiar(evento));
+                instantaneo = null;
+            } else if (ativos.remove(evento.getId()) != null) {
+                instantaneo = null;
+            }
+        }
+        // Também conta para produtos inativos, que aparecem em GET /produtos
+        versao.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        estoquePendente.addAll(evento.getProdutoIds());
+    }
+
+    // Relê o estoque confirmado dos produtos vendidos desde a última execução (ou o saldo do
+    // LedgerEstoque, que está à frente do banco). Os produtos alterados são trocados por cópias com
+    // a quantidade nova e o instantâneo é refeito uma vez por execução, na próxima leitura: quem
+    // ainda percorre a lista anterior (ou o corpo já serializado dela) não vê a troca pela metade.
+    @Scheduled(fixedDelayString = "${ecommerce.catalogo.intervalo-estoque-ms:200}")
+    public void atualizarEstoque() {
+        if (estoquePendente.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> iterador = estoquePendente.iterator(); iterador.hasNext(); ) {
+            ids.add(iterador.next());
+            iterador.remove();
+        }
+        synchronized (ativos) {
+            ids.retainAll(ativos.keySet());
+        }
+        Map<Long, Integer> estoques = new HashMap<>();
+        ids.removeIf(id -> {
+            Integer saldo = ledgerEstoque.disponivel(id);
+            if (saldo != null) {
+                estoques.put(id, saldo);
+                return true;
+            }
+            return false;
+        });
+        if (!ids.isEmpty()) {
+            transactionTemplate.execute(status -> produtoRepository.findAllById(ids))
+                    .forEach(produto -> estoques.put(produto.getId(), produto.getQuantidadeEstoque()));
+        }
+        synchronized (ativos) {
+            estoques.forEach((id, quantidadeEstoque) -> ativos.computeIfPresent(id, (chave, produto) -> {
+                Produto atualizado = copiar(produto);
+                atualizado.setQuantidadeEstoque(quantidadeEstoque);
+                return atualizado;
+            }));
+            if (!estoques.isEmpty()) {
+                instantaneo = null;
+            }
+        }
+        versao.incrementAndGet();
+    }
+
+    private int quantidade() {
+        synchronized (ativos) {
+            return ativos.size();
+        }
+    }
+
+    private static Produto copiar(Produto origem) {
+        Produto produto = new Produto();
+        produto.setId(origem.getId());
+        produto.setCodigo(origem.getCodigo());
+        produto.setNome(origem.getNome());
+        produto.setDescricao(origem.getDescricao());
+        produto.setPreco(origem.getPreco());
+        produto.setQuantidadeEstoque(origem.getQuantidadeEstoque());
+        produto.setAtivo(origem.getAtivo());
+        return produto;
+    }
+
+    private static Produto copiar(ProdutoAlteradoEvent evento) {
+        Produto produto = new Produto();
+        produto.setId(evento.getId());
+        produto.setCodigo(evento.getCodigo());
+        produto.setNome(evento.getNome());
+        produto.setDescricao(evento.getDescricao());
+        produto.setPreco(evento.getPreco());
+        produto.setQuantidadeEstoque(evento.getQuantidadeEstoque());
+        produto.setAtivo(true);
+        return produto;
+    }
+}
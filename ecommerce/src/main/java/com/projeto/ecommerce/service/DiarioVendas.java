@@ -0,0 +1,510 @@
+package com.projeto.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.ecommerce.event.EstoqueAlteradoEvent;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.exception.ProdutoInativoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.exception.ServicoSobrecarregadoException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.PosicaoDiario;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.model.VendaDiarioRejeitada;
+import com.projeto.ecommerce.repository.PosicaoDiarioRepository;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.repository.VendaDiarioRejeitadaRepository;
+import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.PedidoDiarioResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Checkout confirmado pelo diário de vendas (ecommerce.checkout.diario.habilitado): a venda é
+// aceita contra o estoque do LedgerEstoque, gravada no diário em disco (SegmentosDiario) e
+// respondida assim que o registro é sincronizado, sem esperar pelo banco. Um único aplicador
+// grava as vendas do diário nas tabelas, em lotes, junto com a posição aplicada (PosicaoDiario);
+// ao reiniciar, os registros posteriores a essa posição são reaplicados, cada um uma única vez.
+// O diário é local: vale para uma única instância da aplicação por diretório e banco.
+@Service
+public class DiarioVendas {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioVendas.class);
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private CatalogoAtivo catalogoAtivo;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PosicaoDiarioRepository posicaoDiarioRepository;
+
+    @Autowired
+    private VendaDiarioRejeitadaRepository vendaDiarioRejeitadaRepository;
+
+    @Autowired
+    private MetricasCheckout metricasCheckout;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ecommerce.checkout.diario.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${ecommerce.checkout.diario.diretorio:diario-vendas}")
+    private String diretorio;
+
+    @Value("${ecommerce.checkout.diario.tamanho-segmento:67108864}")
+    private int tamanhoSegmento;
+
+    @Value("${ecommerce.checkout.diario.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${ecommerce.checkout.diario.max-vendas-consultaveis:100000}")
+    private int maxVendasConsultaveis;
+
+    private SegmentosDiario segmentos;
+    // Registros sincronizados (ou a sincronizar) ainda não aplicados, em ordem de LSN
+    private final BlockingQueue<SegmentosDiario.Entrada> fila = new LinkedBlockingQueue<>();
+    private final Object escrita = new Object();
+    private TransactionTemplate transacaoLote;
+    // ID da venda gravada para cada LSN aplicado recentemente (GET /vendas/diario/{numero})
+    private Cache<Long, Long> vendasAplicadas;
+    private volatile long aplicado;
+    private volatile boolean ativo;
+    private Thread sincronizador;
+    private Thread aplicador;
+
+    private Timer esperaSincronizacao;
+    private DistributionSummary tamanhoLoteAplicado;
+    private Counter falhasAplicacao;
+    private Counter vendasRejeitadas;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        if (!habilitado) {
+            return;
+        }
+        transacaoLote = new TransactionTemplate(transactionManager);
+        vendasAplicadas = Caffeine.newBuilder().maximumSize(maxVendasConsultaveis).build();
+        aplicado = posicaoDiarioRepository.findById(PosicaoDiario.ID).map(PosicaoDiario::getUltimoLsn).orElse(0L);
+        segmentos = new SegmentosDiario(Path.of(diretorio), tamanhoSegmento);
+
+        // Vendas já confirmadas aos clientes e ainda fora do banco: a baixa no ledger é refeita,
+        // já que o saldo acabou de ser lido do banco, e elas voltam para a fila do aplicador
+        List<SegmentosDiario.Entrada> pendentes = segmentos.abrir(aplicado);
+        SortedMap<Long, Integer> baixas = new TreeMap<>();
+        pendentes.forEach(entrada -> agrupar(entrada).forEach((id, quantidade) -> baixas.merge(id, quantidade, Integer::sum)));
+        ledgerEstoque.gerenciar(baixas.keySet());
+        baixas.forEach((id, quantidade) -> {
+            if (ledgerEstoque.gerencia(id)) {
+                ledgerEstoque.reservarDoDiario(id, quantidade);
+            }
+        });
+        fila.addAll(pendentes);
+        log.info("Diário de vendas em {}: posição aplicada {}, {} vendas a reaplicar", Path.of(diretorio).toAbsolutePath(),
+                aplicado, pendentes.size());
+
+        Gauge.builder("checkout.diario.pendentes", fila, BlockingQueue::size)
+                .description("Vendas confirmadas pelo diário ainda não gravadas nas tabelas")
+                .register(meterRegistry);
+        Gauge.builder("checkout.diario.segmentos", this, diario -> diario.segmentos.segmentos())
+                .description("Segmentos do diário de vendas em disco")
+                .register(meterRegistry);
+        esperaSincronizacao = Timer.builder("checkout.diario.sincronizacao")
+                .description("Espera de uma venda até o seu registro no diário estar em disco")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        tamanhoLoteAplicado = DistributionSummary.builder("checkout.diario.lote")
+                .description("Vendas do diário gravadas por transação do aplicador")
+                .register(meterRegistry);
+        falhasAplicacao = Counter.builder("checkout.diario.falhas")
+                .description("Lotes do diário cuja gravação falhou e foi repetida")
+                .register(meterRegistry);
+        // Qualquer valor acima de zero pede alerta: a venda foi confirmada ao cliente e não está no banco
+        vendasRejeitadas = Counter.builder("checkout.diario.rejeitadas")
+                .description("Vendas do diário recusadas pelo banco e separadas em venda_diario_rejeitada")
+                .register(meterRegistry);
+
+        ativo = true;
+        sincronizador = new Thread(this::sincronizar, "diario-sincronizador");
+        sincronizador.setDaemon(true);
+        sincronizador.start();
+        aplicador = new Thread(this::aplicar, "diario-aplicador");
+        aplicador.setDaemon(true);
+        aplicador.start();
+    }
+
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    // Ponto de entrada do POST /vendas com o diário habilitado. A venda devolvida ainda não tem ID:
+    // o pedido é identificado pelo número (LSN) no diário até ser aplicado.
+    public Aceite aceitar(List<ItemVenda> itensVenda) {
+        try {
+            Aceite aceite = registrar(itensVenda);
+            metricasCheckout.sucesso();
+            return aceite;
+        } catch (RuntimeException e) {
+            metricasCheckout.falha(e);
+            throw e;
+        }
+    }
+
+    public PedidoDiarioResponse consultar(long numero) {
+        if (!habilitado || numero < 1 || numero > segmentos.ultimoLsn()) {
+            throw new ResourceNotFoundException("Pedido não encontrado no diário de vendas: " + numero);
+        }
+        if (numero > aplicado) {
+            return new PedidoDiarioResponse(numero, "PENDENTE", null);
+        }
+        Long vendaId = vendasAplicadas.getIfPresent(numero);
+        if (vendaId == null && vendaDiarioRejeitadaRepository.existsById(numero)) {
+            return new PedidoDiarioResponse(numero, "REJEITADO", null);
+        }
+        return new PedidoDiarioResponse(numero, "APLICADO", vendaId);
+    }
+
+    private Aceite registrar(List<ItemVenda> itensVenda) {
+        if (!ativo) {
+            throw new ServicoSobrecarregadoException("Diário de vendas indisponível.");
+        }
+        if (itensVenda == null || itensVenda.isEmpty()) {
+            throw new BadRequestException("A venda deve ter pelo menos um item.");
+        }
+        SortedMap<Long, Integer> quantidades = estoqueService.agruparPorProduto(itensVenda);
+        ledgerEstoque.gerenciar(quantidades.keySet());
+
+        Map<Long, Produto> produtos = new HashMap<>();
+        for (Long id : quantidades.keySet()) {
+            if (!ledgerEstoque.gerencia(id)) {
+                throw new ResourceNotFoundException("Produto não encontrado com ID: " + id);
+            }
+            Produto produto = catalogoAtivo.buscar(id);
+            if (produto == null || !ledgerEstoque.ativo(id)) {
+                throw new ProdutoInativoException(id);
+            }
+            produtos.put(id, produto);
+        }
+
+        List<Long> falhas = new ArrayList<>();
+        Map<Long, Integer> reservados = new HashMap<>();
+        quantidades.forEach((id, quantidade) -> {
+            if (ledgerEstoque.reservar(id, quantidade)) {
+                reservados.put(id, quantidade);
+            } else {
+                falhas.add(id);
+            }
+        });
+        if (!falhas.isEmpty()) {
+            reservados.forEach(ledgerEstoque::devolver);
+            throw new EstoqueInsuficienteException(falhas);
+        }
+
+        int itens = itensVenda.size();
+        long[] produtoIds = new long[itens];
+        int[] quantidadesItens = new int[itens];
+        double[] precos = new double[itens];
+        double valorTotal = 0;
+        for (int i = 0; i < itens; i++) {
+            ItemVenda item = itensVenda.get(i);
+            produtoIds[i] = item.getProduto().getId();
+            quantidadesItens[i] = item.getQuantidade();
+            precos[i] = produtos.get(produtoIds[i]).getPreco();
+            valorTotal += precos[i] * quantidadesItens[i];
+        }
+        SegmentosDiario.Entrada entrada = new SegmentosDiario.Entrada(LocalDateTime.now(), valorTotal,
+                produtoIds, quantidadesItens, precos);
+
+        // Antes da gravação, para o aplicador nunca encontrar a venda sem a baixa registrada
+        reservados.forEach(ledgerEstoque::registrarNoDiario);
+        try {
+            // A fila segue a ordem dos LSNs, que é a ordem em que o aplicador grava as vendas
+            synchronized (escrita) {
+                segmentos.acrescentar(entrada);
+                fila.add(entrada);
+            }
+        } catch (RuntimeException e) {
+            reservados.forEach((id, quantidade) -> {
+                ledgerEstoque.aplicadoDoDiario(id, quantidade);
+                ledgerEstoque.devolver(id, quantidade);
+            });
+            throw e;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            segmentos.aguardar(entrada.lsn);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o diário de vendas", e);
+        }
+        esperaSincronizacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        Venda venda = new Venda();
+        venda.setDataVenda(entrada.dataVenda);
+        for (int i = 0; i < itens; i++) {
+            ItemVenda item = itensVenda.get(i);
+            item.setVenda(venda);
+            item.setProduto(produtos.get(produtoIds[i]));
+            item.setPrecoUnitario(precos[i]);
+        }
+        venda.setItens(itensVenda);
+        venda.setValorTotal(valorTotal);
+        return new Aceite(entrada.lsn, venda);
+    }
+
+    private void sincronizar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                segmentos.sincronizar(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void aplicar() {
+        List<SegmentosDiario.Entrada> lote = new ArrayList<>(tamanhoLote);
+        while (ativo || !fila.isEmpty()) {
+            try {
+                SegmentosDiario.Entrada primeira = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeira == null) {
+                    continue;
+                }
+                lote.add(primeira);
+                fila.drainTo(lote, tamanhoLote - 1);
+                // Só o que já está em disco: uma venda não confirmada ao cliente nunca chega ao banco
+                segmentos.aguardar(lote.get(lote.size() - 1).lsn);
+                if (!aplicarComRepeticao(lote)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Falha no diário de vendas, aplicação interrompida: {}", e.getMessage());
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // Falhas passageiras (conexão, lock) repetem o lote até ele ser gravado: pular um registro quebraria a
+    // ordem da posição aplicada. Uma violação de restrição não passa com a repetição: o lote é refeito
+    // registro a registro, e o registro recusado sozinho é separado (rejeitar) para não travar os
+    // seguintes. No encerramento, o que não foi gravado fica no diário para o próximo início.
+    private boolean aplicarComRepeticao(List<SegmentosDiario.Entrada> lote) throws InterruptedException {
+        long espera = 100;
+        DataIntegrityViolationException violacao = null;
+        while (true) {
+            try {
+                if (violacao == null) {
+                    aplicarLote(lote);
+                } else {
+                    rejeitar(lote.get(0), violacao);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                if (violacao == null && e instanceof DataIntegrityViolationException recusa) {
+                    if (lote.size() > 1) {
+                        log.warn("Vendas {} a {} do diário recusadas pelo banco, gravando uma a uma: {}",
+                                lote.get(0).lsn, lote.get(lote.size() - 1).lsn, e.getMessage());
+                        for (SegmentosDiario.Entrada entrada : lote) {
+                            if (!aplicarComRepeticao(List.of(entrada))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                    violacao = recusa;
+                    continue;
+                }
+                falhasAplicacao.increment();
+                log.error("Falha ao gravar as vendas {} a {} do diário, nova tentativa em {} ms: {}",
+                        lote.get(0).lsn, lote.get(lote.size() - 1).lsn, espera, e.getMessage());
+                if (!ativo) {
+                    return false;
+                }
+                Thread.sleep(espera);
+                espera = Math.min(espera * 2, TimeUnit.SECONDS.toMillis(5));
+            }
+        }
+    }
+
+    private void aplicarLote(List<SegmentosDiario.Entrada> lote) {
+        long ultimoLsn = lote.get(lote.size() - 1).lsn;
+        List<Venda> vendas = new ArrayList<>(lote.size());
+        transacaoLote.executeWithoutResult(status -> {
+            SortedMap<Long, Integer> baixas = new TreeMap<>();
+            for (SegmentosDiario.Entrada entrada : lote) {
+                Venda venda = new Venda();
+                venda.setDataVenda(entrada.dataVenda);
+                for (int i = 0; i < entrada.produtos.length; i++) {
+                    ItemVenda item = new ItemVenda();
+                    item.setVenda(venda);
+                    item.setProduto(entityManager.getReference(Produto.class, entrada.produtos[i]));
+                    item.setQuantidade(entrada.quantidades[i]);
+                    item.setPrecoUnitario(entrada.precos[i]);
+                    venda.getItens().add(item);
+                }
+                venda.setValorTotal(entrada.valorTotal);
+                vendas.add(vendaRepository.save(venda));
+                vendaService.registrarNoResumo(venda, 1);
+                agrupar(entrada).forEach((id, quantidade) -> baixas.merge(id, quantidade, Integer::sum));
+            }
+
+            // Uma baixa por produto para o lote inteiro, em ordem de ID
+            baixas.forEach((id, quantidade) -> produtoRepository.ajustarEstoque(id, -quantidade));
+            var produtosCache = cacheManager.getCache("produtos");
+            baixas.keySet().forEach(produtosCache::evict);
+            eventPublisher.publishEvent(new EstoqueAlteradoEvent(baixas.keySet()));
+
+            // Na mesma transação das vendas: o que está no banco e a posição nunca divergem
+            posicaoDiarioRepository.save(new PosicaoDiario(PosicaoDiario.ID, ultimoLsn));
+        });
+
+        for (int i = 0; i < lote.size(); i++) {
+            SegmentosDiario.Entrada entrada = lote.get(i);
+            agrupar(entrada).forEach((id, quantidade) -> {
+                if (ledgerEstoque.gerencia(id)) {
+                    ledgerEstoque.aplicadoDoDiario(id, quantidade);
+                }
+            });
+            vendasAplicadas.put(entrada.lsn, vendas.get(i).getId());
+        }
+        aplicado = ultimoLsn;
+        tamanhoLoteAplicado.record(lote.size());
+        segmentos.compactar(ultimoLsn);
+    }
+
+    // A venda sai da fila do aplicador na mesma transação que avança a posição, e a sua baixa é desfeita
+    // no ledger, já que o banco não a recebeu
+    private void rejeitar(SegmentosDiario.Entrada entrada, DataIntegrityViolationException violacao) {
+        String motivo = String.valueOf(NestedExceptionUtils.getMostSpecificCause(violacao).getMessage());
+        if (motivo.length() > 1000) {
+            motivo = motivo.substring(0, 1000);
+        }
+        StringJoiner itens = new StringJoiner(",");
+        for (int i = 0; i < entrada.produtos.length; i++) {
+            itens.add(entrada.produtos[i] + ":" + entrada.quantidades[i] + ":" + entrada.precos[i]);
+        }
+        VendaDiarioRejeitada rejeitada = new VendaDiarioRejeitada(entrada.lsn, entrada.dataVenda, entrada.valorTotal,
+                itens.toString(), motivo, LocalDateTime.now());
+        transacaoLote.executeWithoutResult(status -> {
+            vendaDiarioRejeitadaRepository.save(rejeitada);
+            posicaoDiarioRepository.save(new PosicaoDiario(PosicaoDiario.ID, entrada.lsn));
+        });
+
+        agrupar(entrada).forEach((id, quantidade) -> {
+            if (ledgerEstoque.gerencia(id)) {
+                ledgerEstoque.aplicadoDoDiario(id, quantidade);
+                ledgerEstoque.devolver(id, quantidade);
+            }
+        });
+        aplicado = entrada.lsn;
+        vendasRejeitadas.increment();
+        log.error("Venda {} do diário recusada pelo banco e separada em venda_diario_rejeitada: {}", entrada.lsn, motivo);
+        segmentos.compactar(entrada.lsn);
+    }
+
+    private static SortedMap<Long, Integer> agrupar(SegmentosDiario.Entrada entrada) {
+        SortedMap<Long, Integer> quantidades = new TreeMap<>();
+        for (int i = 0; i < entrada.produtos.length; i++) {
+            quantidades.merge(entrada.produtos[i], entrada.quantidades[i], Integer::sum);
+        }
+        return quantidades;
+    }
+
+    // O aplicador esvazia a fila antes de parar; o sincronizador continua até lá, já que o
+    // aplicador só grava registros sincronizados
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        if (aplicador == null) {
+            return;
+        }
+        ativo = false;
+        aplicador.join(TimeUnit.SECONDS.toMillis(30));
+        sincronizador.interrupt();
+        sincronizador.join(TimeUnit.SECONDS.toMillis(5));
+        log.info("Diário de vendas encerrado na posição {}", aplicado);
+    }
+
+    public static class Aceite {
+
+        private final long numero;
+        private final Venda venda;
+
+        Aceite(long numero, Venda venda) {
+            this.numero = numero;
+            this.venda = venda;
+        }
+
+        public long getNumero() {
+            return numero;
+        }
+
+        public Venda getVenda() {
+            return venda;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.event.EstoqueAlteradoEvent;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.exception.ProdutoInativoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class EstoqueService {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MetricasCheckout metricasCheckout;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Reserva o estoque de todos os itens dentro da transação corrente.
+    // Produtos do LedgerEstoque são baixados em memória; os demais recebem um único UPDATE
+    // condicional, em ordem de ID para evitar deadlocks. Se algum falhar a exceção desfaz
+    // a transação inteira (e devolve ao ledger o que já tinha sido reservado).
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Produto> reservar(List<ItemVenda> itens) {
+        return reservar(agruparPorProduto(itens));
+    }
+
+    // Mesma reserva, com as quantidades já agrupadas por produto
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Produto> reservar(SortedMap<Long, Integer> quantidades) {
+        List<Long> falhas = new ArrayList<>();
+        ReservaLedger reservaLedger = new ReservaLedger();
+        for (Map.Entry<Long, Integer> entrada : quantidades.entrySet()) {
+            Long id = entrada.getKey();
+            int quantidade = entrada.getValue();
+            if (ledgerEstoque.gerencia(id)) {
+                if (!ledgerEstoque.ativo(id)) {
+                    reservaLedger.devolverTudo();
+                    throw new ProdutoInativoException(id);
+                }
+                if (!ledgerEstoque.reservar(id, quantidade)) {
+                    falhas.add(id);
+                    continue;
+                }
+                reservaLedger.quantidades.put(id, quantidade);
+            } else {
+                long inicio = System.nanoTime();
+                int alterados = produtoRepository.baixarEstoque(id, quantidade);
+                metricasCheckout.baixaBanco(id, System.nanoTime() - inicio);
+                if (alterados == 0) {
+                    falhas.add(id);
+                }
+            }
+        }
+
+        // A devolução ao ledger é imediata, sem esperar o rollback da transação
+        if (!falhas.isEmpty()) {
+            reservaLedger.devolverTudo();
+            lancarFalhaReserva(falhas);
+        }
+        return concluirReserva(quantidades, reservaLedger);
+    }
+
+    // Reserva do checkout agrupado, na transação do lote, que não tem savepoints: tudo é conferido
+    // antes da primeira gravação. O ledger reserva em memória (desfeito na hora se o pedido for
+    // recusado) e os demais produtos têm as linhas travadas e conferidas antes dos UPDATEs. A recusa
+    // é lançada sem passar por um proxy transacional (o método não tem @Transactional), então a
+    // transação do lote não fica marcada como rollback-only e segue para os outros pedidos.
+    public Map<Long, Produto> reservarConferido(SortedMap<Long, Integer> quantidades) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A reserva conferida exige uma transação ativa");
+        }
+        ReservaLedger reservaLedger = new ReservaLedger();
+        SortedMap<Long, Integer> doBanco = new TreeMap<>();
+        List<Long> semEstoque = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entrada : quantidades.entrySet()) {
+            Long id = entrada.getKey();
+            if (!ledgerEstoque.gerencia(id)) {
+                doBanco.put(id, entrada.getValue());
+            } else if (!ledgerEstoque.ativo(id)) {
+                reservaLedger.devolverTudo();
+                throw new ProdutoInativoException(id);
+            } else if (ledgerEstoque.reservar(id, entrada.getValue())) {
+                reservaLedger.quantidades.put(id, entrada.getValue());
+            } else {
+                semEstoque.add(id);
+            }
+        }
+
+        Map<Long, Object[]> travados = new HashMap<>();
+        if (!doBanco.isEmpty()) {
+            produtoRepository.travarEstoque(doBanco.keySet())
+                    .forEach(linha -> travados.put(((Number) linha[0]).longValue(), linha));
+        }
+        // Mesma ordem de motivos de lancarFalhaReserva: inexistente, inativo, sem estoque
+        for (Long id : doBanco.keySet()) {
+            if (!travados.containsKey(id)) {
+                reservaLedger.devolverTudo();
+                throw new ResourceNotFoundException("Produto não encontrado com ID: " + id);
+            }
+        }
+        for (Map.Entry<Long, Integer> entrada : doBanco.entrySet()) {
+            Object[] linha = travados.get(entrada.getKey());
+            if (!Boolean.TRUE.equals(linha[1])) {
+                reservaLedger.devolverTudo();
+                throw new ProdutoInativoException(entrada.getKey());
+            }
+            if (((Number) linha[2]).intValue() < entrada.getValue()) {
+                semEstoque.add(entrada.getKey());
+            }
+        }
+        if (!semEstoque.isEmpty()) {
+            reservaLedger.devolverTudo();
+            semEstoque.sort(null);
+            throw new EstoqueInsuficienteException(semEstoque);
+        }
+
+        // Com as linhas travadas e conferidas, os UPDATEs não podem falhar
+        doBanco.forEach((id, quantidade) -> {
+            long inicio = System.nanoTime();
+            int alterados = produtoRepository.baixarEstoque(id, quantidade);
+            metricasCheckout.baixaBanco(id, System.nanoTime() - inicio);
+            if (alterados == 0) {
+                throw new IllegalStateException("Baixa de estoque recusada com a linha travada: produto " + id);
+            }
+        });
+        return concluirReserva(quantidades, reservaLedger);
+    }
+
+    private Map<Long, Produto> concluirReserva(SortedMap<Long, Integer> quantidades, ReservaLedger reservaLedger) {
+        if (reservaLedger != null && !reservaLedger.quantidades.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(reservaLedger);
+        }
+
+        // Só os produtos com estoque alterado saem do cache (efetivado após o commit)
+        Cache produtosCache = cacheManager.getCache("produtos");
+        quantidades.keySet().forEach(produtosCache::evict);
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(quantidades.keySet()));
+
+        // Carregados depois dos UPDATEs para refletirem o estoque já baixado
+        return produtoRepository.findAllById(quantidades.keySet()).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+    }
+
+    // Devolve ao estoque as unidades retiradas de uma venda já gravada, na transação corrente.
+    // Nos produtos do LedgerEstoque a devolução vale depois do commit e segue no próximo flush.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void devolver(SortedMap<Long, Integer> quantidades) {
+        Map<Long, Integer> doLedger = new HashMap<>();
+        quantidades.forEach((id, quantidade) -> {
+            if (ledgerEstoque.gerencia(id)) {
+                doLedger.put(id, quantidade);
+            } else {
+                produtoRepository.ajustarEstoque(id, quantidade);
+            }
+        });
+        if (!doLedger.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doLedger.forEach(ledgerEstoque::estornar);
+                }
+            });
+        }
+
+        Cache produtosCache = cacheManager.getCache("produtos");
+        quantidades.keySet().forEach(produtosCache::evict);
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(quantidades.keySet()));
+    }
+
+    SortedMap<Long, Integer> agruparPorProduto(List<ItemVenda> itens) {
+        SortedMap<Long, Integer> quantidades = new TreeMap<>();
+        for (ItemVenda item : itens) {
+            if (item.getProduto() == null || item.getProduto().getId() == null) {
+                throw new BadRequestException("Cada item da venda deve ter um produto associado.");
+            }
+            if (item.getQuantidade() == null || item.getQuantidade() < 1) {
+                throw new BadRequestException("Quantidade deve ser pelo menos 1 para o produto: " + item.getProduto().getId());
+            }
+            quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Integer::sum);
+        }
+        return quantidades;
+    }
+
+    // Identifica o motivo exato de cada falha: produto inexistente, inativo ou sem estoque
+    private void lancarFalhaReserva(List<Long> falhas) {
+        Map<Long, Produto> encontrados = produtoRepository.findAllById(falhas).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+
+        List<Long> semEstoque = new ArrayList<>();
+        for (Long id : falhas) {
+            if (ledgerEstoque.gerencia(id)) {
+                semEstoque.add(id);
+                continue;
+            }
+            Produto produto = encontrados.get(id);
+            if (produto == null) {
+                throw new ResourceNotFoundException("Produto não encontrado com ID: " + id);
+            }
+            if (!produto.getAtivo()) {
+                throw new ProdutoInativoException(id);
+            }
+            semEstoque.add(id);
+        }
+        throw new EstoqueInsuficienteException(semEstoque);
+    }
+
+    // Confirma as baixas do ledger quando a venda é gravada, ou as devolve se a transação falhar
+    private class ReservaLedger implements TransactionSynchronization {
+
+        private final Map<Long, Integer> quantidades = new HashMap<>();
+
+        void devolverTudo() {
+            quantidades.forEach(ledgerEstoque::devolver);
+            quantidades.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                quantidades.forEach(ledgerEstoque::confirmar);
+            } else {
+                quantidades.forEach(ledgerEstoque::devolver);
+            }
+        }
+    }
+}
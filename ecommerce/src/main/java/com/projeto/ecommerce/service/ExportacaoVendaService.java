@@ -0,0 +1,132 @@
+package com.projeto.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.ItemVendaLinha;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ExportacaoVendaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacaoVendaService.class);
+
+    private static final String CABECALHO_CSV =
+            "venda_id,data_venda,valor_total,item_id,produto_id,produto_nome,quantidade,preco_unitario";
+
+    @Autowired
+    private VendaRepository repositorioVenda;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public enum Formato {
+        CSV, NDJSON;
+
+        public static Formato de(String valor) {
+            for (Formato formato : values()) {
+                if (formato.name().equalsIgnoreCase(valor)) {
+                    return formato;
+                }
+            }
+            throw new BadRequestException("Formato de exportação inválido: " + valor);
+        }
+    }
+
+    // Escreve os itens vendidos no período direto na saída, à medida que saem do cursor.
+    // Só um lote de fetch fica na memória; ao final registra a vazão em linhas/s.
+    @Transactional(readOnly = true)
+    public long exportar(LocalDate inicio, LocalDate fim, Formato formato, OutputStream saida) throws IOException {
+        long comeco = System.nanoTime();
+        long linhas;
+        try (Stream<ItemVendaLinha> stream = repositorioVenda.streamLinhasByPeriodo(
+                inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay())) {
+            Iterator<ItemVendaLinha> iterador = stream.iterator();
+            linhas = formato == Formato.CSV ? escreverCsv(iterador, saida) : escreverNdjson(iterador, saida);
+        }
+
+        double segundos = Math.max(System.nanoTime() - comeco, 1) / 1e9;
+        log.info("Exportação de vendas {} a {} ({}): {} linhas em {} s ({} linhas/s)",
+                inicio, fim, formato, linhas, String.format("%.3f", segundos), Math.round(linhas / segundos));
+        return linhas;
+    }
+
+    private long escreverCsv(Iterator<ItemVendaLinha> linhas, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write(CABECALHO_CSV);
+        escritor.write('\n');
+        long total = 0;
+        while (linhas.hasNext()) {
+            ItemVendaLinha linha = linhas.next();
+            escritor.write(String.valueOf(linha.getVendaId()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getDataVenda()));
+            escritor.write(',');
+            escritor.write(campoCsv(linha.getValorTotal()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getItemId()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getProdutoId()));
+            escritor.write(',');
+            escritor.write(campoCsv(linha.getProdutoNome()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getQuantidade()));
+            escritor.write(',');
+            escritor.write(campoCsv(linha.getPrecoUnitario()));
+            escritor.write('\n');
+            total++;
+        }
+        escritor.flush();
+        return total;
+    }
+
+    private long escreverNdjson(Iterator<ItemVendaLinha> linhas, OutputStream saida) throws IOException {
+        long total = 0;
+        try (SequenceWriter escritor = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(saida)) {
+            while (linhas.hasNext()) {
+                escritor.write(linhas.next());
+                total++;
+            }
+        }
+        if (total > 0) {
+            saida.write('\n');
+        }
+        saida.flush();
+        return total;
+    }
+
+    // Valor ausente vira campo vazio, não o texto "null"
+    private String campoCsv(Double valor) {
+        return valor == null ? "" : String.valueOf(valor);
+    }
+
+    // Aspas apenas quando o nome tem vírgula, aspas ou quebra de linha
+    private String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
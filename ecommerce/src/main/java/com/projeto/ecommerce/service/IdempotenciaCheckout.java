@@ -0,0 +1,296 @@
+package com.projeto.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ConflitoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.model.ChaveIdempotencia;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ChaveIdempotenciaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// POST /vendas com Idempotency-Key: a primeira requisição com uma chave executa a venda; as
+// repetições recebem a mesma venda (ou a mesma recusa) sem passar pelo estoque. Duplicatas
+// simultâneas esperam o resultado da que está em andamento em vez de executar de novo.
+// As chaves ficam em memória (limitadas por quantidade e TTL); com persistir=true cada chave é
+// reservada no banco antes da venda, recebe a venda na mesma transação que a grava e vale após
+// reinícios e entre instâncias.
+@Service
+public class IdempotenciaCheckout {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaCheckout.class);
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    @Autowired
+    private AgrupadorCheckout agrupadorCheckout;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ecommerce.idempotencia.max-chaves:100000}")
+    private long maxChaves;
+
+    @Value("${ecommerce.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${ecommerce.idempotencia.espera-maxima:30s}")
+    private Duration esperaMaxima;
+
+    @Value("${ecommerce.idempotencia.prazo-retomada:5m}")
+    private Duration prazoRetomada;
+
+    @Value("${ecommerce.idempotencia.persistir:false}")
+    private boolean persistir;
+
+    private Cache<String, Registro> registros;
+    private Counter novas;
+    private Counter repetidas;
+    private Counter divergentes;
+
+    @PostConstruct
+    public void iniciar() {
+        // Só as chaves concluídas contam para o limite: descartar uma venda em andamento deixaria
+        // uma duplicata simultânea executar a venda de novo
+        registros = Caffeine.newBuilder()
+                .maximumWeight(maxChaves)
+                .<String, Registro>weigher((chave, registro) -> registro.resultado.isDone() ? 1 : 0)
+                .expireAfterWrite(ttl)
+                .build();
+        novas = contador("nova");
+        repetidas = contador("repetida");
+        divergentes = contador("divergente");
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("checkout.idempotencia")
+                .description("POST /vendas com Idempotency-Key por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    public Resultado realizarVenda(String chave, List<ItemVenda> itensVenda) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BadRequestException("Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+        String impressao = impressao(itensVenda);
+        Registro novo = new Registro(impressao);
+        Registro existente = registros.asMap().putIfAbsent(chave, novo);
+        if (existente != null) {
+            verificarImpressao(chave, existente.impressao, impressao);
+            repetidas.increment();
+            return new Resultado(aguardar(chave, existente), true);
+        }
+
+        // Em microssegundos, a precisão da coluna: identifica a reserva desta requisição na conclusão
+        LocalDateTime reservadaEm = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (persistir) {
+            Venda anterior;
+            try {
+                anterior = reservar(chave, impressao, reservadaEm);
+            } catch (RuntimeException e) {
+                registros.asMap().remove(chave, novo);
+                novo.resultado.completeExceptionally(e);
+                throw e;
+            }
+            if (anterior != null) {
+                repetidas.increment();
+                concluir(chave, novo, anterior);
+                return new Resultado(anterior, true);
+            }
+        }
+
+        novas.increment();
+        Venda venda;
+        try {
+            venda = persistir
+                    ? agrupadorCheckout.realizarVenda(itensVenda, chave, reservadaEm)
+                    : agrupadorCheckout.realizarVenda(itensVenda);
+        } catch (BadRequestException | ResourceNotFoundException e) {
+            // Recusa definitiva (ex.: estoque insuficiente): as repetições nesta instância recebem a
+            // mesma resposta; a reserva no banco é liberada, já que nenhuma venda foi gravada
+            liberar(chave, reservadaEm);
+            novo.resultado.completeExceptionally(e);
+            registros.asMap().replace(chave, novo, novo);
+            throw e;
+        } catch (RuntimeException e) {
+            // Falha inesperada: a chave é liberada para que uma nova tentativa execute a venda
+            liberar(chave, reservadaEm);
+            registros.asMap().remove(chave, novo);
+            novo.resultado.completeExceptionally(e);
+            throw e;
+        }
+        concluir(chave, novo, venda);
+        return new Resultado(venda, false);
+    }
+
+    // Reserva a chave no banco antes de executar a venda, para que duas instâncias não vendam com
+    // a mesma chave. Devolve null se esta requisição ficou com a chave, ou a venda já criada com ela.
+    // A venda é gravada na chave junto com o commit da venda, então uma reserva sem venda é de uma
+    // venda não confirmada; passado o prazo de retomada ela é tratada como abandonada (instância que
+    // caiu) e assumida. Se a venda original ainda terminar, a conclusão dela encontra a reserva
+    // assumida e a venda é desfeita.
+    private Venda reservar(String chave, String impressao, LocalDateTime agora) {
+        if (inserirReserva(chave, impressao, agora)) {
+            return null;
+        }
+        ChaveIdempotencia gravada = chaveIdempotenciaRepository.findById(chave)
+                .orElseThrow(() -> emProcessamento(chave));
+        verificarImpressao(chave, gravada.getImpressao(), impressao);
+        if (gravada.getVendaId() != null) {
+            return produtoService.buscarVendaPorId(gravada.getVendaId());
+        }
+        if (chaveIdempotenciaRepository.retomar(chave, agora.minus(prazoRetomada), agora) == 1) {
+            log.warn("Idempotency-Key {} reservada sem venda há mais de {}: reserva assumida", chave, prazoRetomada);
+            return null;
+        }
+        // Venda em andamento em outra instância: o cliente repete depois (409 com Retry-After)
+        throw emProcessamento(chave);
+    }
+
+    // No H2 o ON CONFLICT vira um MERGE que não é atômico: a chave duplicada também indica que
+    // outra requisição reservou antes
+    private boolean inserirReserva(String chave, String impressao, LocalDateTime agora) {
+        try {
+            return chaveIdempotenciaRepository.reservar(chave, impressao, agora) == 1;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void liberar(String chave, LocalDateTime reservadaEm) {
+        if (!persistir) {
+            return;
+        }
+        try {
+            chaveIdempotenciaRepository.liberar(chave, reservadaEm);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao liberar a Idempotency-Key {}: {}", chave, e.getMessage());
+        }
+    }
+
+    // Substituído pelo mesmo registro para que o cache o pese de novo: em andamento ele pesa 0 e
+    // não é descartado pelo limite de chaves, concluído passa a contar
+    private void concluir(String chave, Registro registro, Venda venda) {
+        registro.resultado.complete(venda);
+        registros.asMap().replace(chave, registro, registro);
+    }
+
+    private ConflitoException emProcessamento(String chave) {
+        return new ConflitoException("A venda com a Idempotency-Key " + chave + " ainda está em processamento.");
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${ecommerce.idempotencia.intervalo-limpeza-ms:3600000}")
+    public void limpar() {
+        if (persistir) {
+            int excluidas = chaveIdempotenciaRepository.excluirAntesDe(LocalDateTime.now().minus(ttl));
+            if (excluidas > 0) {
+                log.info("{} Idempotency-Keys expiradas excluídas", excluidas);
+            }
+        }
+    }
+
+    private Venda aguardar(String chave, Registro registro) {
+        try {
+            return registro.resultado.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw emProcessamento(chave);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw emProcessamento(chave);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void verificarImpressao(String chave, String original, String recebida) {
+        if (!original.equals(recebida)) {
+            divergentes.increment();
+            throw new BadRequestException("Idempotency-Key " + chave + " já foi usada em uma venda com outros itens.");
+        }
+    }
+
+    // SHA-256 dos pares produto/quantidade em ordem de produto: a mesma venda com os itens em
+    // outra ordem tem a mesma impressão
+    private String impressao(List<ItemVenda> itensVenda) {
+        Map<String, Integer> quantidades = new TreeMap<>();
+        if (itensVenda != null) {
+            for (ItemVenda item : itensVenda) {
+                String produto = item.getProduto() != null ? String.valueOf(item.getProduto().getId()) : "null";
+                int quantidade = item.getQuantidade() != null ? item.getQuantidade() : 0;
+                quantidades.merge(produto, quantidade, Integer::sum);
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(quantidades.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Resultado {
+
+        private final Venda venda;
+        private final boolean repetida;
+
+        Resultado(Venda venda, boolean repetida) {
+            this.venda = venda;
+            this.repetida = repetida;
+        }
+
+        public Venda getVenda() {
+            return venda;
+        }
+
+        public boolean isRepetida() {
+            return repetida;
+        }
+    }
+
+    private static class Registro {
+        final String impressao;
+        final CompletableFuture<Venda> resultado = new CompletableFuture<>();
+
+        Registro(String impressao) {
+            this.impressao = impressao;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.projeto.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.response.ImportacaoResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Importação de catálogo em lote (JSON ou CSV). As linhas são lidas em streaming, validadas
+// e gravadas em transações de ecommerce.importacao.tamanho-lote produtos; produtos com
+// código já cadastrado são atualizados. Linhas inválidas entram no relatório sem abortar o lote.
+@Service
+public class ImportacaoProdutoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoProdutoService.class);
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ecommerce.importacao.tamanho-lote:2000}")
+    private int tamanhoLote;
+
+    @Value("${ecommerce.importacao.max-erros:1000}")
+    private int maxErros;
+
+    public enum Formato {
+        JSON, CSV;
+
+        // Pelo Content-Type da requisição ou pelo nome do arquivo enviado
+        public static Formato de(String tipoOuNomeArquivo) {
+            return tipoOuNomeArquivo != null && tipoOuNomeArquivo.toLowerCase(Locale.ROOT).contains("csv") ? CSV : JSON;
+        }
+    }
+
+    public ImportacaoResponse importar(InputStream entrada, Formato formato) throws IOException {
+        long comeco = System.nanoTime();
+        Importacao importacao = new Importacao();
+        if (formato == Formato.CSV) {
+            lerCsv(entrada, importacao);
+        } else {
+            lerJson(entrada, importacao);
+        }
+        gravar(importacao);
+
+        ImportacaoResponse resultado = importacao.resultado;
+        resultado.setRecebidos(resultado.getInseridos() + resultado.getAtualizados() + resultado.getRejeitados());
+        resultado.setDuracaoMs((System.nanoTime() - comeco) / 1_000_000);
+        double segundos = Math.max(resultado.getDuracaoMs(), 1) / 1000.0;
+        log.info("Importação de produtos ({}): {} linhas, {} inseridos, {} atualizados, {} rejeitados em {} ms ({} linhas/s)",
+                formato, resultado.getRecebidos(), resultado.getInseridos(), resultado.getAtualizados(),
+                resultado.getRejeitados(), resultado.getDuracaoMs(), Math.round(resultado.getRecebidos() / segundos));
+        return resultado;
+    }
+
+    // Array JSON (ou um objeto por linha). Um elemento com tipo inválido é rejeitado e a leitura
+    // continua no próximo; JSON malformado interrompe a leitura naquele ponto.
+    private void lerJson(InputStream entrada, Importacao importacao) throws IOException {
+        try (MappingIterator<Produto> produtos = objectMapper.readerFor(Produto.class).readValues(entrada)) {
+            long numero = 0;
+            while (true) {
+                try {
+                    if (!produtos.hasNextValue()) {
+                        break;
+                    }
+                    numero++;
+                    receber(importacao, numero, produtos.nextValue());
+                } catch (JsonMappingException e) {
+                    rejeitar(importacao, numero, null, "Valor inválido: " + e.getOriginalMessage());
+                } catch (JsonProcessingException e) {
+                    rejeitar(importacao, Math.max(numero, 1), null, "JSON malformado: " + e.getOriginalMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    // CSV com cabeçalho: codigo, nome, descricao, preco, quantidade_estoque, ativo (em qualquer ordem)
+    private void lerCsv(InputStream entrada, Importacao importacao) throws IOException {
+        LeitorCsv leitor = new LeitorCsv(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024));
+        List<String> cabecalho = leitor.proximo();
+        if (cabecalho == null) {
+            return;
+        }
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            colunas.put(nomeColuna(cabecalho.get(i)), i);
+        }
+        List<String> ausentes = List.of("nome", "descricao", "preco", "quantidadeestoque").stream()
+                .filter(coluna -> !colunas.containsKey(coluna))
+                .toList();
+        if (!ausentes.isEmpty()) {
+            throw new BadRequestException("Colunas obrigatórias ausentes no CSV: " + ausentes);
+        }
+
+        List<String> campos;
+        while ((campos = leitor.proximo()) != null) {
+            if (campos.size() == 1 && campos.get(0).isBlank()) {
+                continue;
+            }
+            long numero = leitor.linhaDoRegistro;
+            String codigo = campo(campos, colunas, "codigo");
+            try {
+                Produto produto = new Produto();
+                produto.setCodigo(codigo);
+                produto.setNome(campo(campos, colunas, "nome"));
+                produto.setDescricao(campo(campos, colunas, "descricao"));
+                String preco = campo(campos, colunas, "preco");
+                produto.setPreco(preco != null ? Double.valueOf(preco) : null);
+                String quantidade = campo(campos, colunas, "quantidadeestoque");
+                produto.setQuantidadeEstoque(quantidade != null ? Integer.valueOf(quantidade) : null);
+                produto.setAtivo(booleano(campo(campos, colunas, "ativo")));
+                receber(importacao, numero, produto);
+            } catch (IllegalArgumentException e) {
+                rejeitar(importacao, numero, codigo, "Valor inválido: " + e.getMessage());
+            }
+        }
+    }
+
+    private void receber(Importacao importacao, long numero, Produto produto) {
+        if (produto == null) {
+            rejeitar(importacao, numero, null, "Linha vazia");
+            return;
+        }
+        produto.setId(null);
+        if (produto.getCodigo() != null) {
+            produto.setCodigo(produto.getCodigo().isBlank() ? null : produto.getCodigo().trim());
+        }
+
+        String erro = validar(produto);
+        if (erro != null) {
+            rejeitar(importacao, numero, produto.getCodigo(), erro);
+            return;
+        }
+        importacao.lote.add(new Linha(numero, produto));
+        if (importacao.lote.size() >= tamanhoLote) {
+            gravar(importacao);
+        }
+    }
+
+    // Mesmas regras do cadastro individual (anotações de Produto e preço maior que zero)
+    private String validar(Produto produto) {
+        Set<ConstraintViolation<Produto>> violacoes = validator.validate(produto);
+        if (!violacoes.isEmpty()) {
+            return violacoes.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (produto.getPreco() <= 0) {
+            return "O preço do produto deve ser maior que zero.";
+        }
+        return null;
+    }
+
+    private void rejeitar(Importacao importacao, long numero, String codigo, String mensagem) {
+        ImportacaoResponse resultado = importacao.resultado;
+        resultado.setRejeitados(resultado.getRejeitados() + 1);
+        if (resultado.getErros().size() < maxErros) {
+            resultado.getErros().add(new ImportacaoResponse.ErroLinha(numero, codigo, mensagem));
+        }
+    }
+
+    // Grava o lote em uma transação. Se o banco recusar o lote (ex.: código gravado por outra
+    // requisição no meio tempo), cada linha é regravada sozinha para isolar as que falham.
+    private void gravar(Importacao importacao) {
+        if (importacao.lote.isEmpty()) {
+            return;
+        }
+        List<Linha> lote = new ArrayList<>(importacao.lote);
+        importacao.lote.clear();
+        try {
+            contabilizar(importacao, transactionTemplate.execute(status -> gravarNaTransacao(lote)));
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            log.debug("Lote de importação recusado, regravando linha a linha: {}", e.getMessage());
+            for (Linha linha : lote) {
+                try {
+                    contabilizar(importacao, transactionTemplate.execute(status -> gravarNaTransacao(List.of(linha))));
+                } catch (RuntimeException erro) {
+                    entityManager.clear();
+                    Throwable causa = NestedExceptionUtils.getMostSpecificCause(erro);
+                    rejeitar(importacao, linha.numero, linha.produto.getCodigo(), causa.getMessage());
+                }
+            }
+        }
+    }
+
+    private Contagem gravarNaTransacao(List<Linha> linhas) {
+        Set<String> codigos = linhas.stream()
+                .map(linha -> linha.produto.getCodigo())
+                .filter(codigo -> codigo != null)
+                .collect(Collectors.toSet());
+        Map<String, Produto> porCodigo = codigos.isEmpty() ? new HashMap<>() : produtoRepository.findByCodigoIn(codigos).stream()
+                .collect(Collectors.toMap(Produto::getCodigo, produto -> produto));
+
+        Contagem contagem = new Contagem();
+        Cache produtosCache = cacheManager.getCache("produtos");
+        for (Linha linha : linhas) {
+            Produto novo = linha.produto;
+            Produto existente = novo.getCodigo() != null ? porCodigo.get(novo.getCodigo()) : null;
+            if (existente != null) {
+                // Um código repetido no mesmo lote mantém o estoque de antes da primeira linha
+                contagem.atualizados.putIfAbsent(existente, existente.getQuantidadeEstoque());
+                existente.setNome(novo.getNome());
+                existente.setDescricao(novo.getDescricao());
+                existente.setPreco(novo.getPreco());
+                existente.setQuantidadeEstoque(novo.getQuantidadeEstoque());
+                if (novo.getAtivo() != null) {
+                    existente.setAtivo(novo.getAtivo());
+                }
+                produtosCache.evict(existente.getId());
+                eventPublisher.publishEvent(new ProdutoAlteradoEvent(existente));
+            } else {
+                if (novo.getAtivo() == null) {
+                    novo.setAtivo(true);
+                }
+                produtoRepository.save(novo);
+                eventPublisher.publishEvent(new ProdutoAlteradoEvent(novo));
+                if (novo.getCodigo() != null) {
+                    porCodigo.put(novo.getCodigo(), novo);
+                }
+                contagem.inseridos++;
+            }
+        }
+        // INSERTs e UPDATEs saem em lotes JDBC (hibernate.jdbc.batch_size); o clear libera o lote da memória
+        entityManager.flush();
+        entityManager.clear();
+        return contagem;
+    }
+
+    private void contabilizar(Importacao importacao, Contagem contagem) {
+        ImportacaoResponse resultado = importacao.resultado;
+        resultado.setInseridos(resultado.getInseridos() + contagem.inseridos);
+        resultado.setAtualizados(resultado.getAtualizados() + contagem.atualizados.size());
+        contagem.atualizados.forEach(ledgerEstoque::redefinir);
+    }
+
+    private String nomeColuna(String cabecalho) {
+        return cabecalho.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String campo(List<String> campos, Map<String, Integer> colunas, String coluna) {
+        Integer indice = colunas.get(coluna);
+        if (indice == null || indice >= campos.size() || campos.get(indice).isBlank()) {
+            return null;
+        }
+        return campos.get(indice).trim();
+    }
+
+    private Boolean booleano(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "sim" -> true;
+            case "false", "0", "nao", "não" -> false;
+            default -> throw new IllegalArgumentException("ativo = " + valor);
+        };
+    }
+
+    private static class Importacao {
+        final ImportacaoResponse resultado = new ImportacaoResponse();
+        final List<Linha> lote = new ArrayList<>();
+    }
+
+    private static class Linha {
+        final long numero;
+        final Produto produto;
+
+        Linha(long numero, Produto produto) {
+            this.numero = numero;
+            this.produto = produto;
+        }
+    }
+
+    private static class Contagem {
+        int inseridos;
+        // Produto atualizado -> estoque gravado antes da importação
+        final Map<Produto, Integer> atualizados = new LinkedHashMap<>();
+    }
+
+    // Leitor de CSV (RFC 4180): campos entre aspas podem conter vírgulas, aspas duplicadas e quebras de linha
+    private static class LeitorCsv {
+        private final Reader leitor;
+        private long linha = 1;
+        private long linhaDoRegistro;
+        private boolean fim;
+
+        LeitorCsv(Reader leitor) {
+            this.leitor = leitor;
+        }
+
+        List<String> proximo() throws IOException {
+            if (fim) {
+                return null;
+            }
+            linhaDoRegistro = linha;
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+            int c = leitor.read();
+            if (c == -1) {
+                fim = true;
+                return null;
+            }
+            while (true) {
+                if (c == -1) {
+                    fim = true;
+                    campos.add(campo.toString());
+                    return campos;
+                }
+                if (entreAspas) {
+                    if (c == '"') {
+                        int seguinte = leitor.read();
+                        if (seguinte == '"') {
+                            campo.append('"');
+                        } else {
+                            entreAspas = false;
+                            c = seguinte;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            linha++;
+                        }
+                        campo.append((char) c);
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '\n') {
+                    linha++;
+                    campos.add(campo.toString());
+                    return campos;
+                } else if (c != '\r') {
+                    campo.append((char) c);
+                }
+                c = leitor.read();
+            }
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
+import com.projeto.ecommerce.response.ProdutoBuscaResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// Índice invertido de nome e descrição dos produtos. Cada produto recebe um ordinal (posição nos
+// arrays por documento) e cada termo normalizado guarda a lista ordenada dos ordinais em que
+// aparece, com o campo (nome e/ou descrição). Consultas usam o lock de leitura; atualizações, o de
+// escrita. Só o nome, o preço e o status ficam no índice: os demais campos vêm de GET /produtos/{id}.
+class IndiceBusca {
+
+    static final byte CAMPO_NOME = 1;
+    static final byte CAMPO_DESCRICAO = 2;
+
+    private static final float PESO_EXATO = 3;
+    private static final float PESO_PREFIXO = 2;
+    private static final float PESO_ERRO = 1;
+    private static final int TAMANHO_MINIMO_ERRO = 4;
+    private static final int TAMANHO_MAXIMO_TERMO = 40;
+    private static final char[] ALFABETO = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "de", "da", "do", "das", "dos", "e", "em", "no", "na", "nos", "nas",
+            "um", "uma", "para", "por", "com", "ao", "aos", "the", "of", "and");
+
+    // Pontuação por ordinal reaproveitada entre consultas da mesma thread (evita alocar por consulta)
+    private static final ThreadLocal<Rascunho> RASCUNHO = ThreadLocal.withInitial(Rascunho::new);
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<String, Postagens> termos;
+    private final NavigableSet<String> termosOrdenados;
+    private final Map<Long, Integer> ordinais;
+
+    private long[] ids;
+    private String[] nomes;
+    private double[] precos;
+    private boolean[] ativos;
+    private String[][] termosDoc;
+    private byte[][] camposDoc;
+    private int tamanho;
+
+    private IndiceBusca(int capacidade, Map<String, Postagens> termos) {
+        this.termos = termos;
+        this.termosOrdenados = new TreeSet<>(termos.keySet());
+        this.ordinais = new HashMap<>(Math.max(16, capacidade * 4 / 3));
+        int inicial = Math.max(16, capacidade);
+        ids = new long[inicial];
+        nomes = new String[inicial];
+        precos = new double[inicial];
+        ativos = new boolean[inicial];
+        termosDoc = new String[inicial][];
+        camposDoc = new byte[inicial][];
+    }
+
+    // Construção em duas fases paralelas: (1) normalização e tokenização de cada produto;
+    // (2) cada partição monta as listas dos termos cujo hash cai nela, percorrendo os produtos
+    // em ordem de ordinal, de modo que as listas já saem ordenadas. As partições são então unidas.
+    static IndiceBusca construir(List<ProdutoAlteradoEvent> produtos, ForkJoinPool pool) {
+        int n = produtos.size();
+        String[][] termosDoc = new String[n][];
+        byte[][] camposDoc = new byte[n][];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            Map<String, Byte> termosProduto = termosDoProduto(produtos.get(i).getNome(), produtos.get(i).getDescricao());
+            termosDoc[i] = termosProduto.keySet().toArray(new String[0]);
+            camposDoc[i] = new byte[termosDoc[i].length];
+            int j = 0;
+            for (Byte campo : termosProduto.values()) {
+                camposDoc[i][j++] = campo;
+            }
+        })).join();
+
+        int particoes = pool.getParallelism() * 4;
+        List<Map<String, Postagens>> parciais = pool.submit(() -> IntStream.range(0, particoes).parallel()
+                .mapToObj(particao -> {
+                    Map<String, Postagens> parcial = new HashMap<>();
+                    for (int i = 0; i < n; i++) {
+                        for (int j = 0; j < termosDoc[i].length; j++) {
+                            String termo = termosDoc[i][j];
+                            if (Math.floorMod(termo.hashCode(), particoes) == particao) {
+                                parcial.computeIfAbsent(termo, t -> new Postagens()).anexar(i, camposDoc[i][j]);
+                            }
+                        }
+                    }
+                    return parcial;
+                }).toList()).join();
+
+        Map<String, Postagens> termos = new HashMap<>(Math.max(16, parciais.stream().mapToInt(Map::size).sum() * 4 / 3));
+        parciais.forEach(termos::putAll);
+
+        IndiceBusca indice = new IndiceBusca(n, termos);
+        for (int i = 0; i < n; i++) {
+            ProdutoAlteradoEvent produto = produtos.get(i);
+            indice.ordinais.put(produto.getId(), i);
+            indice.definirDocumento(i, produto, termosDoc[i], camposDoc[i]);
+        }
+        indice.tamanho = n;
+        return indice;
+    }
+
+    // Inclusão ou nova versão de um produto: o ordinal é mantido e as listas dos termos trocadas
+    void atualizar(ProdutoAlteradoEvent produto) {
+        Map<String, Byte> termosProduto = termosDoProduto(produto.getNome(), produto.getDescricao());
+        String[] novosTermos = termosProduto.keySet().toArray(new String[0]);
+        byte[] novosCampos = new byte[novosTermos.length];
+        int j = 0;
+        for (Byte campo : termosProduto.values()) {
+            novosCampos[j++] = campo;
+        }
+
+        trava.writeLock().lock();
+        try {
+            Integer ordinal = ordinais.get(produto.getId());
+            if (ordinal == null) {
+                ordinal = tamanho++;
+                garantirCapacidade(tamanho);
+                ordinais.put(produto.getId(), ordinal);
+            } else {
+                for (String termo : termosDoc[ordinal]) {
+                    Postagens postagens = termos.get(termo);
+                    postagens.remover(ordinal);
+                    if (postagens.tamanho == 0) {
+                        termos.remove(termo);
+                        termosOrdenados.remove(termo);
+                    }
+                }
+            }
+            for (int i = 0; i < novosTermos.length; i++) {
+                Postagens postagens = termos.get(novosTermos[i]);
+                if (postagens == null) {
+                    postagens = new Postagens();
+                    termos.put(novosTermos[i], postagens);
+                    termosOrdenados.add(novosTermos[i]);
+                }
+                postagens.inserir(ordinal, novosCampos[i]);
+            }
+            definirDocumento(ordinal, produto, novosTermos, novosCampos);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // Todas as palavras da consulta precisam aparecer (E). Cada palavra casa com o termo exato,
+    // com termos a uma edição de distância (palavras de 4+ letras) e, se for a última palavra,
+    // com os termos que começam por ela (até maxExpansoes termos).
+    List<ProdutoBuscaResponse> buscar(String consulta, boolean somenteAtivos, Double precoMin, Double precoMax,
+                                      int limite, int maxExpansoes) {
+        List<String> palavras = new ArrayList<>(new LinkedHashSet<>(tokens(consulta)));
+        if (palavras.isEmpty()) {
+            return List.of();
+        }
+
+        trava.readLock().lock();
+        try {
+            List<List<Candidato>> candidatos = new ArrayList<>(palavras.size());
+            for (int i = 0; i < palavras.size(); i++) {
+                List<Candidato> daPalavra = candidatos(palavras.get(i), i == palavras.size() - 1, maxExpansoes);
+                if (daPalavra.isEmpty()) {
+                    return List.of();
+                }
+                candidatos.add(daPalavra);
+            }
+            // A palavra mais seletiva define o conjunto inicial; as demais só filtram
+            candidatos.sort(Comparator.comparingLong(IndiceBusca::totalPostagens));
+
+            Rascunho rascunho = RASCUNHO.get();
+            rascunho.preparar(tamanho);
+            try {
+                for (Candidato candidato : candidatos.get(0)) {
+                    Postagens postagens = candidato.postagens;
+                    for (int k = 0; k < postagens.tamanho; k++) {
+                        int ordinal = postagens.docs[k];
+                        if (!aceito(ordinal, somenteAtivos, precoMin, precoMax)) {
+                            continue;
+                        }
+                        float pontos = candidato.peso * fator(postagens.campos[k]);
+                        if (rascunho.pontos[ordinal] == 0) {
+                            rascunho.tocar(ordinal);
+                        }
+                        rascunho.pontos[ordinal] = Math.max(rascunho.pontos[ordinal], pontos);
+                    }
+                }
+                for (int i = 1; i < candidatos.size() && rascunho.quantidade > 0; i++) {
+                    filtrar(rascunho, candidatos.get(i));
+                }
+                return melhores(rascunho, limite);
+            } finally {
+                rascunho.limpar();
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    int quantidadeProdutos() {
+        return tamanho;
+    }
+
+    int quantidadeTermos() {
+        return termos.size();
+    }
+
+    private List<Candidato> candidatos(String palavra, boolean ultima, int maxExpansoes) {
+        Map<String, Candidato> encontrados = new LinkedHashMap<>();
+        Postagens exato = termos.get(palavra);
+        if (exato != null) {
+            encontrados.put(palavra, new Candidato(exato, PESO_EXATO));
+        }
+        if (ultima) {
+            int expansoes = 0;
+            for (String termo : termosOrdenados.subSet(palavra, false, palavra + Character.MAX_VALUE, false)) {
+                if (expansoes++ == maxExpansoes) {
+                    break;
+                }
+                encontrados.putIfAbsent(termo, new Candidato(termos.get(termo), PESO_PREFIXO));
+            }
+        }
+        if (palavra.length() >= TAMANHO_MINIMO_ERRO) {
+            for (String variante : variantes(palavra)) {
+                Postagens postagens = termos.get(variante);
+                if (postagens != null) {
+                    encontrados.putIfAbsent(variante, new Candidato(postagens, PESO_ERRO));
+                }
+            }
+        }
+        return new ArrayList<>(encontrados.values());
+    }
+
+    // Mantém só os ordinais que também casam com a palavra, somando a melhor pontuação dela
+    private void filtrar(Rascunho rascunho, List<Candidato> candidatos) {
+        int mantidos = 0;
+        for (int t = 0; t < rascunho.quantidade; t++) {
+            int ordinal = rascunho.tocados[t];
+            float melhor = 0;
+            for (Candidato candidato : candidatos) {
+                int posicao = candidato.postagens.posicao(ordinal);
+                if (posicao >= 0) {
+                    melhor = Math.max(melhor, candidato.peso * fator(candidato.postagens.campos[posicao]));
+                }
+            }
+            if (melhor > 0) {
+                rascunho.pontos[ordinal] += melhor;
+                rascunho.tocados[mantidos++] = ordinal;
+            } else {
+                rascunho.pontos[ordinal] = 0;
+            }
+        }
+        rascunho.quantidade = mantidos;
+    }
+
+    private List<ProdutoBuscaResponse> melhores(Rascunho rascunho, int limite) {
+        // Maior pontuação primeiro; no empate, o menor ID
+        Comparator<Integer> ordem = Comparator.<Integer>comparingDouble(o -> rascunho.pontos[o])
+                .thenComparing(o -> -ids[o]);
+        PriorityQueue<Integer> fila = new PriorityQueue<>(limite + 1, ordem);
+        for (int t = 0; t < rascunho.quantidade; t++) {
+            fila.add(rascunho.tocados[t]);
+            if (fila.size() > limite) {
+                fila.poll();
+            }
+        }
+        ProdutoBuscaResponse[] resultado = new ProdutoBuscaResponse[fila.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            int ordinal = fila.poll();
+            resultado[i] = new ProdutoBuscaResponse(ids[ordinal], nomes[ordinal], precos[ordinal], ativos[ordinal],
+                    rascunho.pontos[ordinal]);
+        }
+        return Arrays.asList(resultado);
+    }
+
+    private boolean aceito(int ordinal, boolean somenteAtivos, Double precoMin, Double precoMax) {
+        return (!somenteAtivos || ativos[ordinal])
+                && (precoMin == null || precos[ordinal] >= precoMin)
+                && (precoMax == null || precos[ordinal] <= precoMax);
+    }
+
+    private void definirDocumento(int ordinal, ProdutoAlteradoEvent produto, String[] termosProduto, byte[] campos) {
+        ids[ordinal] = produto.getId();
+        nomes[ordinal] = produto.getNome();
+        precos[ordinal] = produto.getPreco() != null ? produto.getPreco() : 0;
+        ativos[ordinal] = produto.isAtivo();
+        termosDoc[ordinal] = termosProduto;
+        camposDoc[ordinal] = campos;
+    }
+
+    private void garantirCapacidade(int capacidade) {
+        if (capacidade <= ids.length) {
+            return;
+        }
+        int nova = Math.max(capacidade, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, nova);
+        nomes = Arrays.copyOf(nomes, nova);
+        precos = Arrays.copyOf(precos, nova);
+        ativos = Arrays.copyOf(ativos, nova);
+        termosDoc = Arrays.copyOf(termosDoc, nova);
+        camposDoc = Arrays.copyOf(camposDoc, nova);
+    }
+
+    // Termo encontrado no nome vale o dobro do encontrado só na descrição
+    private static float fator(byte campos) {
+        return (campos & CAMPO_NOME) != 0 ? 2 : 1;
+    }
+
+    private static long totalPostagens(List<Candidato> candidatos) {
+        long total = 0;
+        for (Candidato candidato : candidatos) {
+            total += candidato.postagens.tamanho;
+        }
+        return total;
+    }
+
+    static Map<String, Byte> termosDoProduto(String nome, String descricao) {
+        Map<String, Byte> termosProduto = new LinkedHashMap<>();
+        for (String termo : tokens(nome)) {
+            termosProduto.merge(termo, CAMPO_NOME, (a, b) -> (byte) (a | b));
+        }
+        for (String termo : tokens(descricao)) {
+            termosProduto.merge(termo, CAMPO_DESCRICAO, (a, b) -> (byte) (a | b));
+        }
+        return termosProduto;
+    }
+
+    // Minúsculas, sem acentos (decomposição NFD sem as marcas), separado em letras e dígitos,
+    // sem palavras vazias do português
+    static List<String> tokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return tokens;
+        }
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder atual = new StringBuilder();
+        for (int i = 0; i <= decomposto.length(); i++) {
+            char c = i < decomposto.length() ? decomposto.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                atual.append(Character.toLowerCase(c));
+            } else if (atual.length() > 0) {
+                String token = atual.length() > TAMANHO_MAXIMO_TERMO ? atual.substring(0, TAMANHO_MAXIMO_TERMO) : atual.toString();
+                if (!PALAVRAS_VAZIAS.contains(token)) {
+                    tokens.add(token);
+                }
+                atual.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    // Todas as palavras a uma edição de distância: remoção, troca de letras vizinhas, substituição e inserção
+    private static Set<String> variantes(String palavra) {
+        Set<String> variantes = new LinkedHashSet<>();
+        char[] letras = palavra.toCharArray();
+        for (int i = 0; i < letras.length; i++) {
+            variantes.add(palavra.substring(0, i) + palavra.substring(i + 1));
+        }
+        for (int i = 0; i < letras.length - 1; i++) {
+            char[] trocada = letras.clone();
+            trocada[i] = letras[i + 1];
+            trocada[i + 1] = letras[i];
+            variantes.add(new String(trocada));
+        }
+        for (int i = 0; i < letras.length; i++) {
+            char[] substituida = letras.clone();
+            for (char c : ALFABETO) {
+                if (c != letras[i]) {
+                    substituida[i] = c;
+                    variantes.add(new String(substituida));
+                }
+            }
+        }
+        for (int i = 0; i <= letras.length; i++) {
+            String inicio = palavra.substring(0, i);
+            String fim = palavra.substring(i);
+            for (char c : ALFABETO) {
+                variantes.add(inicio + c + fim);
+            }
+        }
+        variantes.remove(palavra);
+        return variantes;
+    }
+
+    private static class Candidato {
+        final Postagens postagens;
+        final float peso;
+
+        Candidato(Postagens postagens, float peso) {
+            this.postagens = postagens;
+            this.peso = peso;
+        }
+    }
+
+    // Lista ordenada de ordinais de um termo, com os campos em que ele aparece em cada produto
+    private static class Postagens {
+        int[] docs = new int[2];
+        byte[] campos = new byte[2];
+        int tamanho;
+
+        // Construção: ordinais chegam em ordem crescente
+        void anexar(int doc, byte campo) {
+            crescer();
+            docs[tamanho] = doc;
+            campos[tamanho++] = campo;
+        }
+
+        void inserir(int doc, byte campo) {
+            int posicao = posicao(doc);
+            if (posicao >= 0) {
+                campos[posicao] = campo;
+                return;
+            }
+            posicao = -posicao - 1;
+            crescer();
+            System.arraycopy(docs, posicao, docs, posicao + 1, tamanho - posicao);
+            System.arraycopy(campos, posicao, campos, posicao + 1, tamanho - posicao);
+            docs[posicao] = doc;
+            campos[posicao] = campo;
+            tamanho++;
+        }
+
+        void remover(int doc) {
+            int posicao = posicao(doc);
+            if (posicao >= 0) {
+                System.arraycopy(docs, posicao + 1, docs, posicao, tamanho - posicao - 1);
+                System.arraycopy(campos, posicao + 1, campos, posicao, tamanho - posicao - 1);
+                tamanho--;
+            }
+        }
+
+        int posicao(int doc) {
+            return Arrays.binarySearch(docs, 0, tamanho, doc);
+        }
+
+        private void crescer() {
+            if (tamanho == docs.length) {
+                docs = Arrays.copyOf(docs, tamanho * 2);
+                campos = Arrays.copyOf(campos, tamanho * 2);
+            }
+        }
+    }
+
+    private static class Rascunho {
+        float[] pontos = new float[0];
+        int[] tocados = new int[16];
+        int quantidade;
+
+        void preparar(int tamanho) {
+            if (pontos.length < tamanho) {
+                pontos = new float[tamanho];
+            }
+        }
+
+        void tocar(int ordinal) {
+            if (quantidade == tocados.length) {
+                tocados = Arrays.copyOf(tocados, quantidade * 2);
+            }
+            tocados[quantidade++] = ordinal;
+        }
+
+        // Zera só as posições usadas, sem percorrer o array inteiro
+        void limpar() {
+            for (int t = 0; t < quantidade; t++) {
+                pontos[tocados[t]] = 0;
+            }
+            quantidade = 0;
+        }
+    }
+}
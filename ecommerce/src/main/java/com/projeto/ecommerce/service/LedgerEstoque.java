@@ -0,0 +1,213 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Estoque em memória dos produtos "quentes" (ecommerce.estoque.ledger.produtos).
+// A baixa é feita com CAS por produto, sem ir ao banco; os deltas confirmados são
+// gravados em lote na tabela Produto a cada intervalo de flush.
+// Com o diário de vendas (DiarioVendas), os produtos vendidos por ele também passam a ser
+// geridos aqui: a venda é aceita contra o saldo em memória e gravada depois pelo aplicador.
+@Component
+public class LedgerEstoque {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEstoque.class);
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MetricasCheckout metricasCheckout;
+
+    @Value("${ecommerce.estoque.ledger.produtos:}")
+    private List<Long> produtosQuentes;
+
+    private final Map<Long, Saldo> saldos = new ConcurrentHashMap<>();
+
+    private volatile long ultimoFlush = System.currentTimeMillis();
+
+    @PostConstruct
+    public void carregar() {
+        // Registrados mesmo sem produtos quentes: o diário de vendas acrescenta produtos depois
+        Gauge.builder("estoque.ledger.deltas.pendentes", this, LedgerEstoque::deltasPendentes)
+                .description("Unidades baixadas no ledger ainda não gravadas na tabela Produto")
+                .register(meterRegistry);
+        TimeGauge.builder("estoque.ledger.atraso.flush", this, TimeUnit.MILLISECONDS,
+                        ledger -> System.currentTimeMillis() - ledger.ultimoFlush)
+                .description("Tempo desde o último flush bem-sucedido do ledger")
+                .register(meterRegistry);
+
+        if (produtosQuentes.isEmpty()) {
+            return;
+        }
+        gerenciar(produtosQuentes);
+        log.info("Ledger de estoque carregado com {} produtos", saldos.size());
+    }
+
+    // Passa a gerir os produtos ainda fora do ledger; IDs inexistentes são ignorados
+    public void gerenciar(Collection<Long> produtoIds) {
+        List<Long> novos = produtoIds.stream().filter(id -> !saldos.containsKey(id)).toList();
+        if (novos.isEmpty()) {
+            return;
+        }
+        // Transação de escrita: o saldo inicial vem do primário, nunca de uma réplica atrasada
+        List<Produto> produtos = transactionTemplate.execute(status -> produtoRepository.findAllById(novos));
+        for (Produto produto : produtos) {
+            saldos.putIfAbsent(produto.getId(), new Saldo(produto.getQuantidadeEstoque(), produto.getAtivo()));
+        }
+    }
+
+    public boolean gerencia(Long produtoId) {
+        return saldos.containsKey(produtoId);
+    }
+
+    public boolean ativo(Long produtoId) {
+        return saldos.get(produtoId).ativo;
+    }
+
+    // Baixa atômica sem bloqueio: falha se não houver quantidade suficiente
+    public boolean reservar(Long produtoId, int quantidade) {
+        AtomicInteger disponivel = saldos.get(produtoId).disponivel;
+        int repeticoes = 0;
+        try {
+            while (true) {
+                int atual = disponivel.get();
+                if (atual < quantidade) {
+                    return false;
+                }
+                if (disponivel.compareAndSet(atual, atual - quantidade)) {
+                    return true;
+                }
+                repeticoes++;
+            }
+        } finally {
+            if (repeticoes > 0) {
+                metricasCheckout.disputaLedger(produtoId, repeticoes);
+            }
+        }
+    }
+
+    // Venda desfeita: a quantidade volta a ficar disponível
+    public void devolver(Long produtoId, int quantidade) {
+        saldos.get(produtoId).disponivel.addAndGet(quantidade);
+    }
+
+    // Venda confirmada: a baixa passa a aguardar o próximo flush
+    public void confirmar(Long produtoId, int quantidade) {
+        saldos.get(produtoId).pendente.addAndGet(-quantidade);
+    }
+
+    // Unidades devolvidas por uma venda alterada: voltam ao saldo e seguem para o banco no próximo flush
+    public void estornar(Long produtoId, int quantidade) {
+        Saldo saldo = saldos.get(produtoId);
+        saldo.disponivel.addAndGet(quantidade);
+        saldo.pendente.addAndGet(quantidade);
+    }
+
+    // Venda aceita pelo diário: a baixa fica fora do flush e é gravada pelo aplicador do diário
+    public void registrarNoDiario(Long produtoId, int quantidade) {
+        saldos.get(produtoId).noDiario.addAndGet(quantidade);
+    }
+
+    // Baixa já gravada no banco pelo aplicador do diário
+    public void aplicadoDoDiario(Long produtoId, int quantidade) {
+        saldos.get(produtoId).noDiario.addAndGet(-quantidade);
+    }
+
+    // Recuperação do diário: a venda já foi aceita, então a baixa é refeita mesmo sem saldo
+    public void reservarDoDiario(Long produtoId, int quantidade) {
+        Saldo saldo = saldos.get(produtoId);
+        saldo.disponivel.addAndGet(-quantidade);
+        saldo.noDiario.addAndGet(quantidade);
+    }
+
+    public Integer disponivel(Long produtoId) {
+        Saldo saldo = saldos.get(produtoId);
+        return saldo != null ? saldo.disponivel.get() : null;
+    }
+
+    // Cadastro alterado no banco (atualizarProduto, inativarProduto, importação): o saldo em memória
+    // recebe só a diferença entre o estoque que estava gravado e o novo. Reservas ainda não
+    // confirmadas, baixas à espera do flush e vendas do diário continuam contadas, e o flush soma o
+    // seu delta ao valor novo do banco.
+    public void redefinir(Produto produto, int estoqueAnterior) {
+        Saldo saldo = saldos.get(produto.getId());
+        if (saldo != null) {
+            saldo.disponivel.addAndGet(produto.getQuantidadeEstoque() - estoqueAnterior);
+            saldo.ativo = produto.getAtivo();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ecommerce.estoque.ledger.intervalo-flush-ms:500}")
+    public void flush() {
+        if (saldos.isEmpty()) {
+            ultimoFlush = System.currentTimeMillis();
+            return;
+        }
+        Map<Long, Integer> lote = new HashMap<>();
+        saldos.forEach((id, saldo) -> {
+            int delta = saldo.pendente.getAndSet(0);
+            if (delta != 0) {
+                lote.put(id, delta);
+            }
+        });
+        try {
+            if (!lote.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        lote.forEach(produtoRepository::ajustarEstoque));
+            }
+            ultimoFlush = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            // Devolve os deltas para a próxima tentativa
+            lote.forEach((id, delta) -> saldos.get(id).pendente.addAndGet(delta));
+            log.warn("Falha ao gravar o ledger de estoque: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        flush();
+    }
+
+    private double deltasPendentes() {
+        return saldos.values().stream().mapToInt(saldo -> Math.abs(saldo.pendente.get())).sum();
+    }
+
+    private static class Saldo {
+        final AtomicInteger disponivel;
+        final AtomicInteger pendente = new AtomicInteger();
+        final AtomicInteger noDiario = new AtomicInteger();
+        volatile boolean ativo;
+
+        Saldo(int disponivel, boolean ativo) {
+            this.disponivel = new AtomicInteger(disponivel);
+            this.ativo = ativo;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.event.VendaRegistradaEvent;
+import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.ItemVendaLinha;
+import com.projeto.ecommerce.response.MaisVendidosResponse;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Mais vendidos (em unidades) desde sempre e nas últimas janelas de tempo, mantidos a cada venda
+// confirmada em resumos ResumoMaisVendidos de memória limitada. As vendas anteriores ao "corte"
+// são lidas de ItemVenda na reconstrução (ao subir a aplicação ou sob demanda) para resumos
+// separados; as posteriores são registradas ao vivo. As consultas mesclam os dois lados.
+@Service
+public class MaisVendidosService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaisVendidosService.class);
+
+    private static final LocalDateTime INICIO_HISTORICO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Erro máximo de cada contagem: total de unidades / capacidade
+    @Value("${ecommerce.mais-vendidos.capacidade:1000}")
+    private int capacidade;
+
+    @Value("${ecommerce.mais-vendidos.intervalo-janela:1m}")
+    private Duration intervaloJanela;
+
+    @Value("${ecommerce.mais-vendidos.janelas:60}")
+    private int janelas;
+
+    @Value("${ecommerce.mais-vendidos.reconstruir-ao-iniciar:true}")
+    private boolean reconstruirAoIniciar;
+
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    private volatile Estado estado;
+
+    @PostConstruct
+    public void iniciar() {
+        estado = new Estado(Long.MIN_VALUE, new ResumoMaisVendidos(capacidade), novoAnel());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoIniciar() {
+        if (reconstruirAoIniciar) {
+            reconstruirEmSegundoPlano();
+        }
+    }
+
+    // Depois do commit de qualquer venda gravada, alterada ou excluída (VendaService.registrarNoResumo).
+    // A retirada só desconta produtos que ainda têm contador; vendas anteriores ao corte estão no
+    // histórico, que não é descontado até a próxima reconstrução.
+    @TransactionalEventListener
+    public void aoRegistrarVenda(VendaRegistradaEvent evento) {
+        Estado atual = estado;
+        long instante = epochMilli(evento.getDataVenda());
+        if (instante < atual.corte) {
+            return;
+        }
+        evento.getUnidadesPorProduto().forEach((produtoId, unidades) -> {
+            long quantidade = evento.getSinal() * unidades;
+            atual.aoVivo.registrar(produtoId, quantidade);
+            atual.anelAoVivo.registrar(instante, produtoId, quantidade);
+        });
+    }
+
+    // Refaz os resumos a partir do histórico de vendas. Devolve false se já houver uma reconstrução em curso.
+    public boolean reconstruirEmSegundoPlano() {
+        if (!reconstruindo.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread reconstrucao = new Thread(this::reconstruir, "mais-vendidos-reconstrucao");
+        reconstrucao.setDaemon(true);
+        reconstrucao.start();
+        return true;
+    }
+
+    private void reconstruir() {
+        try {
+            long inicio = System.nanoTime();
+            LocalDateTime corte = LocalDateTime.now();
+            long corteMs = epochMilli(corte);
+            // A partir daqui as vendas ao vivo só contam se forem posteriores ao corte
+            Estado novo = new Estado(corteMs, new ResumoMaisVendidos(capacidade), novoAnel());
+            estado = novo;
+
+            ResumoMaisVendidos historico = new ResumoMaisVendidos(capacidade);
+            Anel anelHistorico = novoAnel();
+            long linhas = transactionTemplate.execute(status -> {
+                long lidas = 0;
+                try (Stream<ItemVendaLinha> stream = vendaRepository.streamLinhasByPeriodo(INICIO_HISTORICO, corte)) {
+                    Iterator<ItemVendaLinha> iterador = stream.iterator();
+                    while (iterador.hasNext()) {
+                        ItemVendaLinha linha = iterador.next();
+                        historico.registrar(linha.getProdutoId(), linha.getQuantidade());
+                        anelHistorico.registrar(epochMilli(linha.getDataVenda()), linha.getProdutoId(), linha.getQuantidade());
+                        lidas++;
+                    }
+                }
+                return lidas;
+            });
+            novo.historico = historico;
+            novo.anelHistorico = anelHistorico;
+            log.info("Mais vendidos reconstruídos com {} itens de venda em {} ms", linhas,
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconstruir os mais vendidos", e);
+        } finally {
+            reconstruindo.set(false);
+        }
+    }
+
+    // Top "limite" desde sempre (minutos nulo) ou nos últimos "minutos", com a precisão do intervalo da janela
+    public MaisVendidosResponse maisVendidos(int limite, Integer minutos) {
+        if (limite < 1 || limite > capacidade) {
+            throw new BadRequestException("O limite deve estar entre 1 e " + capacidade + ".");
+        }
+        Estado atual = estado;
+        List<ResumoMaisVendidos> resumos = new ArrayList<>();
+        if (minutos == null) {
+            resumos.add(atual.aoVivo);
+            if (atual.historico != null) {
+                resumos.add(atual.historico);
+            }
+        } else {
+            long maximo = intervaloJanela.multipliedBy(janelas).toMinutes();
+            if (minutos < 1 || minutos > maximo) {
+                throw new BadRequestException("A janela deve estar entre 1 e " + maximo + " minutos.");
+            }
+            long agora = System.currentTimeMillis();
+            long desde = agora - Duration.ofMinutes(minutos).toMillis();
+            resumos.addAll(atual.anelAoVivo.resumos(desde, agora));
+            if (atual.anelHistorico != null) {
+                resumos.addAll(atual.anelHistorico.resumos(desde, agora));
+            }
+        }
+        ResumoMaisVendidos resumo = resumos.size() == 1 ? resumos.get(0) : ResumoMaisVendidos.mesclar(resumos, capacidade);
+
+        List<MaisVendidosResponse.Item> itens = new ArrayList<>();
+        for (ResumoMaisVendidos.Contador contador : resumo.maiores(limite)) {
+            itens.add(new MaisVendidosResponse.Item(contador.getProdutoId(), nome(contador.getProdutoId()),
+                    contador.getContagem(), contador.getErro()));
+        }
+        return new MaisVendidosResponse(minutos, resumo.getTotal(), capacidade, resumo.erroMaximo(),
+                atual.historico == null, itens);
+    }
+
+    private String nome(long produtoId) {
+        try {
+            return produtoService.buscarProdutoPorId(produtoId).getNome();
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    private Anel novoAnel() {
+        return new Anel(janelas, intervaloJanela.toMillis(), capacidade);
+    }
+
+    private static long epochMilli(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static class Estado {
+        final long corte;
+        final ResumoMaisVendidos aoVivo;
+        final Anel anelAoVivo;
+        // Nulos enquanto a reconstrução não termina
+        volatile ResumoMaisVendidos historico;
+        volatile Anel anelHistorico;
+
+        Estado(long corte, ResumoMaisVendidos aoVivo, Anel anelAoVivo) {
+            this.corte = corte;
+            this.aoVivo = aoVivo;
+            this.anelAoVivo = anelAoVivo;
+        }
+    }
+
+    // Um resumo por intervalo de tempo, em um anel de "janelas" posições reaproveitadas
+    private static class Anel {
+        private final long intervaloMs;
+        private final int capacidade;
+        private final long[] periodos;
+        private final ResumoMaisVendidos[] resumos;
+
+        Anel(int janelas, long intervaloMs, int capacidade) {
+            this.intervaloMs = intervaloMs;
+            this.capacidade = capacidade;
+            this.periodos = new long[janelas];
+            this.resumos = new ResumoMaisVendidos[janelas];
+            Arrays.fill(periodos, -1);
+        }
+
+        void registrar(long instante, long produtoId, long quantidade) {
+            long periodo = instante / intervaloMs;
+            int posicao = (int) (periodo % periodos.length);
+            ResumoMaisVendidos resumo;
+            synchronized (this) {
+                if (periodos[posicao] != periodo) {
+                    // Período mais antigo que o guardado na posição: fora do anel. Uma retirada
+                    // não abre janela nova
+                    if (periodos[posicao] > periodo || quantidade < 0) {
+                        return;
+                    }
+                    periodos[posicao] = periodo;
+                    resumos[posicao] = new ResumoMaisVendidos(capacidade);
+                }
+                resumo = resumos[posicao];
+            }
+            resumo.registrar(produtoId, quantidade);
+        }
+
+        synchronized List<ResumoMaisVendidos> resumos(long desde, long ate) {
+            List<ResumoMaisVendidos> encontrados = new ArrayList<>();
+            for (long periodo = desde / intervaloMs + 1; periodo <= ate / intervaloMs; periodo++) {
+                int posicao = (int) (periodo % periodos.length);
+                if (periodos[posicao] == periodo) {
+                    encontrados.add(resumos[posicao]);
+                }
+            }
+            return encontrados;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.projeto.ecommerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// Mantém criadas as partições mensais de venda e item_venda do mês atual até meses-adiante meses
+// à frente, pela função criar_particoes_venda (db/migration/V2). Só existe quando o esquema é
+// gerenciado pelas migrações (PostgreSQL); no perfil local o H2 usa tabelas comuns.
+@Component
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true", matchIfMissing = true)
+public class ManutencaoParticoes {
+
+    private static final Logger log = LoggerFactory.getLogger(ManutencaoParticoes.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ecommerce.vendas.particoes.meses-adiante:3}")
+    private int mesesAdiante;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ecommerce.vendas.particoes.cron:0 0 3 * * *}")
+    public void criarParticoes() {
+        LocalDate inicio = LocalDate.now().withDayOfMonth(1);
+        LocalDate fim = inicio.plusMonths(mesesAdiante + 1L);
+        try {
+            Integer criadas = jdbcTemplate.queryForObject("SELECT criar_particoes_venda(?, ?)", Integer.class, inicio, fim);
+            if (criadas != null && criadas > 0) {
+                log.info("{} partições mensais de vendas criadas (até {})", criadas, fim.minusMonths(1));
+            }
+        } catch (DataAccessException e) {
+            // Ex.: linhas do mês na partição padrão, ou outra instância criando a mesma partição;
+            // as vendas continuam sendo gravadas (na partição padrão) e a próxima execução tenta de novo
+            log.error("Falha ao criar as partições de vendas de {} a {}: {}", inicio, fim, e.getMessage());
+        }
+    }
+}
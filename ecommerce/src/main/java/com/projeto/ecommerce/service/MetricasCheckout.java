@@ -0,0 +1,150 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.exception.ProdutoInativoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.response.ContencaoProdutoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Resultado de cada checkout e disputa de estoque por produto. Os contadores são criados na
+// inicialização, então o registro no caminho do checkout é só um incremento (sem busca no registry).
+// A disputa por produto fica em um mapa limitado, fora do registry, para não criar uma série
+// de métricas por ID; o ranking é exposto em /actuator/contencao.
+@Component
+public class MetricasCheckout {
+
+    public enum Resultado {
+        SUCESSO, ESTOQUE_INSUFICIENTE, PRODUTO_INATIVO, PRODUTO_INEXISTENTE, INVALIDO, ERRO
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Um UPDATE de estoque mais lento que isto é contado como espera por lock da linha do produto
+    @Value("${ecommerce.metricas.contencao.limite-espera-ms:5}")
+    private long limiteEsperaMs;
+
+    @Value("${ecommerce.metricas.contencao.max-produtos:10000}")
+    private int maxProdutos;
+
+    private final Map<Resultado, Counter> resultados = new EnumMap<>(Resultado.class);
+    private final Map<Long, Contencao> porProduto = new ConcurrentHashMap<>();
+
+    private long limiteEsperaNanos;
+    private Counter disputasLedger;
+    private Counter disputasBanco;
+
+    @PostConstruct
+    public void iniciar() {
+        limiteEsperaNanos = TimeUnit.MILLISECONDS.toNanos(limiteEsperaMs);
+        for (Resultado resultado : Resultado.values()) {
+            resultados.put(resultado, Counter.builder("checkout.resultado")
+                    .description("Checkouts por resultado")
+                    .tag("resultado", resultado.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        disputasLedger = Counter.builder("estoque.disputas")
+                .description("Tentativas repetidas de baixa de estoque por disputa com outra venda")
+                .tag("origem", "ledger")
+                .register(meterRegistry);
+        disputasBanco = Counter.builder("estoque.disputas")
+                .description("Tentativas repetidas de baixa de estoque por disputa com outra venda")
+                .tag("origem", "banco")
+                .register(meterRegistry);
+    }
+
+    public void sucesso() {
+        resultados.get(Resultado.SUCESSO).increment();
+    }
+
+    public void falha(RuntimeException e) {
+        resultados.get(classificar(e)).increment();
+        if (e instanceof EstoqueInsuficienteException estoque) {
+            estoque.getProdutoIds().forEach(id -> {
+                Contencao contencao = contencao(id);
+                if (contencao != null) {
+                    contencao.semEstoque.increment();
+                }
+            });
+        }
+    }
+
+    // Falhas de compareAndSet no ledger: outra venda alterou o saldo entre a leitura e a troca
+    public void disputaLedger(Long produtoId, int repeticoes) {
+        disputasLedger.increment(repeticoes);
+        Contencao contencao = contencao(produtoId);
+        if (contencao != null) {
+            contencao.disputas.add(repeticoes);
+        }
+    }
+
+    // UPDATE condicional de estoque: acima do limite, a demora é atribuída à espera pelo lock da linha
+    public void baixaBanco(Long produtoId, long duracaoNanos) {
+        if (duracaoNanos < limiteEsperaNanos) {
+            return;
+        }
+        disputasBanco.increment();
+        Contencao contencao = contencao(produtoId);
+        if (contencao != null) {
+            contencao.disputas.increment();
+            contencao.esperaNanos.add(duracaoNanos);
+        }
+    }
+
+    public List<ContencaoProdutoResponse> maisDisputados(int limite) {
+        return porProduto.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, Contencao> e) -> e.getValue().disputas.sum())
+                        .thenComparingLong(e -> e.getValue().semEstoque.sum())
+                        .reversed())
+                .limit(limite)
+                .map(e -> new ContencaoProdutoResponse(e.getKey(), e.getValue().disputas.sum(),
+                        TimeUnit.NANOSECONDS.toMillis(e.getValue().esperaNanos.sum()), e.getValue().semEstoque.sum()))
+                .toList();
+    }
+
+    private Resultado classificar(RuntimeException e) {
+        if (e instanceof EstoqueInsuficienteException) {
+            return Resultado.ESTOQUE_INSUFICIENTE;
+        }
+        if (e instanceof ProdutoInativoException) {
+            return Resultado.PRODUTO_INATIVO;
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return Resultado.PRODUTO_INEXISTENTE;
+        }
+        if (e instanceof BadRequestException) {
+            return Resultado.INVALIDO;
+        }
+        return Resultado.ERRO;
+    }
+
+    // Produtos novos deixam de ser acompanhados quando o mapa atinge max-produtos
+    // (os contadores agregados continuam contando)
+    private Contencao contencao(Long produtoId) {
+        Contencao contencao = porProduto.get(produtoId);
+        if (contencao == null && porProduto.size() < maxProdutos) {
+            contencao = porProduto.computeIfAbsent(produtoId, id -> new Contencao());
+        }
+        return contencao;
+    }
+
+    private static class Contencao {
+        final LongAdder disputas = new LongAdder();
+        final LongAdder esperaNanos = new LongAdder();
+        final LongAdder semEstoque = new LongAdder();
+    }
+}
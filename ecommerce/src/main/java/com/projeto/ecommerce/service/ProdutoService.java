@@ -1,21 +1,43 @@
 package com.projeto.ecommerce.service;
 
+import com.projeto.ecommerce.event.ProdutoAlteradoEvent;
 import com.projeto.ecommerce.exception.BadRequestException;
 import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.exception.VersaoDesatualizadaException;
 import com.projeto.ecommerce.model.ItemVenda;
 import com.projeto.ecommerce.model.Produto;
 import com.projeto.ecommerce.model.Venda;
 import com.projeto.ecommerce.repository.ProdutoRepository;
 import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.VendaResumoResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProdutoService {
@@ -26,97 +48,192 @@ public class ProdutoService {
     @Autowired
     private VendaRepository vendaRepository;
 
-    @CacheEvict(value = "produtos", allEntries = true)
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private CatalogoAtivo catalogoAtivo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RepeticaoOtimista repeticaoOtimista;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final int TAMANHO_LOTE_LEITURA = 100;
+
+    @Value("${ecommerce.paginacao.tamanho-padrao:100}")
+    private int tamanhoPadraoPagina;
+
+    @Value("${ecommerce.paginacao.tamanho-maximo:1000}")
+    private int tamanhoMaximoPagina;
+
+    @CachePut(value = "produtos", key = "#result.id")
     public Produto criarProduto(Produto produto) {
         if (produto.getPreco() <= 0) {
             throw new BadRequestException("O preço do produto deve ser maior que zero.");
         }
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(salvo));
+        return salvo;
     }
 
-    @CacheEvict(value = "produtos", allEntries = true)
+    // Sem a versão lida (PUT sem If-Match) a alteração sobrescreve o cadastro e é repetida se outra
+    // alteração do mesmo produto for gravada entre a leitura e o commit.
+    @CachePut(value = "produtos", key = "#id")
     public Produto atualizarProduto(Long id, Produto produtoAtualizado) {
-        Optional<Produto> produtoExistente = produtoRepository.findById(id);
-        if (produtoExistente.isPresent()) {
-            Produto produto = produtoExistente.get();
+        return repeticaoOtimista.executar("atualizarProduto", () -> gravarAlteracao(id, produtoAtualizado, null, null));
+    }
+
+    // Com a versão e o estoque lidos pelo cliente (If-Match): 412 se o cadastro mudou desde a leitura,
+    // sem repetição. Vendas não mudam a versão; o estoque enviado vale como diferença sobre o lido,
+    // aplicada ao estoque atual, para não desfazer as baixas feitas no meio tempo.
+    @CachePut(value = "produtos", key = "#id")
+    public Produto atualizarProduto(Long id, Produto produtoAtualizado, long versaoLida, int estoqueLido) {
+        try {
+            return gravarAlteracao(id, produtoAtualizado, versaoLida, estoqueLido);
+        } catch (OptimisticLockingFailureException e) {
+            // Alterado entre a leitura e o commit
+            throw versaoDesatualizada(id, null);
+        }
+    }
+
+    // O ledger só é ajustado depois do commit, pela diferença entre o estoque anterior e o gravado
+    private Produto gravarAlteracao(Long id, Produto produtoAtualizado, Long versaoLida, Integer estoqueLido) {
+        int[] estoqueAnterior = new int[1];
+        Produto salvo = transactionTemplate.execute(status -> {
+            Produto produto = produtoRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + id));
+            if (versaoLida != null && !versaoLida.equals(produto.getVersao())) {
+                throw versaoDesatualizada(id, produto.getVersao());
+            }
+            estoqueAnterior[0] = produto.getQuantidadeEstoque();
+            int estoque = produtoAtualizado.getQuantidadeEstoque();
+            if (estoqueLido != null) {
+                estoque = produto.getQuantidadeEstoque() + estoque - estoqueLido;
+                if (estoque < 0) {
+                    throw new VersaoDesatualizadaException("Produto " + id + ": o estoque atual ("
+                            + produto.getQuantidadeEstoque() + ") não comporta a redução pedida sobre o estoque lido ("
+                            + estoqueLido + "). Leia o produto novamente antes de alterá-lo.");
+                }
+            }
             produto.setNome(produtoAtualizado.getNome());
             produto.setDescricao(produtoAtualizado.getDescricao());
             produto.setPreco(produtoAtualizado.getPreco());
-            produto.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
+            produto.setQuantidadeEstoque(estoque);
             produto.setAtivo(produtoAtualizado.getAtivo());
-            return produtoRepository.save(produto);
-        } else {
-            throw new ResourceNotFoundException("Produto não encontrado com ID: " + id);
-        }
+            Produto gravado = produtoRepository.save(produto);
+            eventPublisher.publishEvent(new ProdutoAlteradoEvent(gravado));
+            return gravado;
+        });
+        ledgerEstoque.redefinir(salvo, estoqueAnterior[0]);
+        return salvo;
+    }
+
+    private static VersaoDesatualizadaException versaoDesatualizada(Long id, Long versaoAtual) {
+        String atual = versaoAtual != null ? " (versão atual " + versaoAtual + ")" : "";
+        return new VersaoDesatualizadaException("Produto " + id + " alterado desde a leitura" + atual
+                + ". Leia o produto novamente antes de alterá-lo.");
     }
 
+    @CacheEvict(value = "produtos", key = "#id")
     public void inativarProduto(Long id) {
-        Optional<Produto> produtoExistente = produtoRepository.findById(id);
-        if (produtoExistente.isPresent()) {
-            Produto produto = produtoExistente.get();
-            produto.setAtivo(false);
-            produtoRepository.save(produto);
-        } else {
-            throw new ResourceNotFoundException("Produto não encontrado com ID: " + id);
-        }
+        repeticaoOtimista.executar("inativarProduto", () -> {
+            Produto salvo = transactionTemplate.execute(status -> {
+                Produto produto = produtoRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + id));
+                produto.setAtivo(false);
+                Produto gravado = produtoRepository.save(produto);
+                eventPublisher.publishEvent(new ProdutoAlteradoEvent(gravado));
+                return gravado;
+            });
+            // O estoque não muda: só o flag ativo do ledger
+            ledgerEstoque.redefinir(salvo, salvo.getQuantidadeEstoque());
+        });
     }
 
+    @Cacheable("produtos")
     public Produto buscarProdutoPorId(Long id) {
         return produtoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + id));
     }
 
+    // Servida da memória (CatalogoAtivo), sem consulta ao banco
     public List<Produto> listarProdutosAtivos() {
-        return produtoRepository.findAll().stream()
-                .filter(Produto::getAtivo)
-                .toList();
+        return catalogoAtivo.listar();
     }
 
-    @Cacheable("produtos")
-    public List<Produto> listarTodosProdutos() {
-        return produtoRepository.findAll();
+    // Página de produtos em ordem de ID, a partir do cursor "apos" (exclusivo)
+    @Transactional(readOnly = true)
+    public List<Produto> listarTodosProdutos(Long apos, Integer limite) {
+        return produtoRepository.findByIdGreaterThanOrderByIdAsc(cursor(apos), limitar(limite));
     }
 
-    @CacheEvict(value = "vendas", allEntries = true)
-    public Venda realizarVenda(List<ItemVenda> itensVenda) {
-        // Verificar se a lista de itensVenda não está vazia
-    if (itensVenda == null || itensVenda.isEmpty()) {
-        throw new BadRequestException("A venda deve ter pelo menos um item.");
+    // Entrega todos os produtos ao consumidor sem acumulá-los na memória
+    @Transactional(readOnly = true)
+    public void percorrerProdutos(Consumer<Produto> consumidor) {
+        try (Stream<Produto> produtos = produtoRepository.streamAll()) {
+            produtos.forEach(produto -> {
+                consumidor.accept(produto);
+                entityManager.detach(produto);
+            });
+        }
     }
 
-    // Criar a nova venda
-    Venda novaVenda = new Venda();
-    novaVenda.setDataVenda(LocalDateTime.now());
+    @Transactional
+    @CachePut(value = "vendas", key = "#result.id")
+    public Venda realizarVenda(List<ItemVenda> itensVenda) {
+        // Verificar se a lista de itensVenda não está vazia
+        if (itensVenda == null || itensVenda.isEmpty()) {
+            throw new BadRequestException("A venda deve ter pelo menos um item.");
+        }
 
-    // Atualizar o estoque dos produtos e associar itens à venda
-    double valorTotal = 0.0;
-    for (ItemVenda item : itensVenda) {
-        Produto produto = produtoRepository.findById(item.getProduto().getId())
-                                           .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + item.getProduto().getId()));
+        // Reservar o estoque de todos os itens de uma vez (falha se qualquer produto não tiver estoque)
+        Map<Long, Produto> produtos = estoqueService.reservar(itensVenda);
+        return gravarVenda(itensVenda, produtos);
+    }
 
-        if (!produto.getAtivo()) {
-            throw new BadRequestException("Produto inativo: " + produto.getId());
+    // Venda de um lote do checkout agrupado (AgrupadorCheckout), na transação do lote. Sem
+    // @Transactional de propósito: a recusa do pedido é conferida antes de qualquer gravação e
+    // não pode marcar a transação compartilhada como rollback-only.
+    @CachePut(value = "vendas", key = "#result.id")
+    public Venda realizarVendaNoLote(List<ItemVenda> itensVenda) {
+        if (itensVenda == null || itensVenda.isEmpty()) {
+            throw new BadRequestException("A venda deve ter pelo menos um item.");
         }
+        Map<Long, Produto> produtos = estoqueService.reservarConferido(estoqueService.agruparPorProduto(itensVenda));
+        return gravarVenda(itensVenda, produtos);
+    }
 
-        if (produto.getQuantidadeEstoque() < item.getQuantidade()) {
-            throw new BadRequestException("Estoque insuficiente para o produto: " + produto.getId());
+    private Venda gravarVenda(List<ItemVenda> itensVenda, Map<Long, Produto> produtos) {
+        // Criar a nova venda e associar os itens
+        Venda novaVenda = new Venda();
+        novaVenda.setDataVenda(LocalDateTime.now());
+        for (ItemVenda item : itensVenda) {
+            Produto produto = produtos.get(item.getProduto().getId());
+            item.setVenda(novaVenda);
+            item.setProduto(produto);
+            item.setPrecoUnitario(produto.getPreco());
         }
+        novaVenda.setItens(itensVenda); // Calcula o valor total
 
-        produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - item.getQuantidade());
-        produtoRepository.save(produto);
-
-        item.setVenda(novaVenda); // Associar item à venda
-        item.setProduto(produto); // Definir produto no item
-
-        valorTotal += produto.getPreco() * item.getQuantidade();
+        // Salvar a nova venda (os itens são gravados em cascata na mesma transação)
+        Venda vendaSalva = vendaRepository.save(novaVenda);
+        vendaService.registrarNoResumo(vendaSalva, 1);
+        return vendaSalva;
     }
-
-    novaVenda.setValorTotal(valorTotal);
-    novaVenda.setItens(itensVenda); // Associar todos os itens à venda
-
-    // Salvar a nova venda
-    return vendaRepository.save(novaVenda);
-}
     
 
     // @CacheEvict(value = "vendas", allEntries = true)
@@ -138,54 +255,151 @@ public class ProdutoService {
     // }
     // }
 
-    @CacheEvict(value = "vendas", allEntries = true)
+    // Cada tentativa roda em uma transação própria: o conflito de versão só aparece no commit
+    @CachePut(value = "vendas", key = "#id")
     public Venda atualizarVenda(Long id, List<ItemVenda> itensAtualizados) {
-        Optional<Venda> vendaExistente = vendaRepository.findById(id);
-        if (vendaExistente.isPresent()) {
-            Venda venda = vendaExistente.get();
-
-            // Validar e atualizar o estoque de cada produto
-            for (ItemVenda item : itensAtualizados) {
-                Optional<Produto> produtoOptional = produtoRepository.findById(item.getProduto().getId());
-                if (produtoOptional.isPresent()) {
-                    Produto produto = produtoOptional.get();
-                    if (produto.getAtivo() && produto.getQuantidadeEstoque() >= item.getQuantidade()) {
-                        produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - item.getQuantidade());
-                        produtoRepository.save(produto);
-                    } else {
-                        throw new BadRequestException(
-                                "Estoque insuficiente ou produto inativo para o produto ID: " + produto.getId());
-                    }
-                } else {
-                    throw new ResourceNotFoundException("Produto não encontrado com ID: " + item.getProduto().getId());
-                }
+        return repeticaoOtimista.executar("atualizarVenda",
+                () -> transactionTemplate.execute(status -> atualizarVendaNaTransacao(id, itensAtualizados)));
+    }
+
+    // Só a diferença entre os itens gravados e os novos mexe no estoque: produtos com mais unidades
+    // são reservados, com menos (ou removidos) são devolvidos. Itens do mesmo produto são
+    // atualizados no lugar, os que sobram são excluídos e só os de produtos novos são inseridos.
+    private Venda atualizarVendaNaTransacao(Long id, List<ItemVenda> itensAtualizados) {
+        Venda venda = vendaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Venda não encontrada com ID: " + id));
+        if (itensAtualizados == null || itensAtualizados.isEmpty()) {
+            throw new BadRequestException("A venda deve ter pelo menos um item.");
+        }
+        SortedMap<Long, Integer> novas = estoqueService.agruparPorProduto(itensAtualizados);
+        Map<Long, Deque<ItemVenda>> gravados = new HashMap<>();
+        Map<Long, Integer> antigas = new HashMap<>();
+        for (ItemVenda item : venda.getItens()) {
+            Long produtoId = item.getProduto().getId();
+            gravados.computeIfAbsent(produtoId, chave -> new ArrayDeque<>()).add(item);
+            antigas.merge(produtoId, item.getQuantidade(), Integer::sum);
+        }
+        vendaService.registrarNoResumo(venda, -1);
+
+        SortedMap<Long, Integer> aReservar = new TreeMap<>();
+        SortedMap<Long, Integer> aDevolver = new TreeMap<>();
+        novas.forEach((produtoId, quantidade) -> {
+            int diferenca = quantidade - antigas.getOrDefault(produtoId, 0);
+            if (diferenca > 0) {
+                aReservar.put(produtoId, diferenca);
+            } else if (diferenca < 0) {
+                aDevolver.put(produtoId, -diferenca);
+            }
+        });
+        antigas.forEach((produtoId, quantidade) -> {
+            if (!novas.containsKey(produtoId)) {
+                aDevolver.put(produtoId, quantidade);
             }
+        });
+        if (!aDevolver.isEmpty()) {
+            estoqueService.devolver(aDevolver);
+        }
+        if (!aReservar.isEmpty()) {
+            estoqueService.reservar(aReservar);
+        }
 
-            venda.setItens(itensAtualizados);
-            venda.setDataVenda(LocalDateTime.now());
-            return vendaRepository.save(venda);
-        } else {
-            throw new ResourceNotFoundException("Venda não encontrada com ID: " + id);
+        Map<Long, Produto> produtos = produtoRepository.findAllById(novas.keySet()).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        // O @PreUpdate do item só roda quando ele muda; a data é copiada em todos para que os itens
+        // mantidos sem alteração não fiquem com a data antiga (a exportação filtra por ela)
+        venda.setDataVenda(LocalDateTime.now());
+        List<ItemVenda> itens = new ArrayList<>(itensAtualizados.size());
+        double valorTotal = 0;
+        for (ItemVenda novo : itensAtualizados) {
+            Produto produto = produtos.get(novo.getProduto().getId());
+            Deque<ItemVenda> mesmoProduto = gravados.get(produto.getId());
+            ItemVenda item = mesmoProduto != null && !mesmoProduto.isEmpty() ? mesmoProduto.poll() : novo;
+            if (item == novo) {
+                item.setId(null);
+            }
+            item.setVenda(venda);
+            item.setProduto(produto);
+            item.setQuantidade(novo.getQuantidade());
+            item.setPrecoUnitario(produto.getPreco());
+            item.setDataVenda(venda.getDataVenda());
+            itens.add(item);
+            valorTotal += produto.getPreco() * item.getQuantidade();
         }
+        gravados.values().forEach(sobras -> sobras.forEach(entityManager::remove));
+        venda.getItens().clear();
+        venda.getItens().addAll(itens);
+        venda.setValorTotal(valorTotal);
+        Venda vendaSalva = vendaRepository.save(venda);
+        vendaService.registrarNoResumo(vendaSalva, 1);
+        return vendaSalva;
     }
 
-    @CacheEvict(value = "vendas", allEntries = true)
+    @Transactional
+    @CacheEvict(value = "vendas", key = "#id")
     public void excluirVenda(Long id) {
         Optional<Venda> vendaExistente = vendaRepository.findById(id);
         if (vendaExistente.isPresent()) {
-            vendaRepository.deleteById(id);
+            vendaService.registrarNoResumo(vendaExistente.get(), -1);
+            vendaRepository.delete(vendaExistente.get());
         } else {
             throw new ResourceNotFoundException("Venda não encontrada com ID: " + id);
         }
     }
 
+    @Cacheable("vendas")
     public Venda buscarVendaPorId(Long id) {
-        return vendaRepository.findById(id)
+        return vendaRepository.findComItensById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Venda não encontrada com ID: " + id));
     }
 
-    @Cacheable("vendas")
-    public List<Venda> listarVendas() {
-        return vendaRepository.findAll();
+    // Página de vendas em ordem de ID, a partir do cursor "apos" (exclusivo).
+    // Duas consultas por página: os IDs e depois as vendas com itens e produtos.
+    @Transactional(readOnly = true)
+    public List<Venda> listarVendas(Long apos, Integer limite) {
+        List<Long> ids = vendaRepository.findIdsApos(cursor(apos), limitar(limite));
+        return ids.isEmpty() ? List.of() : vendaRepository.findByIdInOrderByIdAsc(ids);
+    }
+
+    // Página de vendas sem os itens, lida por projeção (uma consulta, sem entidades)
+    @Transactional(readOnly = true)
+    public List<VendaResumoResponse> listarResumosVendas(Long apos, Integer limite) {
+        return vendaRepository.findResumosApos(cursor(apos), limitar(limite));
+    }
+
+    // Entrega todas as vendas ao consumidor sem acumulá-las na memória.
+    // As vendas são processadas em lotes para que os itens de cada lote sejam carregados
+    // em uma única consulta (hibernate.default_batch_fetch_size) antes de serem descartados.
+    @Transactional(readOnly = true)
+    public void percorrerVendas(Consumer<Venda> consumidor) {
+        List<Venda> lote = new ArrayList<>(TAMANHO_LOTE_LEITURA);
+        try (Stream<Venda> vendas = vendaRepository.streamAll()) {
+            vendas.forEach(venda -> {
+                lote.add(venda);
+                if (lote.size() == TAMANHO_LOTE_LEITURA) {
+                    entregarLote(lote, consumidor);
+                }
+            });
+        }
+        entregarLote(lote, consumidor);
+    }
+
+    private void entregarLote(List<Venda> lote, Consumer<Venda> consumidor) {
+        lote.forEach(consumidor);
+        lote.clear();
+        entityManager.clear();
+    }
+
+    private Long cursor(Long apos) {
+        return apos != null ? apos : 0L;
+    }
+
+    private Limit limitar(Integer limite) {
+        if (limite == null) {
+            return Limit.of(tamanhoPadraoPagina);
+        }
+        if (limite < 1) {
+            throw new BadRequestException("O limite da página deve ser pelo menos 1.");
+        }
+        return Limit.of(Math.min(limite, tamanhoMaximoPagina));
     }
 }
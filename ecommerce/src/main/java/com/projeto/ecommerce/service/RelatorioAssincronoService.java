@@ -0,0 +1,320 @@
+package com.projeto.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.ecommerce.exception.BadRequestException;
+import com.projeto.ecommerce.exception.ConflitoException;
+import com.projeto.ecommerce.exception.ResourceNotFoundException;
+import com.projeto.ecommerce.model.ResumoVendaDiario;
+import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.ItemVendaLinha;
+import com.projeto.ecommerce.response.ResumoProdutoResponse;
+import com.projeto.ecommerce.response.ResumoVendasResponse;
+import com.projeto.ecommerce.response.TrabalhoRelatorioResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Relatórios de períodos longos como trabalhos assíncronos: o pedido devolve um ID na hora e o
+// resumo é calculado das tabelas Venda/ItemVenda em segundo plano. O período é dividido ao meio
+// recursivamente (fork/join) até partições de dias-por-particao dias, lidas em paralelo, cada uma
+// em sua transação; os parciais são somados na volta. Um trabalho vale para o seu período até
+// expirar: pedidos repetidos, inclusive simultâneos, recebem o mesmo trabalho.
+@Service
+public class RelatorioAssincronoService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatorioAssincronoService.class);
+
+    public enum Estado {
+        EM_ANDAMENTO, CONCLUIDO, FALHOU
+    }
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Partições lidas ao mesmo tempo (e conexões ocupadas) por todos os trabalhos juntos
+    @Value("${ecommerce.relatorio.trabalhos.paralelismo:4}")
+    private int paralelismo;
+
+    @Value("${ecommerce.relatorio.trabalhos.dias-por-particao:7}")
+    private int diasPorParticao;
+
+    @Value("${ecommerce.relatorio.trabalhos.expiracao:10m}")
+    private Duration expiracao;
+
+    @Value("${ecommerce.relatorio.trabalhos.max-trabalhos:100}")
+    private int maxTrabalhos;
+
+    private ForkJoinPool pool;
+    private TransactionTemplate transacaoLeitura;
+    private Cache<String, Trabalho> porId;
+    private Cache<Periodo, Trabalho> porPeriodo;
+
+    @PostConstruct
+    public void iniciar() {
+        pool = new ForkJoinPool(paralelismo);
+        transacaoLeitura = new TransactionTemplate(transactionManager);
+        transacaoLeitura.setReadOnly(true);
+        porId = Caffeine.newBuilder().maximumSize(maxTrabalhos).expireAfterWrite(expiracao).build();
+        porPeriodo = Caffeine.newBuilder().maximumSize(maxTrabalhos).expireAfterWrite(expiracao).build();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pool.shutdownNow();
+    }
+
+    public TrabalhoRelatorioResponse submeter(LocalDate inicio, LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            throw new BadRequestException("A data final deve ser igual ou posterior à data inicial.");
+        }
+        Trabalho trabalho = porPeriodo.asMap().compute(new Periodo(inicio, fim), (periodo, existente) -> {
+            if (existente != null && existente.estado() != Estado.FALHOU) {
+                return existente;
+            }
+            Trabalho novo = new Trabalho(inicio, fim, contarParticoes(inicio, fim));
+            porId.put(novo.id, novo);
+            novo.resultado = CompletableFuture.supplyAsync(() -> new Particao(novo, inicio, fim).invoke(), pool)
+                    .thenApply(parcial -> parcial.resumo(inicio, fim));
+            novo.resultado.whenComplete((resumo, erro) -> concluir(novo, erro));
+            return novo;
+        });
+        return status(trabalho);
+    }
+
+    public TrabalhoRelatorioResponse consultar(String id) {
+        return status(buscar(id));
+    }
+
+    public ResumoVendasResponse resultado(String id) {
+        Trabalho trabalho = buscar(id);
+        if (!trabalho.resultado.isDone()) {
+            throw new ConflitoException("O relatório " + id + " ainda está em andamento ("
+                    + trabalho.particoesConcluidas.get() + " de " + trabalho.particoes + " partições).");
+        }
+        try {
+            return trabalho.resultado.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("O relatório " + id + " falhou: " + trabalho.erro, e);
+        }
+    }
+
+    private Trabalho buscar(String id) {
+        Trabalho trabalho = porId.getIfPresent(id);
+        if (trabalho == null) {
+            throw new ResourceNotFoundException("Relatório não encontrado com ID: " + id);
+        }
+        return trabalho;
+    }
+
+    private void concluir(Trabalho trabalho, Throwable erro) {
+        trabalho.concluidoEm = LocalDateTime.now();
+        if (erro != null) {
+            Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+            trabalho.erro = causa.getMessage();
+            log.warn("Relatório de {} a {} falhou: {}", trabalho.inicio, trabalho.fim, causa.getMessage());
+        } else {
+            log.info("Relatório de {} a {} concluído em {} ms ({} partições)", trabalho.inicio, trabalho.fim,
+                    Duration.between(trabalho.criadoEm, trabalho.concluidoEm).toMillis(), trabalho.particoes);
+        }
+    }
+
+    private int contarParticoes(LocalDate inicio, LocalDate fim) {
+        long dias = ChronoUnit.DAYS.between(inicio, fim) + 1;
+        if (dias <= diasPorParticao) {
+            return 1;
+        }
+        LocalDate meio = inicio.plusDays(dias / 2 - 1);
+        return contarParticoes(inicio, meio) + contarParticoes(meio.plusDays(1), fim);
+    }
+
+    private TrabalhoRelatorioResponse status(Trabalho trabalho) {
+        return new TrabalhoRelatorioResponse(trabalho.id, trabalho.inicio, trabalho.fim, trabalho.estado().name(),
+                trabalho.particoes, trabalho.particoesConcluidas.get(), trabalho.criadoEm, trabalho.concluidoEm,
+                trabalho.erro);
+    }
+
+    // Lê as vendas da partição (dias inclusivos) por cursor e acumula os totais por dia e por produto
+    private Parcial ler(LocalDate inicio, LocalDate fim) {
+        return transacaoLeitura.execute(status -> {
+            Parcial parcial = new Parcial();
+            try (Stream<ItemVendaLinha> linhas = vendaRepository.streamLinhasByPeriodo(
+                    inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay())) {
+                Iterator<ItemVendaLinha> iterador = linhas.iterator();
+                Long vendaAtual = null;
+                Map<Long, Boolean> produtosDaVenda = new HashMap<>();
+                while (iterador.hasNext()) {
+                    ItemVendaLinha linha = iterador.next();
+                    // Linhas em ordem de venda: a venda é contada uma vez por dia e uma vez por produto
+                    if (!linha.getVendaId().equals(vendaAtual)) {
+                        vendaAtual = linha.getVendaId();
+                        produtosDaVenda.clear();
+                        Total dia = parcial.dias.computeIfAbsent(linha.getDataVenda().toLocalDate(), d -> new Total());
+                        dia.vendas++;
+                        dia.receita += linha.getValorTotal() != null ? linha.getValorTotal() : 0.0;
+                    }
+                    Total dia = parcial.dias.get(linha.getDataVenda().toLocalDate());
+                    dia.unidades += linha.getQuantidade();
+
+                    Total produto = parcial.produtos.computeIfAbsent(linha.getProdutoId(), id -> new Total());
+                    if (produtosDaVenda.putIfAbsent(linha.getProdutoId(), Boolean.TRUE) == null) {
+                        produto.vendas++;
+                    }
+                    produto.receita += linha.getPrecoUnitario() * linha.getQuantidade();
+                    produto.unidades += linha.getQuantidade();
+                }
+            }
+            return parcial;
+        });
+    }
+
+    private class Particao extends RecursiveTask<Parcial> {
+
+        private final Trabalho trabalho;
+        private final LocalDate inicio;
+        private final LocalDate fim;
+
+        Particao(Trabalho trabalho, LocalDate inicio, LocalDate fim) {
+            this.trabalho = trabalho;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected Parcial compute() {
+            long dias = ChronoUnit.DAYS.between(inicio, fim) + 1;
+            if (dias <= diasPorParticao) {
+                Parcial parcial = ler(inicio, fim);
+                trabalho.particoesConcluidas.incrementAndGet();
+                return parcial;
+            }
+            LocalDate meio = inicio.plusDays(dias / 2 - 1);
+            Particao esquerda = new Particao(trabalho, inicio, meio);
+            esquerda.fork();
+            Parcial direita = new Particao(trabalho, meio.plusDays(1), fim).compute();
+            return esquerda.join().somar(direita);
+        }
+    }
+
+    private static class Total {
+        long vendas;
+        double receita;
+        long unidades;
+
+        void somar(Total outro) {
+            vendas += outro.vendas;
+            receita += outro.receita;
+            unidades += outro.unidades;
+        }
+    }
+
+    private static class Parcial {
+        final Map<LocalDate, Total> dias = new TreeMap<>();
+        final Map<Long, Total> produtos = new HashMap<>();
+
+        // Partições não se sobrepõem em dias, mas um produto aparece em várias
+        Parcial somar(Parcial outro) {
+            outro.dias.forEach((dia, total) -> dias.merge(dia, total, (a, b) -> {
+                a.somar(b);
+                return a;
+            }));
+            outro.produtos.forEach((id, total) -> produtos.merge(id, total, (a, b) -> {
+                a.somar(b);
+                return a;
+            }));
+            return this;
+        }
+
+        // Mesmo formato de GET /vendas/relatorio/resumo; produtos por receita decrescente
+        ResumoVendasResponse resumo(LocalDate inicio, LocalDate fim) {
+            List<ResumoVendaDiario> resumoDias = new ArrayList<>(dias.size());
+            dias.forEach((dia, total) -> {
+                ResumoVendaDiario resumoDia = new ResumoVendaDiario();
+                resumoDia.setDia(dia);
+                resumoDia.setQuantidadeVendas(total.vendas);
+                resumoDia.setReceita(total.receita);
+                resumoDia.setUnidades(total.unidades);
+                resumoDias.add(resumoDia);
+            });
+            List<ResumoProdutoResponse> resumoProdutos = new ArrayList<>(produtos.size());
+            produtos.forEach((id, total) -> resumoProdutos.add(
+                    new ResumoProdutoResponse(id, total.vendas, total.receita, total.unidades)));
+            resumoProdutos.sort(Comparator.comparing(ResumoProdutoResponse::getReceita).reversed());
+            return new ResumoVendasResponse(inicio, fim, resumoDias, resumoProdutos);
+        }
+    }
+
+    private static class Trabalho {
+        final String id = UUID.randomUUID().toString();
+        final LocalDate inicio;
+        final LocalDate fim;
+        final int particoes;
+        final AtomicInteger particoesConcluidas = new AtomicInteger();
+        final LocalDateTime criadoEm = LocalDateTime.now();
+        volatile LocalDateTime concluidoEm;
+        volatile String erro;
+        CompletableFuture<ResumoVendasResponse> resultado;
+
+        Trabalho(LocalDate inicio, LocalDate fim, int particoes) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.particoes = particoes;
+        }
+
+        Estado estado() {
+            if (!resultado.isDone()) {
+                return Estado.EM_ANDAMENTO;
+            }
+            return resultado.isCompletedExceptionally() ? Estado.FALHOU : Estado.CONCLUIDO;
+        }
+    }
+
+    private static class Periodo {
+        final LocalDate inicio;
+        final LocalDate fim;
+
+        Periodo(LocalDate inicio, LocalDate fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Periodo outro && inicio.equals(outro.inicio) && fim.equals(outro.fim);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(inicio, fim);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.ConflitoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Repete uma operação que falhou no lock otimista (@Version): outra transação alterou a mesma
+// entidade entre a leitura e a gravação, e a operação é refeita sobre o estado novo. A espera
+// entre as tentativas é sorteada entre zero e um teto que dobra a cada conflito, para que as
+// transações em disputa não voltem a colidir juntas. Deve envolver a transação inteira, nunca
+// ser chamada de dentro de uma. Esgotadas as tentativas, responde 409 (ConflitoException).
+@Component
+public class RepeticaoOtimista {
+
+    private static final Logger log = LoggerFactory.getLogger(RepeticaoOtimista.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ecommerce.concorrencia.tentativas:5}")
+    private int tentativas;
+
+    @Value("${ecommerce.concorrencia.espera-base-ms:5}")
+    private long esperaBaseMs;
+
+    @Value("${ecommerce.concorrencia.espera-maxima-ms:200}")
+    private long esperaMaximaMs;
+
+    public <T> T executar(String operacao, Supplier<T> acao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return acao.get();
+            } catch (OptimisticLockingFailureException e) {
+                boolean esgotada = tentativa >= tentativas;
+                conflitos(operacao, esgotada ? "esgotada" : "repetida").increment();
+                if (esgotada) {
+                    log.warn("Conflito de concorrência em {} após {} tentativas: {}", operacao, tentativa, e.getMessage());
+                    throw new ConflitoException("Registro alterado por outra operação ao mesmo tempo. Tente novamente.");
+                }
+                esperar(tentativa);
+            }
+        }
+    }
+
+    public void executar(String operacao, Runnable acao) {
+        executar(operacao, () -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    private void esperar(int tentativa) {
+        long teto = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(tentativa, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(teto + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflitoException("Interrompido aguardando nova tentativa.");
+        }
+    }
+
+    // O registry devolve o mesmo contador para o mesmo nome e tags
+    private Counter conflitos(String operacao, String resultado) {
+        return Counter.builder("concorrencia.conflitos")
+                .description("Conflitos de lock otimista, repetidos ou com as tentativas esgotadas")
+                .tag("operacao", operacao)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
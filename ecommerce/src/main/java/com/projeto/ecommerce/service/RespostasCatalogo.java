@@ -0,0 +1,163 @@
+package com.projeto.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.ecommerce.model.Produto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+// Listagens do catálogo (GET /produtos e /produtos/ativos) já serializadas em JSON e comprimidas
+// com gzip, guardadas por versão do catálogo (CatalogoAtivo.versao). Enquanto a versão não muda,
+// uma leitura repetida só copia bytes. O ETag é o hash do conteúdo, e não a versão: assim vale
+// entre instâncias e nunca associa um conteúdo antigo (ex.: lido de uma réplica atrasada) a uma
+// versão nova. Os bytes em gzip são outra representação e levam o sufixo "-gzip" no ETag forte.
+// A expiração limita quanto tempo um conteúdo assim pode ficar no cache.
+@Service
+public class RespostasCatalogo {
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private CatalogoAtivo catalogoAtivo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ecommerce.catalogo.respostas.peso-maximo:67108864}")
+    private long pesoMaximo;
+
+    @Value("${ecommerce.catalogo.respostas.expiracao:30s}")
+    private Duration expiracao;
+
+    private Cache<Chave, Corpo> corpos;
+
+    @PostConstruct
+    public void iniciar() {
+        corpos = Caffeine.newBuilder()
+                .maximumWeight(pesoMaximo)
+                .weigher((Chave chave, Corpo corpo) -> corpo.json.length + corpo.gzip.length)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, corpos, "catalogo.respostas");
+    }
+
+    public Corpo ativos() {
+        Chave chave = new Chave(catalogoAtivo.versao(), null, null);
+        Corpo corpo = corpos.getIfPresent(chave);
+        if (corpo == null) {
+            corpo = serializar(produtoService.listarProdutosAtivos());
+            corpos.put(chave, corpo);
+        }
+        return corpo;
+    }
+
+    // Fora do compute do Caffeine: a consulta ao banco não roda com o lock da entrada. Duas
+    // leituras simultâneas da mesma página ainda não cacheada serializam em dobro, sem prejuízo.
+    public Corpo pagina(Long apos, Integer limite) {
+        Chave chave = new Chave(catalogoAtivo.versao(), apos != null ? apos : 0L, limite);
+        Corpo corpo = corpos.getIfPresent(chave);
+        if (corpo == null) {
+            corpo = serializar(produtoService.listarTodosProdutos(apos, limite));
+            corpos.put(chave, corpo);
+        }
+        return corpo;
+    }
+
+    private Corpo serializar(List<Produto> produtos) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(produtos);
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+                gzip.write(json);
+            }
+            Long proximoCursor = produtos.isEmpty() ? null : produtos.get(produtos.size() - 1).getId();
+            return new Corpo(json, comprimido.toByteArray(), DigestUtils.md5DigestAsHex(json), proximoCursor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o catálogo", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Listagem de ativos: apos e limite nulos
+    private static class Chave {
+        final long versao;
+        final Long apos;
+        final Integer limite;
+
+        Chave(long versao, Long apos, Integer limite) {
+            this.versao = versao;
+            this.apos = apos;
+            this.limite = limite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave outra && versao == outra.versao
+                    && Objects.equals(apos, outra.apos) && Objects.equals(limite, outra.limite);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(versao, apos, limite);
+        }
+    }
+
+    public static class Corpo {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String etagGzip;
+        private final Long proximoCursor;
+
+        Corpo(byte[] json, byte[] gzip, String hash, Long proximoCursor) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = '"' + hash + '"';
+            this.etagGzip = '"' + hash + "-gzip" + '"';
+            this.proximoCursor = proximoCursor;
+        }
+
+        // Getters
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getEtagGzip() {
+            return etagGzip;
+        }
+
+        public Long getProximoCursor() {
+            return proximoCursor;
+        }
+    }
+}
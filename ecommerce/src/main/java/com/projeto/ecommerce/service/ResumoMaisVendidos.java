@@ -0,0 +1,161 @@
+package com.projeto.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Resumo "space-saving" das quantidades vendidas por produto, com memória limitada a
+// capacidade contadores. Um produto fora do resumo entra no lugar do menor contador, herdando a
+// sua contagem como erro. Para cada produto, contagem - erro <= vendido real <= contagem, e
+// erro <= total / capacidade: qualquer produto com mais de total / capacidade unidades está no resumo.
+// Resumos de janelas ou de instâncias diferentes podem ser mesclados sem perder essa garantia.
+public class ResumoMaisVendidos {
+
+    private static final Comparator<Contador> ORDEM = Comparator.<Contador>comparingLong(c -> c.contagem)
+            .thenComparingLong(c -> c.produtoId);
+
+    private final int capacidade;
+    private final Map<Long, Contador> contadores = new HashMap<>();
+    private final TreeSet<Contador> ordem = new TreeSet<>(ORDEM);
+    private long total;
+    // Quanto um produto fora do resumo pode ter vendido sem ocupar um contador (resumos mesclados)
+    private long piso;
+
+    public ResumoMaisVendidos(int capacidade) {
+        this.capacidade = capacidade;
+    }
+
+    // Quantidade negativa (venda alterada ou excluída) só desconta um produto que tem contador: fora
+    // do resumo a venda já não está contada separadamente
+    public synchronized void registrar(long produtoId, long quantidade) {
+        Contador contador = contadores.get(produtoId);
+        if (quantidade < 0 && contador == null) {
+            return;
+        }
+        total += quantidade;
+        if (contador != null) {
+            ordem.remove(contador);
+            contador.contagem += quantidade;
+            ordem.add(contador);
+            return;
+        }
+        long erro = piso;
+        if (contadores.size() == capacidade) {
+            Contador menor = ordem.pollFirst();
+            contadores.remove(menor.produtoId);
+            erro = menor.contagem;
+        }
+        contador = new Contador(produtoId, erro + quantidade, erro);
+        contadores.put(produtoId, contador);
+        ordem.add(contador);
+    }
+
+    // Os "limite" maiores contadores, do mais vendido para o menos vendido
+    public synchronized List<Contador> maiores(int limite) {
+        List<Contador> maiores = new ArrayList<>(Math.min(limite, contadores.size()));
+        for (Contador contador : ordem.descendingSet()) {
+            if (maiores.size() == limite) {
+                break;
+            }
+            maiores.add(contador.copia());
+        }
+        return maiores;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    // Erro máximo de qualquer contagem do resumo
+    public synchronized long erroMaximo() {
+        return contadores.size() < capacidade ? piso : ordem.first().contagem;
+    }
+
+    // Mescla de resumos: um produto ausente de um resumo cheio pode ter vendido até o menor
+    // contador dele, que entra na contagem e no erro. Ficam os capacidade maiores contadores.
+    public static ResumoMaisVendidos mesclar(List<ResumoMaisVendidos> resumos, int capacidade) {
+        List<List<Contador>> copias = new ArrayList<>(resumos.size());
+        long[] minimos = new long[resumos.size()];
+        long total = 0;
+        for (int i = 0; i < resumos.size(); i++) {
+            ResumoMaisVendidos resumo = resumos.get(i);
+            synchronized (resumo) {
+                copias.add(resumo.maiores(Integer.MAX_VALUE));
+                minimos[i] = resumo.erroMaximo();
+                total += resumo.total;
+            }
+        }
+
+        Map<Long, Contador> mesclados = new HashMap<>();
+        for (int i = 0; i < copias.size(); i++) {
+            for (Contador contador : copias.get(i)) {
+                mesclados.computeIfAbsent(contador.produtoId, id -> new Contador(id, 0, 0));
+            }
+        }
+        for (int i = 0; i < copias.size(); i++) {
+            Map<Long, Contador> doResumo = new HashMap<>();
+            copias.get(i).forEach(contador -> doResumo.put(contador.produtoId, contador));
+            for (Contador mesclado : mesclados.values()) {
+                Contador contador = doResumo.get(mesclado.produtoId);
+                if (contador != null) {
+                    mesclado.contagem += contador.contagem;
+                    mesclado.erro += contador.erro;
+                } else {
+                    mesclado.contagem += minimos[i];
+                    mesclado.erro += minimos[i];
+                }
+            }
+        }
+
+        ResumoMaisVendidos resultado = new ResumoMaisVendidos(capacidade);
+        mesclados.values().stream()
+                .sorted(ORDEM.reversed())
+                .limit(capacidade)
+                .forEach(contador -> {
+                    resultado.contadores.put(contador.produtoId, contador);
+                    resultado.ordem.add(contador);
+                });
+        resultado.total = total;
+        for (long minimo : minimos) {
+            resultado.piso += minimo;
+        }
+        return resultado;
+    }
+
+    public static class Contador {
+
+        private final long produtoId;
+        private long contagem;
+        private long erro;
+
+        Contador(long produtoId, long contagem, long erro) {
+            this.produtoId = produtoId;
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+
+        Contador copia() {
+            return new Contador(produtoId, contagem, erro);
+        }
+
+        // Getters
+        public long getProdutoId() {
+            return produtoId;
+        }
+
+        public long getContagem() {
+            return contagem;
+        }
+
+        public long getErro() {
+            return erro;
+        }
+    }
+}
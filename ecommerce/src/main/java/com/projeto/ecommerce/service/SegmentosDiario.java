@@ -0,0 +1,388 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Arquivos do diário de vendas: segmentos de tamanho fixo, mapeados em memória e escritos em
+// sequência. Cada registro é [tamanho][crc32c][lsn][dados]; o crc cobre lsn e dados. O arquivo
+// nasce zerado, então tamanho 0 marca o fim do que foi escrito e -1 a passagem para o próximo
+// segmento. O nome do segmento é o LSN do seu primeiro registro.
+// Gravar não torna o registro durável: sincronizar() força as páginas escritas para o disco,
+// de uma vez para todos os registros acumulados desde a última sincronização.
+class SegmentosDiario {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentosDiario.class);
+
+    private static final int CABECALHO = 16;
+    private static final int FIM_SEGMENTO = -1;
+    private static final int TAMANHO_ITEM = 20;
+    private static final String PREFIXO = "diario-";
+    private static final String SUFIXO = ".seg";
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition escrito = trava.newCondition();
+    private final Condition sincronizado = trava.newCondition();
+
+    // Segmentos completos, pelo primeiro LSN; removidos quando todos os registros foram aplicados
+    private final TreeMap<Long, Segmento> fechados = new TreeMap<>();
+    private Segmento atual;
+    private long ultimoLsn;
+    private volatile long lsnSincronizado;
+    private volatile IOException falha;
+
+    SegmentosDiario(Path diretorio, int tamanhoSegmento) {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+    }
+
+    // Uma venda aceita: itens na ordem do pedido, com o preço do momento da aceitação
+    static final class Entrada {
+        long lsn;
+        final LocalDateTime dataVenda;
+        final double valorTotal;
+        final long[] produtos;
+        final int[] quantidades;
+        final double[] precos;
+
+        Entrada(LocalDateTime dataVenda, double valorTotal, long[] produtos, int[] quantidades, double[] precos) {
+            this.dataVenda = dataVenda;
+            this.valorTotal = valorTotal;
+            this.produtos = produtos;
+            this.quantidades = quantidades;
+            this.precos = precos;
+        }
+    }
+
+    // Lê os segmentos existentes e devolve os registros posteriores a "aplicado", em ordem.
+    // O que vier depois do último registro íntegro do último segmento (escrita interrompida,
+    // nunca confirmada ao cliente) é zerado, para não ser confundido com registros futuros.
+    List<Entrada> abrir(long aplicado) throws IOException {
+        Files.createDirectories(diretorio);
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> lista = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            lista.forEach(arquivos::add);
+        }
+        arquivos.sort((a, b) -> Long.compare(primeiroLsn(a), primeiroLsn(b)));
+
+        List<Entrada> pendentes = new ArrayList<>();
+        ultimoLsn = aplicado;
+        for (int i = 0; i < arquivos.size(); i++) {
+            Path arquivo = arquivos.get(i);
+            boolean ultimo = i == arquivos.size() - 1;
+            Segmento segmento = mapear(arquivo, primeiroLsn(arquivo), (int) Files.size(arquivo));
+            long esperado = segmento.primeiroLsn;
+            MappedByteBuffer buffer = segmento.buffer;
+            int posicao = 0;
+            boolean completo = false;
+            while (posicao + CABECALHO <= buffer.limit()) {
+                int tamanho = buffer.getInt(posicao);
+                if (tamanho == FIM_SEGMENTO) {
+                    completo = true;
+                    break;
+                }
+                Entrada entrada = tamanho > 0 ? ler(buffer, posicao, tamanho, esperado) : null;
+                if (entrada == null) {
+                    break;
+                }
+                if (entrada.lsn > aplicado) {
+                    pendentes.add(entrada);
+                }
+                esperado++;
+                posicao += CABECALHO + tamanho;
+            }
+            segmento.ultimoLsn = esperado - 1;
+            segmento.posicao = posicao;
+            segmento.posicaoSincronizada = posicao;
+            ultimoLsn = Math.max(ultimoLsn, segmento.ultimoLsn);
+            if (completo) {
+                fechados.put(segmento.primeiroLsn, segmento);
+            } else if (ultimo) {
+                zerar(segmento.buffer, posicao);
+                atual = segmento;
+            } else {
+                // Um segmento só é trocado depois de sincronizado por inteiro: falha aqui não é
+                // escrita interrompida, e os segmentos seguintes podem ter vendas confirmadas
+                throw new IOException("Diário de vendas corrompido em " + arquivo + ", posição " + posicao);
+            }
+        }
+        if (atual != null && atual.ultimoLsn < ultimoLsn) {
+            // A posição aplicada está à frente do diário (ex.: diretório restaurado de uma cópia
+            // antiga): o segmento é fechado para que a numeração continue depois dela
+            atual.buffer.putInt(atual.posicao, FIM_SEGMENTO);
+            atual.buffer.force();
+            fechados.put(atual.primeiroLsn, atual);
+            atual = null;
+        }
+        if (atual == null) {
+            atual = criar(ultimoLsn + 1);
+        }
+        lsnSincronizado = ultimoLsn;
+        return pendentes;
+    }
+
+    // Grava a entrada no fim do segmento atual e define o seu LSN; ainda não é durável
+    void acrescentar(Entrada entrada) {
+        byte[] dados = codificar(entrada);
+        if (CABECALHO + dados.length + 4 > tamanhoSegmento) {
+            throw new BadRequestException("A venda tem itens demais para o diário de vendas.");
+        }
+        trava.lock();
+        try {
+            if (falha != null) {
+                throw new UncheckedIOException("Diário de vendas indisponível", falha);
+            }
+            if (atual.posicao + CABECALHO + dados.length + 4 > atual.buffer.limit()) {
+                rotacionar();
+            }
+            entrada.lsn = ++ultimoLsn;
+            CRC32C crc = new CRC32C();
+            crc.update(ByteBuffer.allocate(8).putLong(0, entrada.lsn));
+            crc.update(dados);
+            MappedByteBuffer buffer = atual.buffer;
+            int posicao = atual.posicao;
+            buffer.put(posicao + CABECALHO, dados);
+            buffer.putLong(posicao + 8, entrada.lsn);
+            buffer.putInt(posicao + 4, (int) crc.getValue());
+            buffer.putInt(posicao, dados.length);
+            atual.posicao = posicao + CABECALHO + dados.length;
+            atual.ultimoLsn = entrada.lsn;
+            escrito.signal();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao trocar o segmento do diário de vendas", e);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Espera até o registro estar no disco
+    void aguardar(long lsn) throws InterruptedException {
+        if (lsnSincronizado >= lsn) {
+            return;
+        }
+        trava.lock();
+        try {
+            while (lsnSincronizado < lsn) {
+                if (falha != null) {
+                    throw new UncheckedIOException("Falha ao sincronizar o diário de vendas", falha);
+                }
+                sincronizado.await();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Força para o disco tudo o que foi escrito desde a última chamada, esperando até espera-ms
+    // por novos registros. Todos os que aguardam um LSN já sincronizado são liberados.
+    boolean sincronizar(long esperaMs) throws InterruptedException {
+        Segmento segmento;
+        long alvo;
+        int de;
+        int ate;
+        trava.lock();
+        try {
+            if (ultimoLsn == lsnSincronizado && !escrito.await(esperaMs, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            if (ultimoLsn == lsnSincronizado) {
+                return false;
+            }
+            segmento = atual;
+            alvo = ultimoLsn;
+            de = segmento.posicaoSincronizada;
+            ate = segmento.posicao;
+        } finally {
+            trava.unlock();
+        }
+
+        // Fora da trava: as vendas seguintes continuam sendo escritas durante o fsync
+        boolean gravado = true;
+        try {
+            segmento.buffer.force(de, ate - de);
+        } catch (UncheckedIOException e) {
+            gravado = false;
+            falha = e.getCause();
+            log.error("Falha ao sincronizar o diário de vendas: {}", e.getMessage());
+        }
+
+        trava.lock();
+        try {
+            if (gravado) {
+                segmento.posicaoSincronizada = Math.max(segmento.posicaoSincronizada, ate);
+                lsnSincronizado = Math.max(lsnSincronizado, alvo);
+            }
+            sincronizado.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        return true;
+    }
+
+    // Remove os segmentos completos cujos registros já foram todos aplicados. Devolve quantos.
+    int compactar(long aplicado) {
+        List<Segmento> removidos = new ArrayList<>();
+        trava.lock();
+        try {
+            for (Map.Entry<Long, Segmento> entrada : fechados.entrySet()) {
+                if (entrada.getValue().ultimoLsn > aplicado) {
+                    break;
+                }
+                removidos.add(entrada.getValue());
+            }
+            removidos.forEach(segmento -> fechados.remove(segmento.primeiroLsn));
+        } finally {
+            trava.unlock();
+        }
+        for (Segmento segmento : removidos) {
+            try {
+                Files.deleteIfExists(segmento.arquivo);
+            } catch (IOException e) {
+                log.warn("Não foi possível remover o segmento {} do diário de vendas: {}", segmento.arquivo, e.getMessage());
+            }
+        }
+        return removidos.size();
+    }
+
+    long ultimoLsn() {
+        trava.lock();
+        try {
+            return ultimoLsn;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    int segmentos() {
+        trava.lock();
+        try {
+            return fechados.size() + 1;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Chamado com a trava: fecha o segmento atual (sincronizado por inteiro) e abre o próximo
+    private void rotacionar() throws IOException {
+        atual.buffer.putInt(atual.posicao, FIM_SEGMENTO);
+        atual.buffer.force();
+        atual.posicaoSincronizada = atual.posicao;
+        fechados.put(atual.primeiroLsn, atual);
+        atual = criar(ultimoLsn + 1);
+    }
+
+    private Segmento criar(long primeiroLsn) throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiroLsn, SUFIXO));
+        Segmento segmento = mapear(arquivo, primeiroLsn, tamanhoSegmento);
+        // O novo arquivo só sobrevive a uma queda com a entrada do diretório também gravada
+        try (FileChannel canalDiretorio = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canalDiretorio.force(true);
+        }
+        return segmento;
+    }
+
+    private static Segmento mapear(Path arquivo, long primeiroLsn, int tamanho) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // O mapeamento continua válido depois de fechar o canal; um arquivo novo é estendido com zeros
+            return new Segmento(arquivo, primeiroLsn, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho));
+        }
+    }
+
+    private static void zerar(MappedByteBuffer buffer, int posicao) {
+        byte[] zeros = new byte[64 * 1024];
+        for (int i = posicao; i < buffer.limit(); i += zeros.length) {
+            buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.limit() - i));
+        }
+        buffer.force();
+    }
+
+    private static long primeiroLsn(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    private static byte[] codificar(Entrada entrada) {
+        int itens = entrada.produtos.length;
+        ByteBuffer dados = ByteBuffer.allocate(24 + itens * TAMANHO_ITEM);
+        dados.putLong(entrada.dataVenda.toLocalDate().toEpochDay());
+        dados.putLong(entrada.dataVenda.toLocalTime().toNanoOfDay());
+        dados.putDouble(entrada.valorTotal);
+        for (int i = 0; i < itens; i++) {
+            dados.putLong(entrada.produtos[i]);
+            dados.putInt(entrada.quantidades[i]);
+            dados.putDouble(entrada.precos[i]);
+        }
+        return dados.array();
+    }
+
+    // null se o registro estiver incompleto ou não for o esperado
+    private static Entrada ler(MappedByteBuffer buffer, int posicao, int tamanho, long esperado) {
+        if (posicao + CABECALHO + tamanho > buffer.limit() || (tamanho - 24) % TAMANHO_ITEM != 0 || tamanho < 24) {
+            return null;
+        }
+        byte[] dados = new byte[tamanho];
+        buffer.get(posicao + CABECALHO, dados);
+        long lsn = buffer.getLong(posicao + 8);
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(8).putLong(0, lsn));
+        crc.update(dados);
+        if (lsn != esperado || buffer.getInt(posicao + 4) != (int) crc.getValue()) {
+            return null;
+        }
+        ByteBuffer leitura = ByteBuffer.wrap(dados);
+        LocalDateTime dataVenda = LocalDateTime.of(
+                java.time.LocalDate.ofEpochDay(leitura.getLong()), java.time.LocalTime.ofNanoOfDay(leitura.getLong()));
+        double valorTotal = leitura.getDouble();
+        int itens = (tamanho - 24) / TAMANHO_ITEM;
+        long[] produtos = new long[itens];
+        int[] quantidades = new int[itens];
+        double[] precos = new double[itens];
+        for (int i = 0; i < itens; i++) {
+            produtos[i] = leitura.getLong();
+            quantidades[i] = leitura.getInt();
+            precos[i] = leitura.getDouble();
+        }
+        Entrada entrada = new Entrada(dataVenda, valorTotal, produtos, quantidades, precos);
+        entrada.lsn = lsn;
+        return entrada;
+    }
+
+    private static final class Segmento {
+        final Path arquivo;
+        final long primeiroLsn;
+        final MappedByteBuffer buffer;
+        long ultimoLsn;
+        int posicao;
+        int posicaoSincronizada;
+
+        Segmento(Path arquivo, long primeiroLsn, MappedByteBuffer buffer) {
+            this.arquivo = arquivo;
+            this.primeiroLsn = primeiroLsn;
+            this.buffer = buffer;
+            this.ultimoLsn = primeiroLsn - 1;
+        }
+    }
+}
@@ -1,38 +1,194 @@
 package com.projeto.ecommerce.service;
 
+import com.projeto.ecommerce.event.VendaRegistradaEvent;
+import com.projeto.ecommerce.model.ItemVenda;
 import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ResumoVendaDiarioRepository;
+import com.projeto.ecommerce.repository.ResumoVendaProdutoDiarioRepository;
 import com.projeto.ecommerce.repository.VendaRepository;
+import com.projeto.ecommerce.response.ResumoVendasResponse;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 public class VendaService {
 
+    // Soma os deltas à linha do dia (criada na primeira venda), travando-a até o fim da transação
+    private static final String SOMAR_DIA_POSTGRES =
+            "INSERT INTO resumo_venda_diario (dia, quantidade_vendas, receita, unidades) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (dia) DO UPDATE SET " +
+            "quantidade_vendas = resumo_venda_diario.quantidade_vendas + EXCLUDED.quantidade_vendas, " +
+            "receita = resumo_venda_diario.receita + EXCLUDED.receita, " +
+            "unidades = resumo_venda_diario.unidades + EXCLUDED.unidades";
+    private static final String SOMAR_DIA_H2 =
+            "MERGE INTO resumo_venda_diario d USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), " +
+            "CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT))) n (dia, quantidade_vendas, receita, unidades) " +
+            "ON d.dia = n.dia " +
+            "WHEN MATCHED THEN UPDATE SET quantidade_vendas = d.quantidade_vendas + n.quantidade_vendas, " +
+            "receita = d.receita + n.receita, unidades = d.unidades + n.unidades " +
+            "WHEN NOT MATCHED THEN INSERT (dia, quantidade_vendas, receita, unidades) " +
+            "VALUES (n.dia, n.quantidade_vendas, n.receita, n.unidades)";
+
+    // O mesmo para a linha do produto no dia
+    private static final String SOMAR_PRODUTO_POSTGRES =
+            "INSERT INTO resumo_venda_produto_diario (dia, produto_id, quantidade_vendas, receita, unidades) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (dia, produto_id) DO UPDATE SET " +
+            "quantidade_vendas = resumo_venda_produto_diario.quantidade_vendas + EXCLUDED.quantidade_vendas, " +
+            "receita = resumo_venda_produto_diario.receita + EXCLUDED.receita, " +
+            "unidades = resumo_venda_produto_diario.unidades + EXCLUDED.unidades";
+    private static final String SOMAR_PRODUTO_H2 =
+            "MERGE INTO resumo_venda_produto_diario r USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), " +
+            "CAST(? AS BIGINT), CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT))) " +
+            "n (dia, produto_id, quantidade_vendas, receita, unidades) " +
+            "ON r.dia = n.dia AND r.produto_id = n.produto_id " +
+            "WHEN MATCHED THEN UPDATE SET quantidade_vendas = r.quantidade_vendas + n.quantidade_vendas, " +
+            "receita = r.receita + n.receita, unidades = r.unidades + n.unidades " +
+            "WHEN NOT MATCHED THEN INSERT (dia, produto_id, quantidade_vendas, receita, unidades) " +
+            "VALUES (n.dia, n.produto_id, n.quantidade_vendas, n.receita, n.unidades)";
+
     @Autowired
     private VendaRepository repositorioVenda;
 
+    @Autowired
+    private ResumoVendaDiarioRepository repositorioResumoDiario;
+
+    @Autowired
+    private ResumoVendaProdutoDiarioRepository repositorioResumoProduto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private boolean postgres;
+
+    @PostConstruct
+    public void iniciar() {
+        postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) conexao ->
+                "PostgreSQL".equals(conexao.getMetaData().getDatabaseProductName())));
+    }
+
     // Relatório de vendas por data específica
+    @Transactional(readOnly = true)
     public List<Venda> obterVendasPorData(LocalDate startDate, LocalDate endDate) {
-        return repositorioVenda.findVendasByData(startDate, endDate);
+        return buscarPorPeriodo(startDate, endDate);
     }
 
     // Relatório de vendas por mês
+    @Transactional(readOnly = true)
     public List<Venda> obterVendasPorMes(int ano, int mes) {
         LocalDate inicioMes = LocalDate.of(ano, mes, 1);
         LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
-        return repositorioVenda.findVendasByMes(inicioMes, fimMes);
+        return buscarPorPeriodo(inicioMes, fimMes);
     }
 
     // Relatório de vendas pela semana atual
+    @Transactional(readOnly = true)
     public List<Venda> obterVendasPorSemanaAtual() {
         LocalDate hoje = LocalDate.now();
         LocalDate inicioSemana = hoje.with(DayOfWeek.MONDAY);
         LocalDate fimSemana = hoje.with(DayOfWeek.SUNDAY);
 
-        return repositorioVenda.findVendasBySemanaAtual(inicioSemana, fimSemana);
+        return buscarPorPeriodo(inicioSemana, fimSemana);
+    }
+
+    // Dias inclusivos convertidos para o intervalo [início do primeiro dia, início do dia seguinte ao último)
+    private List<Venda> buscarPorPeriodo(LocalDate inicio, LocalDate fim) {
+        return repositorioVenda.findVendasByPeriodo(inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay());
+    }
+
+    // Resumo do período lido dos agregados diários (uma linha por dia, sem ler as vendas)
+    @Transactional(readOnly = true)
+    public ResumoVendasResponse obterResumo(LocalDate inicio, LocalDate fim) {
+        return new ResumoVendasResponse(inicio, fim,
+                repositorioResumoDiario.findByDiaBetweenOrderByDia(inicio, fim),
+                repositorioResumoProduto.totalizarPorProduto(inicio, fim));
+    }
+
+    @Transactional(readOnly = true)
+    public ResumoVendasResponse obterResumoPorMes(int ano, int mes) {
+        LocalDate inicioMes = LocalDate.of(ano, mes, 1);
+        return obterResumo(inicioMes, inicioMes.withDayOfMonth(inicioMes.lengthOfMonth()));
+    }
+
+    @Transactional(readOnly = true)
+    public ResumoVendasResponse obterResumoPorSemanaAtual() {
+        LocalDate hoje = LocalDate.now();
+        return obterResumo(hoje.with(DayOfWeek.MONDAY), hoje.with(DayOfWeek.SUNDAY));
+    }
+
+    // Soma (sinal = 1) ou retira (sinal = -1) a venda dos agregados diários, na transação da venda.
+    // A linha do dia é travada antes das linhas por produto, sempre em ordem de ID, para evitar deadlocks.
+    // Também é o ponto comum de todas as vendas para os mais vendidos (VendaRegistradaEvent).
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarNoResumo(Venda venda, int sinal) {
+        LocalDate dia = venda.getDataVenda().toLocalDate();
+        SortedMap<Long, Long> unidadesPorProduto = new TreeMap<>();
+        Map<Long, Double> receitaPorProduto = new HashMap<>();
+        long unidades = 0;
+        for (ItemVenda item : venda.getItens()) {
+            Long produtoId = item.getProduto().getId();
+            double preco = item.getPrecoUnitario() != null ? item.getPrecoUnitario() : item.getProduto().getPreco();
+            unidadesPorProduto.merge(produtoId, (long) item.getQuantidade(), Long::sum);
+            receitaPorProduto.merge(produtoId, preco * item.getQuantidade(), Double::sum);
+            unidades += item.getQuantidade();
+        }
+
+        double valorTotal = venda.getValorTotal() != null ? venda.getValorTotal() : 0.0;
+        Date data = Date.valueOf(dia);
+        somar(SOMAR_DIA_POSTGRES, SOMAR_DIA_H2, data, (long) sinal, sinal * valorTotal, sinal * unidades);
+        unidadesPorProduto.forEach((produtoId, unidadesProduto) ->
+                somar(SOMAR_PRODUTO_POSTGRES, SOMAR_PRODUTO_H2, data, produtoId, (long) sinal,
+                        sinal * receitaPorProduto.get(produtoId), sinal * unidadesProduto));
+        eventPublisher.publishEvent(new VendaRegistradaEvent(venda.getDataVenda(), unidadesPorProduto, sinal));
+    }
+
+    // Upsert na transação da venda, pela conexão dela (JdbcTemplate), com uma única conexão do pool.
+    // No PostgreSQL o ON CONFLICT DO UPDATE é atômico. No H2 o MERGE não é: duas primeiras vendas
+    // simultâneas do dia podem inserir a mesma chave, e a segunda recebe a chave duplicada depois do
+    // commit da primeira. O H2 não desfaz a transação por um comando que falhou, e o JdbcTemplate não a
+    // marca para rollback (o EntityManager nem vê o erro), então o MERGE é repetido e encontra a linha.
+    private void somar(String sqlPostgres, String sqlH2, Object... valores) {
+        if (postgres) {
+            jdbcTemplate.update(sqlPostgres, valores);
+            return;
+        }
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                jdbcTemplate.update(sqlH2, valores);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (tentativa == 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Recalcula todos os agregados a partir das tabelas Venda e ItemVenda
+    @Transactional
+    public void reconstruirResumos() {
+        repositorioResumoProduto.deleteAllInBatch();
+        repositorioResumoDiario.deleteAllInBatch();
+        repositorioResumoDiario.reconstruir();
+        repositorioResumoProduto.reconstruir();
+        repositorioResumoDiario.reconstruirUnidades();
     }
 }
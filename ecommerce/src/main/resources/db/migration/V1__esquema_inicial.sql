@@ -0,0 +1,71 @@
+-- Esquema de partida, igual ao que o Hibernate criava com ddl-auto=update. Roda também em bancos
+-- já existentes (baseline-version=0): só cria o que falta e acerta os tipos das tabelas criadas
+-- pelo antigo database.sql (DECIMAL) para os tipos mapeados nas entidades.
+
+
+CREATE TABLE IF NOT EXISTS produto (
+    id BIGINT NOT NULL PRIMARY KEY,
+    codigo VARCHAR(64) UNIQUE,
+    nome VARCHAR(255) NOT NULL,
+    descricao VARCHAR(255) NOT NULL,
+    preco FLOAT(53) NOT NULL CHECK (preco >= 0),
+    quantidade_estoque INTEGER NOT NULL CHECK (quantidade_estoque >= 0),
+    ativo BOOLEAN
+);
+
+ALTER TABLE produto ADD COLUMN IF NOT EXISTS codigo VARCHAR(64) UNIQUE;
+ALTER TABLE produto ADD COLUMN IF NOT EXISTS descricao VARCHAR(255);
+ALTER TABLE produto ALTER COLUMN preco TYPE FLOAT(53);
+
+-- Produtos do antigo database.sql já têm ids, gerados sem a sequência. O Hibernate reserva blocos
+-- de 50 (otimizador pooled) e usa os ids de nextval - 49 até nextval, por isso o próximo nextval
+-- precisa ser MAX(id) + 50 para o primeiro bloco começar logo depois do maior id existente
+CREATE SEQUENCE IF NOT EXISTS produto_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('produto_seq', COALESCE((SELECT MAX(id) FROM produto), 0) + 50, false);
+
+-- Só os produtos ativos, na ordem da listagem (GET /produtos/ativos)
+CREATE INDEX IF NOT EXISTS idx_produto_ativo ON produto (id) WHERE ativo;
+
+CREATE TABLE IF NOT EXISTS venda (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data_venda TIMESTAMP(6) NOT NULL,
+    valor_total FLOAT(53)
+);
+
+ALTER TABLE venda ALTER COLUMN valor_total TYPE FLOAT(53);
+
+CREATE TABLE IF NOT EXISTS item_venda (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    venda_id BIGINT REFERENCES venda,
+    produto_id BIGINT NOT NULL REFERENCES produto,
+    quantidade INTEGER NOT NULL CHECK (quantidade >= 1),
+    preco_unitario FLOAT(53)
+);
+
+ALTER TABLE item_venda ADD COLUMN IF NOT EXISTS preco_unitario FLOAT(53);
+
+-- Tabela do antigo database.sql que o Hibernate nunca usou (os itens sempre foram para item_venda)
+DROP TABLE IF EXISTS itemvenda;
+
+CREATE TABLE IF NOT EXISTS chave_idempotencia (
+    chave VARCHAR(255) NOT NULL PRIMARY KEY,
+    impressao VARCHAR(64) NOT NULL,
+    venda_id BIGINT NOT NULL,
+    criada_em TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS resumo_venda_diario (
+    dia DATE NOT NULL PRIMARY KEY,
+    quantidade_vendas BIGINT,
+    receita FLOAT(53),
+    unidades BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS resumo_venda_produto_diario (
+    dia DATE NOT NULL,
+    produto_id BIGINT NOT NULL,
+    quantidade_vendas BIGINT,
+    receita FLOAT(53),
+    unidades BIGINT,
+    PRIMARY KEY (dia, produto_id)
+);
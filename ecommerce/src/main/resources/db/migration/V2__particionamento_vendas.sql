@@ -0,0 +1,94 @@
+-- Vendas e itens particionados por mês de data_venda. Os relatórios filtram as duas tabelas pelo
+-- período, e o PostgreSQL lê só as partições dos meses pedidos.
+--
+-- A chave primária de uma tabela particionada precisa conter a coluna de partição: (id, data_venda).
+-- Por isso item_venda também guarda data_venda, e a chave estrangeira usa as duas colunas. Ela é
+-- verificada só no commit porque, ao atualizar uma venda, o Hibernate insere os itens novos antes
+-- do UPDATE que muda a data da venda; ON UPDATE CASCADE leva a nova data aos itens existentes.
+
+-- Cria as partições mensais das duas tabelas de [inicio, fim), se ainda não existirem.
+-- Chamada também pela aplicação (ManutencaoParticoes) para criar as partições dos próximos meses.
+CREATE OR REPLACE FUNCTION criar_particoes_venda(inicio DATE, fim DATE) RETURNS INTEGER AS $$
+DECLARE
+    mes DATE := date_trunc('month', inicio)::DATE;
+    sufixo TEXT;
+    criadas INTEGER := 0;
+BEGIN
+    WHILE mes < fim LOOP
+        sufixo := to_char(mes, 'YYYY_MM');
+        IF to_regclass('venda_' || sufixo) IS NULL THEN
+            EXECUTE format('CREATE TABLE venda_%s PARTITION OF venda FOR VALUES FROM (%L) TO (%L)',
+                           sufixo, mes, (mes + INTERVAL '1 month')::DATE);
+            criadas := criadas + 1;
+        END IF;
+        IF to_regclass('item_venda_' || sufixo) IS NULL THEN
+            EXECUTE format('CREATE TABLE item_venda_%s PARTITION OF item_venda FOR VALUES FROM (%L) TO (%L)',
+                           sufixo, mes, (mes + INTERVAL '1 month')::DATE);
+        END IF;
+        mes := (mes + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE item_venda RENAME TO item_venda_antiga;
+ALTER TABLE venda RENAME TO venda_antiga;
+
+-- Sequências próprias: as das colunas IDENTITY antigas são removidas junto com as tabelas
+CREATE SEQUENCE venda_seq;
+CREATE SEQUENCE item_venda_seq;
+
+CREATE TABLE venda (
+    id BIGINT NOT NULL DEFAULT nextval('venda_seq'),
+    data_venda TIMESTAMP(6) NOT NULL,
+    valor_total FLOAT(53),
+    PRIMARY KEY (id, data_venda)
+) PARTITION BY RANGE (data_venda);
+
+CREATE TABLE item_venda (
+    id BIGINT NOT NULL DEFAULT nextval('item_venda_seq'),
+    venda_id BIGINT NOT NULL,
+    data_venda TIMESTAMP(6) NOT NULL,
+    produto_id BIGINT NOT NULL REFERENCES produto,
+    quantidade INTEGER NOT NULL CHECK (quantidade >= 1),
+    preco_unitario FLOAT(53),
+    PRIMARY KEY (id, data_venda),
+    FOREIGN KEY (venda_id, data_venda) REFERENCES venda (id, data_venda)
+        ON UPDATE CASCADE ON DELETE CASCADE DEFERRABLE INITIALLY DEFERRED
+) PARTITION BY RANGE (data_venda);
+
+ALTER SEQUENCE venda_seq OWNED BY venda.id;
+ALTER SEQUENCE item_venda_seq OWNED BY item_venda.id;
+
+-- Índices cobrindo os relatórios por período (vendas pela data, itens pela venda): criados na
+-- tabela particionada, valem para todas as partições, inclusive as futuras
+CREATE INDEX idx_venda_data ON venda (data_venda, id) INCLUDE (valor_total);
+CREATE INDEX idx_item_venda_venda ON item_venda (venda_id, id) INCLUDE (produto_id, quantidade, preco_unitario);
+
+-- Datas fora das partições criadas não impedem a venda; a partição do mês não pode ser criada
+-- enquanto houver linhas dele aqui (ver ManutencaoParticoes)
+CREATE TABLE venda_padrao PARTITION OF venda DEFAULT;
+CREATE TABLE item_venda_padrao PARTITION OF item_venda DEFAULT;
+
+-- Do mês da venda mais antiga até três meses à frente (ou até a mais recente, se for depois)
+SELECT criar_particoes_venda(
+        COALESCE((SELECT min(data_venda) FROM venda_antiga), now())::DATE,
+        GREATEST(date_trunc('month', now()) + INTERVAL '4 months',
+                 (SELECT date_trunc('month', max(data_venda)) + INTERVAL '1 month' FROM venda_antiga))::DATE);
+
+INSERT INTO venda (id, data_venda, valor_total)
+SELECT id, data_venda, valor_total FROM venda_antiga;
+
+-- Itens sem venda (venda_id nulo) não são copiados
+INSERT INTO item_venda (id, venda_id, data_venda, produto_id, quantidade, preco_unitario)
+SELECT i.id, i.venda_id, v.data_venda, i.produto_id, i.quantidade, i.preco_unitario
+FROM item_venda_antiga i JOIN venda_antiga v ON v.id = i.venda_id;
+
+SELECT setval('venda_seq', COALESCE((SELECT max(id) FROM venda_antiga), 0) + 1, false);
+SELECT setval('item_venda_seq', COALESCE((SELECT max(id) FROM item_venda_antiga), 0) + 1, false);
+
+DROP TABLE item_venda_antiga;
+DROP TABLE venda_antiga;
+
+ANALYZE venda;
+ANALYZE item_venda;
@@ -0,0 +1,5 @@
+-- Posição do diário de vendas (ecommerce.checkout.diario.*) já aplicada às tabelas
+CREATE TABLE posicao_diario (
+    id INTEGER NOT NULL PRIMARY KEY,
+    ultimo_lsn BIGINT NOT NULL
+);
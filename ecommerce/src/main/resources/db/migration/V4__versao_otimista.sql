@@ -0,0 +1,3 @@
+-- Versão do lock otimista (@Version) de Produto e Venda; em venda vale para todas as partições
+ALTER TABLE produto ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE venda ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
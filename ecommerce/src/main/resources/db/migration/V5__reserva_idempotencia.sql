@@ -0,0 +1,2 @@
+-- A Idempotency-Key é reservada antes da venda e recebe o ID da venda só depois do commit
+ALTER TABLE chave_idempotencia ALTER COLUMN venda_id DROP NOT NULL;
@@ -0,0 +1,10 @@
+-- Vendas do diário que o banco recusou (violação de restrição, ex.: estoque que ficaria negativo).
+-- Separadas pelo aplicador, na mesma transação que avança a posição, para tratamento manual.
+CREATE TABLE venda_diario_rejeitada (
+    lsn BIGINT NOT NULL PRIMARY KEY,
+    data_venda TIMESTAMP(6) NOT NULL,
+    valor_total DOUBLE PRECISION NOT NULL,
+    itens VARCHAR(4000) NOT NULL,
+    motivo VARCHAR(1000) NOT NULL,
+    rejeitada_em TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,41 @@
+package com.projeto.ecommerce.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dimensionamento da admissão: os limites por classe mais a reserva de conexões cabem no pool do Hikari,
+// senão a aplicação não sobe.
+class ControleAdmissaoTest {
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withUserConfiguration(ControleAdmissao.class);
+
+    @Test
+    void limitesPadraoCabemNoPoolConfigurado() {
+        contexto.withPropertyValues("spring.datasource.hikari.maximum-pool-size=20")
+                .run(iniciado -> assertNull(iniciado.getStartupFailure()));
+    }
+
+    @Test
+    void limitesAcimaDoPoolImpedemOInicio() {
+        // 8 + 2 + 4 de admissão e 6 de reserva não cabem em 19 conexões
+        contexto.withPropertyValues("spring.datasource.hikari.maximum-pool-size=19")
+                .run(iniciado -> {
+                    Throwable falha = iniciado.getStartupFailure();
+                    assertNotNull(falha);
+                    Throwable causa = falha;
+                    while (causa.getCause() != null) {
+                        causa = causa.getCause();
+                    }
+                    assertInstanceOf(IllegalStateException.class, causa);
+                    assertTrue(causa.getMessage().contains("maximum-pool-size"));
+                });
+    }
+}
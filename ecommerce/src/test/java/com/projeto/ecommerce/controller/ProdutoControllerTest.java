@@ -0,0 +1,160 @@
+package com.projeto.ecommerce.controller;
+
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Listagem do catálogo em JSON e em gzip: cada codificação tem o seu ETag, e o 304 também leva o Vary.
+// Alteração de produto com e sem If-Match.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class ProdutoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Test
+    void gzipEIdentidadeTemETagsDiferentes() throws Exception {
+        String etagGzip = mockMvc.perform(get("/produtos/ativos").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String etag = mockMvc.perform(get("/produtos/ativos"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, etagGzip);
+
+        // O ETag do gzip não serve para validar a representação sem compressão
+        mockMvc.perform(get("/produtos/ativos").header(HttpHeaders.IF_NONE_MATCH, etagGzip))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/produtos/ativos").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, etagGzip))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void gzipComPesoZeroERecusado() throws Exception {
+        mockMvc.perform(get("/produtos/ativos").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void pesosDoAcceptEncoding() {
+        assertTrue(ProdutoController.aceitaGzip("gzip, deflate, br"));
+        assertTrue(ProdutoController.aceitaGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(ProdutoController.aceitaGzip("*"));
+        assertFalse(ProdutoController.aceitaGzip(null));
+        assertFalse(ProdutoController.aceitaGzip("identity"));
+        assertFalse(ProdutoController.aceitaGzip("gzip;q=0"));
+        assertFalse(ProdutoController.aceitaGzip("gzip; q=0.0, *;q=1"));
+        assertFalse(ProdutoController.aceitaGzip("*;q=0"));
+        assertTrue(ProdutoController.aceitaGzip("GZIP;Q=0.5"));
+    }
+
+    @Test
+    void alteracaoComAVersaoLidaDevolveONovoETag() throws Exception {
+        Long id = produtoRepository.save(produto(10)).getId();
+        String etag = etag(id);
+
+        String novo = mockMvc.perform(put("/produtos/" + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(corpo(7)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantidadeEstoque").value(7))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, novo);
+        assertEquals(novo, etag(id));
+    }
+
+    @Test
+    void alteracaoSemIfMatchSobrescreveOProduto() throws Exception {
+        Long id = produtoRepository.save(produto(10)).getId();
+
+        mockMvc.perform(put("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content(corpo(7)))
+                .andExpect(status().isOk());
+        assertEquals(7, produtoRepository.findById(id).orElseThrow().getQuantidadeEstoque());
+    }
+
+    // Uma venda entre a leitura e o PUT não muda a versão: o estoque enviado vale como diferença sobre o
+    // lido, e a baixa da venda não é desfeita
+    @Test
+    void vendaDepoisDaLeituraNaoEDesfeitaPeloPut() throws Exception {
+        Long id = produtoRepository.save(produto(10)).getId();
+        String etag = etag(id);
+
+        mockMvc.perform(post("/vendas").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"produto\":{\"id\":" + id + "},\"quantidade\":3}]"))
+                .andExpect(status().isCreated());
+
+        // Entrada de 5 unidades sobre as 10 lidas: 7 restantes da venda + 5
+        mockMvc.perform(put("/produtos/" + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(corpo(15)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantidadeEstoque").value(12));
+        assertEquals(12, produtoRepository.findById(id).orElseThrow().getQuantidadeEstoque());
+    }
+
+    @Test
+    void cadastroAlteradoDepoisDaLeituraFazOPutResponder412() throws Exception {
+        Long id = produtoRepository.save(produto(10)).getId();
+        String etag = etag(id);
+
+        mockMvc.perform(put("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content(corpo(10)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/produtos/" + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(corpo(4)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.mensagem", containsString(String.valueOf(id))));
+        assertEquals(10, produtoRepository.findById(id).orElseThrow().getQuantidadeEstoque());
+    }
+
+    private String etag(Long id) throws Exception {
+        return mockMvc.perform(get("/produtos/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static String corpo(int estoque) {
+        return "{\"nome\":\"Versionado\",\"descricao\":\"Produto alterado\",\"preco\":5.0,"
+                + "\"quantidadeEstoque\":" + estoque + ",\"ativo\":true}";
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Versionado");
+        produto.setDescricao("Produto com versão");
+        produto.setPreco(5.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+}
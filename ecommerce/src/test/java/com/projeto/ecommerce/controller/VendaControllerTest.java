@@ -0,0 +1,65 @@
+package com.projeto.ecommerce.controller;
+
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Erros do checkout respondidos pelo GlobalExceptionHandler, com status e corpo
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class VendaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Test
+    void produtoInexistenteResponde404ComCorpo() throws Exception {
+        mockMvc.perform(post("/vendas").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"produto\":{\"id\":987654},\"quantidade\":1}]"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.mensagem", containsString("987654")));
+    }
+
+    @Test
+    void estoqueInsuficienteResponde400ComCorpo() throws Exception {
+        Long id = produtoRepository.save(produto(1)).getId();
+        mockMvc.perform(post("/vendas").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"produto\":{\"id\":" + id + "},\"quantidade\":5}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensagem", containsString(String.valueOf(id))));
+    }
+
+    @Test
+    void atualizacaoDeVendaInexistenteResponde404ComCorpo() throws Exception {
+        Long id = produtoRepository.save(produto(10)).getId();
+        mockMvc.perform(put("/vendas/987654").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"produto\":{\"id\":" + id + "},\"quantidade\":1}]"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.mensagem", containsString("987654")));
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Checkout");
+        produto.setDescricao("Produto dos erros de checkout");
+        produto.setPreco(2.0);
+        produto.setQuantidadeEstoque(estoque);
+        return produto;
+    }
+}
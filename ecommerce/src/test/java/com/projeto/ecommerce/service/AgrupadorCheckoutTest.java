@@ -0,0 +1,118 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Checkout agrupado: pedidos que chegam juntos são gravados em uma única transação, e um pedido
+// recusado no meio do lote não desfaz os outros nem obriga o lote a ser regravado pedido a pedido.
+@SpringBootTest(properties = {
+        "ecommerce.checkout.agrupamento.habilitado=true",
+        "ecommerce.checkout.agrupamento.espera-maxima-ms=500"
+})
+@ActiveProfiles("local")
+class AgrupadorCheckoutTest {
+
+    private static final int PEDIDOS_ACEITOS = 5;
+
+    @Autowired
+    private AgrupadorCheckout agrupadorCheckout;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pedidoRecusadoNaoAfetaOsOutrosDoLote() throws Exception {
+        Long farto = produtoRepository.save(produto("Farto", 100)).getId();
+        Long escasso = produtoRepository.save(produto("Escasso", 1)).getId();
+
+        DistributionSummary lote = meterRegistry.get("checkout.agrupamento.lote").summary();
+        long lotesAntes = lote.count();
+        double pedidosAntes = lote.totalAmount();
+        double refeitosAntes = meterRegistry.get("checkout.agrupamento.lotes.refeitos").counter().count();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PEDIDOS_ACEITOS + 1);
+        List<Future<?>> aceitos = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS_ACEITOS; i++) {
+            aceitos.add(executor.submit(() -> {
+                largada.await();
+                return agrupadorCheckout.realizarVenda(new ArrayList<>(List.of(item(farto, 2))));
+            }));
+        }
+        // Baixaria uma unidade do produto farto antes de descobrir a falta do escasso
+        Future<?> recusado = executor.submit(() -> {
+            largada.await();
+            return agrupadorCheckout.realizarVenda(new ArrayList<>(List.of(item(farto, 1), item(escasso, 5))));
+        });
+        largada.countDown();
+
+        for (Future<?> aceito : aceitos) {
+            assertNotNull(aceito.get(30, TimeUnit.SECONDS));
+        }
+        ExecutionException falha = assertThrows(ExecutionException.class, () -> recusado.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(EstoqueInsuficienteException.class, falha.getCause());
+        executor.shutdown();
+
+        assertEquals(100 - 2 * PEDIDOS_ACEITOS, estoque(farto));
+        assertEquals(1, estoque(escasso));
+        assertEquals(PEDIDOS_ACEITOS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM item_venda WHERE produto_id = ?", Integer.class, farto));
+
+        // Uma transação só, com os cinco pedidos gravados, e nenhum lote refeito
+        assertEquals(lotesAntes + 1, lote.count());
+        assertEquals(pedidosAntes + PEDIDOS_ACEITOS, lote.totalAmount());
+        assertEquals(refeitosAntes, meterRegistry.get("checkout.agrupamento.lotes.refeitos").counter().count());
+    }
+
+    private int estoque(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+
+    private static Produto produto(String nome, int estoque) {
+        Produto produto = new Produto();
+        produto.setNome(nome);
+        produto.setDescricao("Produto do checkout agrupado");
+        produto.setPreco(4.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+
+    private static ItemVenda item(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return item;
+    }
+}
@@ -0,0 +1,64 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class CatalogoAtivoTest {
+
+    @Autowired
+    private CatalogoAtivo catalogoAtivo;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    // A lista já entregue continua com o estoque de quando foi publicada; a seguinte traz o novo
+    @Test
+    void atualizacaoDeEstoqueNaoAlteraInstantaneoPublicado() {
+        Long id = produtoService.criarProduto(produto(10)).getId();
+        Produto publicado = buscarEm(catalogoAtivo.listar(), id);
+
+        vender(id, 3);
+        catalogoAtivo.atualizarEstoque();
+
+        assertEquals(10, publicado.getQuantidadeEstoque());
+        Produto atual = buscarEm(catalogoAtivo.listar(), id);
+        assertNotSame(publicado, atual);
+        assertEquals(7, atual.getQuantidadeEstoque());
+        assertEquals(7, catalogoAtivo.buscar(id).getQuantidadeEstoque());
+    }
+
+    private static Produto buscarEm(List<Produto> produtos, Long id) {
+        return produtos.stream().filter(produto -> produto.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    private void vender(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        produtoService.realizarVenda(new ArrayList<>(List.of(item)));
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Vitrine");
+        produto.setDescricao("Produto do catálogo ativo");
+        produto.setPreco(8.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+}
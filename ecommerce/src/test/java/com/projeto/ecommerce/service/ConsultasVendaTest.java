@@ -0,0 +1,151 @@
+package com.projeto.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.ecommerce.config.ContadorConsultas;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import com.projeto.ecommerce.repository.VendaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Quantidade de comandos SQL para ler vendas (ContadorConsultas): não pode depender do número de
+// itens nem de vendas. Se um N+1 voltar (itens ou produtos carregados um a um), o teste falha.
+@SpringBootTest
+@ActiveProfiles("local")
+class ConsultasVendaTest {
+
+    private static final int MUITOS_ITENS = 20;
+    private static final int MUITAS_VENDAS = 10;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void vendaComUmItemEComMuitosItensUsamAMesmaConsulta() {
+        List<Long> produtos = criarProdutos(MUITOS_ITENS);
+        Long umItem = vender(produtos.subList(0, 1)).getId();
+        Long muitosItens = vender(produtos).getId();
+
+        long consultasUmItem = consultasParaCarregar(umItem);
+        long consultasMuitosItens = consultasParaCarregar(muitosItens);
+
+        assertEquals(1, consultasUmItem);
+        assertEquals(consultasUmItem, consultasMuitosItens);
+    }
+
+    @Test
+    void paginaComUmaVendaEComMuitasVendasUsamAsMesmasConsultas() {
+        List<Long> produtos = criarProdutos(MUITOS_ITENS);
+        Long primeira = vender(produtos.subList(0, 3)).getId();
+        for (int i = 1; i < MUITAS_VENDAS; i++) {
+            vender(produtos.subList(i, i + 5));
+        }
+
+        long consultasUmaVenda = consultasParaListar(primeira - 1, 1);
+        long consultasMuitasVendas = consultasParaListar(primeira - 1, MUITAS_VENDAS);
+
+        // Os IDs da página e depois as vendas com itens e produtos
+        assertEquals(2, consultasUmaVenda);
+        assertEquals(consultasUmaVenda, consultasMuitasVendas);
+    }
+
+    @Test
+    void resumosDeVendasSaoLidosEmUmaConsulta() {
+        List<Long> produtos = criarProdutos(MUITOS_ITENS);
+        Long primeira = vender(produtos).getId();
+        for (int i = 1; i < MUITAS_VENDAS; i++) {
+            vender(produtos.subList(0, i));
+        }
+
+        ContadorConsultas.zerar();
+        assertEquals(1, produtoService.listarResumosVendas(primeira - 1, 1).size());
+        long consultasUmaVenda = ContadorConsultas.total();
+
+        ContadorConsultas.zerar();
+        assertEquals(MUITAS_VENDAS, produtoService.listarResumosVendas(primeira - 1, MUITAS_VENDAS).size());
+        long consultasMuitasVendas = ContadorConsultas.total();
+
+        assertEquals(1, consultasUmaVenda);
+        assertEquals(consultasUmaVenda, consultasMuitasVendas);
+    }
+
+    // A venda é serializada dentro da transação: qualquer associação preguiçosa tocada pelo JSON
+    // vira consulta e entra na contagem
+    private long consultasParaCarregar(Long vendaId) {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        return leitura.execute(status -> {
+            ContadorConsultas.zerar();
+            Venda venda = vendaRepository.findComItensById(vendaId).orElseThrow();
+            json(venda);
+            return ContadorConsultas.total();
+        });
+    }
+
+    // Fora da transação do serviço: uma associação não carregada falharia na serialização
+    private long consultasParaListar(Long apos, int limite) {
+        ContadorConsultas.zerar();
+        List<Venda> vendas = produtoService.listarVendas(apos, limite);
+        long consultas = ContadorConsultas.total();
+        assertEquals(limite, vendas.size());
+        json(vendas);
+        return consultas;
+    }
+
+    private void json(Object valor) {
+        try {
+            objectMapper.writeValueAsString(valor);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Long> criarProdutos(int quantidade) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Produto produto = new Produto();
+            produto.setNome("Produto " + i);
+            produto.setDescricao("Produto das consultas de venda");
+            produto.setPreco(1.0 + i);
+            produto.setQuantidadeEstoque(1000);
+            ids.add(produtoRepository.save(produto).getId());
+        }
+        return ids;
+    }
+
+    private Venda vender(List<Long> produtoIds) {
+        List<ItemVenda> itens = new ArrayList<>();
+        for (Long produtoId : produtoIds) {
+            Produto produto = new Produto();
+            produto.setId(produtoId);
+            ItemVenda item = new ItemVenda();
+            item.setProduto(produto);
+            item.setQuantidade(1);
+            itens.add(item);
+        }
+        return produtoService.realizarVenda(itens);
+    }
+}
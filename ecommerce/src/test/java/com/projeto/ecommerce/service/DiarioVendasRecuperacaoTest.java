@@ -0,0 +1,212 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Reinício do diário de vendas: vendas sincronizadas e ainda fora do banco (a aplicação caiu antes do
+// aplicador) são gravadas no início seguinte, e um novo início não as grava de novo. Cada "instância"
+// é um DiarioVendas criado e destruído pelo contexto, sobre o mesmo diretório e o mesmo banco.
+// Uma venda recusada pelo banco é separada sem travar as seguintes.
+@SpringBootTest(properties = "ecommerce.checkout.diario.habilitado=true")
+@ActiveProfiles("local")
+@DirtiesContext
+class DiarioVendasRecuperacaoTest {
+
+    private static Path diretorio;
+
+    @Autowired
+    private DiarioVendas diarioVendas;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void diretorioDiario(DynamicPropertyRegistry registro) throws IOException {
+        diretorio = Files.createTempDirectory("diario-recuperacao");
+        registro.add("ecommerce.checkout.diario.diretorio", diretorio::toString);
+    }
+
+    @Test
+    void vendasNaoAplicadasSaoGravadasNoReinicioUmaUnicaVez() throws Exception {
+        // A instância do contexto para, e as vendas seguintes ficam só no diário, como numa queda
+        // logo depois da sincronização
+        diarioVendas.encerrar();
+        Long produtoId = produtoService.criarProduto(produto(10)).getId();
+        long ultimo = registrarSemAplicar(produtoId, 2, 3);
+
+        DiarioVendas reiniciado = reiniciar();
+        aguardarAplicacao(reiniciado, ultimo);
+        assertEquals(2, vendasDoProduto(produtoId));
+        assertEquals(5, estoque(produtoId));
+        beanFactory.destroyBean(reiniciado);
+
+        // Mais um início sobre o mesmo diário: a posição aplicada já cobre os registros. A venda nova
+        // só é aplicada depois de qualquer registro reaplicado, então as contagens valem a partir dela.
+        DiarioVendas outro = reiniciar();
+        long numero = outro.aceitar(itens(produtoId, 1)).getNumero();
+        assertEquals(ultimo + 1, numero);
+        aguardarAplicacao(outro, numero);
+        assertEquals(3, vendasDoProduto(produtoId));
+        assertEquals(4, estoque(produtoId));
+        beanFactory.destroyBean(outro);
+    }
+
+    // O aplicador para no meio do lote: as vendas e a baixa já foram escritas na transação, mas a
+    // gravação da posição falha (gatilho no H2), como numa queda antes do checkpoint. Nada fica no
+    // banco, e o início seguinte aplica cada venda uma única vez.
+    @Test
+    void quedaAntesDaPosicaoNaoDuplicaAsVendasNoReinicio() throws Exception {
+        diarioVendas.encerrar();
+        Long produtoId = produtoService.criarProduto(produto(10)).getId();
+        long ultimo = registrarSemAplicar(produtoId, 1, 2, 3);
+        double falhasAntes = contador("checkout.diario.falhas");
+
+        jdbcTemplate.execute("CREATE TRIGGER falha_posicao_diario BEFORE INSERT, UPDATE ON posicao_diario "
+                + "FOR EACH ROW CALL '" + QuedaAntesDaPosicao.class.getName() + "'");
+        try {
+            DiarioVendas interrompido = reiniciar();
+            aguardar(() -> contador("checkout.diario.falhas") > falhasAntes, "O lote do diário não chegou à posição");
+            beanFactory.destroyBean(interrompido);
+        } finally {
+            jdbcTemplate.execute("DROP TRIGGER falha_posicao_diario");
+        }
+        assertEquals(0, vendasDoProduto(produtoId));
+        assertEquals(10, estoque(produtoId));
+
+        DiarioVendas reiniciado = reiniciar();
+        aguardarAplicacao(reiniciado, ultimo);
+        assertEquals(3, vendasDoProduto(produtoId));
+        assertEquals(4, estoque(produtoId));
+        assertEquals(ultimo, posicaoAplicada());
+        beanFactory.destroyBean(reiniciado);
+    }
+
+    // A venda do meio deixaria o estoque negativo (CHECK da tabela produto): ela é separada e as outras
+    // do mesmo lote são gravadas
+    @Test
+    void vendaRecusadaPeloBancoESeparadaSemTravarAsSeguintes() throws Exception {
+        diarioVendas.encerrar();
+        Long produtoId = produtoService.criarProduto(produto(2)).getId();
+        long ultimo = registrarSemAplicar(produtoId, 1, 5, 1);
+        long recusada = ultimo - 1;
+        double rejeitadasAntes = contador("checkout.diario.rejeitadas");
+
+        DiarioVendas reiniciado = reiniciar();
+        aguardarAplicacao(reiniciado, ultimo);
+        assertEquals(2, vendasDoProduto(produtoId));
+        assertEquals(0, estoque(produtoId));
+        assertEquals("REJEITADO", reiniciado.consultar(recusada).getEstado());
+        assertEquals(produtoId + ":5:3.0", jdbcTemplate.queryForObject(
+                "SELECT itens FROM venda_diario_rejeitada WHERE lsn = ?", String.class, recusada));
+        assertEquals(rejeitadasAntes + 1, contador("checkout.diario.rejeitadas"));
+        beanFactory.destroyBean(reiniciado);
+    }
+
+    // Gatilho do H2 que impede a gravação da posição aplicada
+    public static class QuedaAntesDaPosicao implements Trigger {
+
+        @Override
+        public void fire(Connection conexao, Object[] anterior, Object[] nova) throws SQLException {
+            throw new SQLException("Queda simulada antes da gravação da posição do diário");
+        }
+    }
+
+    // Grava e sincroniza as vendas direto nos segmentos, sem passar pelo aplicador
+    private long registrarSemAplicar(Long produtoId, int... quantidades) throws Exception {
+        Long aplicado = jdbcTemplate.query("SELECT ultimo_lsn FROM posicao_diario",
+                resultado -> resultado.next() ? resultado.getLong(1) : 0L);
+        SegmentosDiario segmentos = new SegmentosDiario(diretorio, 67108864);
+        segmentos.abrir(aplicado);
+        for (int quantidade : quantidades) {
+            segmentos.acrescentar(new SegmentosDiario.Entrada(LocalDateTime.now(), 3.0 * quantidade,
+                    new long[]{produtoId}, new int[]{quantidade}, new double[]{3.0}));
+        }
+        segmentos.sincronizar(0);
+        return segmentos.ultimoLsn();
+    }
+
+    private DiarioVendas reiniciar() {
+        return beanFactory.createBean(DiarioVendas.class);
+    }
+
+    private static void aguardarAplicacao(DiarioVendas diario, long numero) throws InterruptedException {
+        aguardar(() -> "APLICADO".equals(diario.consultar(numero).getEstado()), "Venda " + numero + " do diário não foi aplicada");
+    }
+
+    private static void aguardar(BooleanSupplier condicao, String mensagem) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicao.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                throw new AssertionError(mensagem);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private double contador(String nome) {
+        return meterRegistry.get(nome).counter().count();
+    }
+
+    private long posicaoAplicada() {
+        return jdbcTemplate.queryForObject("SELECT ultimo_lsn FROM posicao_diario", Long.class);
+    }
+
+    private int vendasDoProduto(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item_venda WHERE produto_id = ?", Integer.class, produtoId);
+    }
+
+    private int estoque(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+
+    private static List<ItemVenda> itens(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return new ArrayList<>(List.of(item));
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Recuperado");
+        produto.setDescricao("Produto do diário de vendas");
+        produto.setPreco(3.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+}
@@ -0,0 +1,95 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class ExportacaoVendaServiceTest {
+
+    @Autowired
+    private ExportacaoVendaService exportacaoVendaService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void valorTotalAusenteViraCampoVazioNoCsv() throws Exception {
+        Long produtoId = produtoRepository.save(produto()).getId();
+        Venda venda = produtoService.realizarVenda(itens(produtoId));
+        jdbcTemplate.update("UPDATE venda SET valor_total = NULL WHERE id = ?", venda.getId());
+
+        LocalDate hoje = venda.getDataVenda().toLocalDate();
+        String csv = exportarCsv(hoje);
+
+        String linha = csv.lines().filter(l -> l.startsWith(venda.getId() + ",")).findFirst().orElseThrow();
+        assertTrue(linha.matches(venda.getId() + ",[^,]+,,.*"), linha);
+        assertTrue(!csv.contains("null"), csv);
+    }
+
+    // Os itens mantidos iguais na alteração não passam pelo @PreUpdate, mas recebem a nova data da venda
+    @Test
+    void alteracaoDaVendaLevaANovaDataAosItensSemMudanca() throws Exception {
+        Long produtoId = produtoRepository.save(produto()).getId();
+        Venda venda = produtoService.realizarVenda(itens(produtoId));
+        LocalDateTime antiga = venda.getDataVenda().minusDays(10);
+        jdbcTemplate.update("UPDATE venda SET data_venda = ? WHERE id = ?", antiga, venda.getId());
+        jdbcTemplate.update("UPDATE item_venda SET data_venda = ? WHERE venda_id = ?", antiga, venda.getId());
+
+        Venda alterada = produtoService.atualizarVenda(venda.getId(), itens(produtoId));
+
+        assertEquals(jdbcTemplate.queryForObject(
+                        "SELECT data_venda FROM venda WHERE id = ?", LocalDateTime.class, venda.getId()),
+                jdbcTemplate.queryForObject(
+                        "SELECT data_venda FROM item_venda WHERE venda_id = ?", LocalDateTime.class, venda.getId()));
+        String csv = exportarCsv(alterada.getDataVenda().toLocalDate());
+        assertTrue(csv.lines().anyMatch(l -> l.startsWith(venda.getId() + ",")), csv);
+    }
+
+    private String exportarCsv(LocalDate dia) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoVendaService.exportar(dia, dia, ExportacaoVendaService.Formato.CSV, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Produto produto() {
+        Produto produto = new Produto();
+        produto.setNome("Exportado");
+        produto.setDescricao("Produto da exportação");
+        produto.setPreco(3.0);
+        produto.setQuantidadeEstoque(10);
+        return produto;
+    }
+
+    private static List<ItemVenda> itens(Long produtoId) {
+        Produto referencia = new Produto();
+        referencia.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(referencia);
+        item.setQuantidade(1);
+        return new ArrayList<>(List.of(item));
+    }
+}
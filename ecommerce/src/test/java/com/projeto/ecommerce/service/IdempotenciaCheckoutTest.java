@@ -0,0 +1,195 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.ConflitoException;
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Chaves gravadas no banco: as linhas inseridas direto na tabela fazem o papel de outra instância
+@SpringBootTest(properties = "ecommerce.idempotencia.persistir=true")
+@ActiveProfiles("local")
+class IdempotenciaCheckoutTest {
+
+    @Autowired
+    private IdempotenciaCheckout idempotenciaCheckout;
+
+    @Autowired
+    private AgrupadorCheckout agrupadorCheckout;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void vendaConcluidaGravaAChaveERepeticaoDevolveAMesmaVenda() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String chave = UUID.randomUUID().toString();
+
+        IdempotenciaCheckout.Resultado primeira = idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 2));
+        IdempotenciaCheckout.Resultado repetida = idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 2));
+
+        assertFalse(primeira.isRepetida());
+        assertTrue(repetida.isRepetida());
+        assertEquals(primeira.getVenda().getId(), repetida.getVenda().getId());
+        assertEquals(primeira.getVenda().getId(), vendaDaChave(chave));
+        assertEquals(8, estoque(produtoId));
+    }
+
+    @Test
+    void chaveReservadaPorOutraInstanciaNaoExecutaAVenda() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String chave = UUID.randomUUID().toString();
+        String impressao = reservarComoOutraInstancia(chave, produtoId, 2, LocalDateTime.now());
+
+        assertThrows(ConflitoException.class, () -> idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 2)));
+
+        assertEquals(10, estoque(produtoId));
+        assertNull(vendaDaChave(chave));
+        assertEquals(impressao, impressaoDaChave(chave));
+    }
+
+    @Test
+    void vendaConcluidaPorOutraInstanciaEDevolvidaSemNovaBaixa() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String outraChave = UUID.randomUUID().toString();
+        Long vendaId = idempotenciaCheckout.realizarVenda(outraChave, itens(produtoId, 1)).getVenda().getId();
+        String chave = UUID.randomUUID().toString();
+        reservarComoOutraInstancia(chave, produtoId, 1, LocalDateTime.now());
+        jdbcTemplate.update("UPDATE chave_idempotencia SET venda_id = ? WHERE chave = ?", vendaId, chave);
+
+        IdempotenciaCheckout.Resultado resultado = idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 1));
+
+        assertTrue(resultado.isRepetida());
+        assertEquals(vendaId, resultado.getVenda().getId());
+        assertEquals(9, estoque(produtoId));
+    }
+
+    @Test
+    void reservaAbandonadaEAssumida() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String chave = UUID.randomUUID().toString();
+        reservarComoOutraInstancia(chave, produtoId, 3, LocalDateTime.now().minusHours(1));
+
+        IdempotenciaCheckout.Resultado resultado = idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 3));
+
+        assertFalse(resultado.isRepetida());
+        assertEquals(resultado.getVenda().getId(), vendaDaChave(chave));
+        assertEquals(7, estoque(produtoId));
+    }
+
+    // Mais antiga que a espera máxima, mas dentro do prazo de retomada: a venda pode estar em andamento
+    @Test
+    void reservaDentroDoPrazoDeRetomadaNaoEAssumida() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String chave = UUID.randomUUID().toString();
+        reservarComoOutraInstancia(chave, produtoId, 2, LocalDateTime.now().minusMinutes(1));
+
+        assertThrows(ConflitoException.class, () -> idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 2)));
+
+        assertEquals(10, estoque(produtoId));
+        assertNull(vendaDaChave(chave));
+    }
+
+    // A reserva foi assumida por outra instância enquanto a venda corria: a chave não é sobrescrita e a
+    // venda, gravada na mesma transação, é desfeita
+    @Test
+    void vendaComAReservaAssumidaEDesfeita() {
+        Long produtoId = produtoRepository.save(produto(10)).getId();
+        String chave = UUID.randomUUID().toString();
+        LocalDateTime reservadaEm = LocalDateTime.of(2024, 1, 1, 12, 0);
+        reservarComoOutraInstancia(chave, produtoId, 2, reservadaEm.plusMinutes(10));
+        long vendasAntes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM venda", Long.class);
+
+        assertThrows(ConflitoException.class,
+                () -> agrupadorCheckout.realizarVenda(itens(produtoId, 2), chave, reservadaEm));
+
+        assertEquals(10, estoque(produtoId));
+        assertNull(vendaDaChave(chave));
+        assertEquals(vendasAntes, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM venda", Long.class));
+    }
+
+    @Test
+    void recusaLiberaAReserva() {
+        Long produtoId = produtoRepository.save(produto(1)).getId();
+        String chave = UUID.randomUUID().toString();
+
+        assertThrows(EstoqueInsuficienteException.class,
+                () -> idempotenciaCheckout.realizarVenda(chave, itens(produtoId, 5)));
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chave_idempotencia WHERE chave = ?", Integer.class, chave));
+    }
+
+    // Mesma impressão calculada pelo IdempotenciaCheckout para um único item
+    private String reservarComoOutraInstancia(String chave, Long produtoId, int quantidade, LocalDateTime criadaEm) {
+        String impressao = impressao(produtoId, quantidade);
+        jdbcTemplate.update("INSERT INTO chave_idempotencia (chave, impressao, criada_em) VALUES (?, ?, ?)",
+                chave, impressao, criadaEm);
+        return impressao;
+    }
+
+    private static String impressao(Long produtoId, int quantidade) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String pares = new TreeMap<>(Map.of(String.valueOf(produtoId), quantidade)).toString();
+            return HexFormat.of().formatHex(digest.digest(pares.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long vendaDaChave(String chave) {
+        return jdbcTemplate.queryForObject("SELECT venda_id FROM chave_idempotencia WHERE chave = ?", Long.class, chave);
+    }
+
+    private String impressaoDaChave(String chave) {
+        return jdbcTemplate.queryForObject("SELECT impressao FROM chave_idempotencia WHERE chave = ?", String.class, chave);
+    }
+
+    private int estoque(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+
+    private static List<ItemVenda> itens(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return new ArrayList<>(List.of(item));
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Idempotente");
+        produto.setDescricao("Produto das chaves de idempotência");
+        produto.setPreco(6.0);
+        produto.setQuantidadeEstoque(estoque);
+        return produto;
+    }
+}
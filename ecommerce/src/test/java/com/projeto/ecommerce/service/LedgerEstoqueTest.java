@@ -0,0 +1,83 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// O flush agendado fica para depois dos testes: os testes chamam flush() no ponto em que a baixa
+// confirmada ainda não foi gravada, que é o caso verificado
+@SpringBootTest(properties = "ecommerce.estoque.ledger.intervalo-flush-ms=3600000")
+@ActiveProfiles("local")
+class LedgerEstoqueTest {
+
+    @Autowired
+    private LedgerEstoque ledgerEstoque;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Alteração do cadastro com uma reserva em andamento e uma baixa confirmada ainda não gravada:
+    // as duas continuam contadas uma única vez, no ledger e no banco
+    @Test
+    void alteracaoDoCadastroPreservaReservasEmAndamento() {
+        Produto produto = produtoRepository.save(produto(10));
+        Long id = produto.getId();
+        ledgerEstoque.gerenciar(List.of(id));
+
+        assertTrue(ledgerEstoque.reservar(id, 2));
+        ledgerEstoque.confirmar(id, 2);
+        assertTrue(ledgerEstoque.reservar(id, 3));
+
+        Produto alterado = produto(20);
+        produtoService.atualizarProduto(id, alterado);
+
+        ledgerEstoque.confirmar(id, 3);
+        ledgerEstoque.flush();
+
+        assertEquals(15, estoque(id));
+        assertEquals(15, ledgerEstoque.disponivel(id));
+    }
+
+    @Test
+    void reservaDesfeitaDepoisDaAlteracaoVoltaAoSaldo() {
+        Long id = produtoRepository.save(produto(10)).getId();
+        ledgerEstoque.gerenciar(List.of(id));
+
+        assertTrue(ledgerEstoque.reservar(id, 4));
+        produtoService.atualizarProduto(id, produto(6));
+        ledgerEstoque.devolver(id, 4);
+        ledgerEstoque.flush();
+
+        assertEquals(6, estoque(id));
+        assertEquals(6, ledgerEstoque.disponivel(id));
+    }
+
+    private int estoque(Long id) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, id);
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Quente");
+        produto.setDescricao("Produto gerido pelo ledger");
+        produto.setPreco(5.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+}
@@ -0,0 +1,106 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.config.MonitorReplica;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.response.VendaResumoResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Listagens e resumos abrem transações readOnly e por isso pegam a conexão no pool da réplica.
+// Aqui a réplica é um segundo H2 em memória, com o esquema copiado do primário e linhas que só existem
+// nela: a leitura só as devolve se tiver passado pelo pool da réplica.
+@SpringBootTest(properties = "ecommerce.replica.datasource.jdbc-url=" + LeituraReplicaTest.URL_REPLICA)
+@ActiveProfiles({"local", "replica"})
+class LeituraReplicaTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:ecommerce-replica;DB_CLOSE_DELAY=-1";
+
+    private static final long SO_NA_REPLICA = 990001;
+    private static final LocalDate DIA_ANTIGO = LocalDate.of(2001, 1, 15);
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private MonitorReplica monitorReplica;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void prepararReplica() {
+        if (replica.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'PRODUTO'",
+                Integer.class) == 0) {
+            // O Hibernate só cria as tabelas no primário
+            jdbcTemplate.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+            replica.update("INSERT INTO produto (id, nome, descricao, preco, quantidade_estoque, ativo, versao) "
+                    + "VALUES (?, 'Só na réplica', 'Produto da réplica', 1.0, 1, true, 0)", SO_NA_REPLICA);
+            replica.update("INSERT INTO venda (id, data_venda, valor_total, versao) VALUES (?, ?, 9.5, 0)",
+                    SO_NA_REPLICA, DIA_ANTIGO.atTime(10, 0));
+            replica.update("INSERT INTO resumo_venda_diario (dia, quantidade_vendas, receita, unidades) VALUES (?, 7, 70.0, 7)",
+                    DIA_ANTIGO);
+            replica.update("INSERT INTO resumo_venda_diario (dia, quantidade_vendas, receita, unidades) VALUES (?, 42, 420.0, 42)",
+                    LocalDate.now());
+        }
+        monitorReplica.verificar();
+        assertTrue(monitorReplica.disponivel());
+    }
+
+    @Test
+    void listagemDeProdutosUsaAReplica() {
+        List<Produto> produtos = lerNaReplica(() -> produtoService.listarTodosProdutos(SO_NA_REPLICA - 1, 10));
+        assertEquals(List.of(SO_NA_REPLICA), produtos.stream().map(Produto::getId).toList());
+        assertEquals("Só na réplica", produtos.get(0).getNome());
+
+        // A mesma linha não existe no primário
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM produto WHERE id = ?", Integer.class, SO_NA_REPLICA));
+    }
+
+    @Test
+    void listagemDeResumosDeVendasUsaAReplica() {
+        List<VendaResumoResponse> vendas = lerNaReplica(() -> produtoService.listarResumosVendas(SO_NA_REPLICA - 1, 10));
+        assertEquals(List.of(SO_NA_REPLICA), vendas.stream().map(VendaResumoResponse::getId).toList());
+        assertEquals(9.5, vendas.get(0).getValorTotal());
+    }
+
+    @Test
+    void resumosDoRelatorioUsamAReplica() {
+        LocalDate hoje = LocalDate.now();
+        assertEquals(42, lerNaReplica(() -> vendaService.obterResumo(hoje.minusDays(7), hoje)).getQuantidadeVendas());
+        assertEquals(7, lerNaReplica(() -> vendaService.obterResumoPorMes(DIA_ANTIGO.getYear(), DIA_ANTIGO.getMonthValue()))
+                .getQuantidadeVendas());
+        assertEquals(42, lerNaReplica(vendaService::obterResumoPorSemanaAtual).getQuantidadeVendas());
+    }
+
+    private <T> T lerNaReplica(Supplier<T> leitura) {
+        double antes = conexoesNaReplica();
+        T resultado = leitura.get();
+        assertTrue(conexoesNaReplica() > antes, "A leitura não passou pelo pool da réplica");
+        return resultado;
+    }
+
+    private double conexoesNaReplica() {
+        return meterRegistry.get("datasource.roteamento").tag("destino", "replica").counter().count();
+    }
+}
@@ -0,0 +1,104 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import com.projeto.ecommerce.response.MaisVendidosResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Vendas de todos os caminhos (diário, checkout direto, alteração) entram nos mais vendidos.
+// Sem a reconstrução ao iniciar, tudo é contado ao vivo.
+@SpringBootTest(properties = {
+        "ecommerce.checkout.diario.habilitado=true",
+        "ecommerce.mais-vendidos.reconstruir-ao-iniciar=false"
+})
+@ActiveProfiles("local")
+class MaisVendidosServiceTest {
+
+    @Autowired
+    private MaisVendidosService maisVendidosService;
+
+    @Autowired
+    private DiarioVendas diarioVendas;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @DynamicPropertySource
+    static void diretorioDiario(DynamicPropertyRegistry registro) throws IOException {
+        String diretorio = Files.createTempDirectory("diario-mais-vendidos").toString();
+        registro.add("ecommerce.checkout.diario.diretorio", () -> diretorio);
+    }
+
+    @Test
+    void vendaDoDiarioEntraNosMaisVendidosDepoisDeAplicada() throws InterruptedException {
+        Long id = produtoService.criarProduto(produto(100)).getId();
+
+        long numero = diarioVendas.aceitar(itens(id, 7)).getNumero();
+        aguardarAplicacao(numero);
+
+        assertEquals(7, contagem(id));
+    }
+
+    @Test
+    void alteracaoDaVendaSubstituiAsUnidadesContadas() {
+        Long id = produtoService.criarProduto(produto(100)).getId();
+        Long outro = produtoService.criarProduto(produto(100)).getId();
+
+        Venda venda = produtoService.realizarVenda(itens(id, 5));
+        assertEquals(5, contagem(id));
+
+        produtoService.atualizarVenda(venda.getId(), itens(outro, 2));
+        assertEquals(0, contagem(id));
+        assertEquals(2, contagem(outro));
+    }
+
+    private long contagem(Long produtoId) {
+        MaisVendidosResponse resposta = maisVendidosService.maisVendidos(1000, null);
+        return resposta.getProdutos().stream()
+                .filter(item -> item.getProdutoId() == produtoId)
+                .mapToLong(MaisVendidosResponse.Item::getQuantidade)
+                .sum();
+    }
+
+    private void aguardarAplicacao(long numero) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!"APLICADO".equals(diarioVendas.consultar(numero).getEstado())) {
+            if (System.currentTimeMillis() > limite) {
+                throw new AssertionError("Venda " + numero + " do diário não foi aplicada");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<ItemVenda> itens(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return new ArrayList<>(List.of(item));
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Campeão");
+        produto.setDescricao("Produto dos mais vendidos");
+        produto.setPreco(4.0);
+        produto.setQuantidadeEstoque(estoque);
+        produto.setAtivo(true);
+        return produto;
+    }
+}
@@ -0,0 +1,114 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.exception.EstoqueInsuficienteException;
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Várias threads disputam as últimas unidades de um produto: o UPDATE condicional do
+// EstoqueService não pode vender além do estoque nem perder baixas.
+@SpringBootTest
+@ActiveProfiles("local")
+class ReservaEstoqueConcorrenteTest {
+
+    private static final int ESTOQUE_INICIAL = 25;
+    private static final int THREADS = 16;
+    private static final int COMPRAS = 200;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void comprasConcorrentesVendemExatamenteOEstoque() throws Exception {
+        Long produtoId = produtoRepository.save(produto(ESTOQUE_INICIAL)).getId();
+
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger semEstoque = new AtomicInteger();
+        AtomicInteger menorEstoque = new AtomicInteger(ESTOQUE_INICIAL);
+        AtomicBoolean terminou = new AtomicBoolean();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        // Lê o estoque gravado durante toda a disputa
+        Thread observador = new Thread(() -> {
+            while (!terminou.get()) {
+                menorEstoque.accumulateAndGet(estoque(produtoId), Math::min);
+            }
+        });
+        observador.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> compras = new ArrayList<>();
+        for (int i = 0; i < COMPRAS; i++) {
+            compras.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    produtoService.realizarVenda(new ArrayList<>(List.of(item(produtoId, 1))));
+                    vendidas.incrementAndGet();
+                } catch (EstoqueInsuficienteException e) {
+                    semEstoque.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> compra : compras) {
+            compra.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        terminou.set(true);
+        observador.join();
+
+        assertEquals(ESTOQUE_INICIAL, vendidas.get());
+        assertEquals(COMPRAS - ESTOQUE_INICIAL, semEstoque.get());
+        assertEquals(0, estoque(produtoId));
+        assertTrue(menorEstoque.get() >= 0, "estoque gravado ficou negativo: " + menorEstoque.get());
+        assertEquals(ESTOQUE_INICIAL, jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantidade), 0) FROM item_venda WHERE produto_id = ?", Integer.class, produtoId));
+    }
+
+    private int estoque(Long produtoId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+
+    private static Produto produto(int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Disputado");
+        produto.setDescricao("Produto das compras concorrentes");
+        produto.setPreco(10.0);
+        produto.setQuantidadeEstoque(estoque);
+        return produto;
+    }
+
+    private static ItemVenda item(Long produtoId, int quantidade) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return item;
+    }
+}
@@ -0,0 +1,86 @@
+package com.projeto.ecommerce.service;
+
+import com.projeto.ecommerce.model.ItemVenda;
+import com.projeto.ecommerce.model.Produto;
+import com.projeto.ecommerce.model.Venda;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Primeiras vendas de um dia registradas ao mesmo tempo: todas entram nos agregados, mesmo
+// quando as linhas do dia e do produto ainda não existem
+@SpringBootTest
+@ActiveProfiles("local")
+class ResumoVendaConcorrenteTest {
+
+    private static final int THREADS = 8;
+    private static final int RODADAS = 10;
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void primeirasVendasConcorrentesDoDiaSaoTodasSomadas() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int rodada = 0; rodada < RODADAS; rodada++) {
+                LocalDate dia = LocalDate.of(2090, 1, 1).plusDays(rodada);
+                Venda venda = venda(dia, 7000L + rodada);
+                CyclicBarrier largada = new CyclicBarrier(THREADS);
+                List<Future<?>> registros = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    registros.add(executor.submit(() -> {
+                        largada.await();
+                        transactionTemplate.executeWithoutResult(status -> vendaService.registrarNoResumo(venda, 1));
+                        return null;
+                    }));
+                }
+                for (Future<?> registro : registros) {
+                    registro.get(30, TimeUnit.SECONDS);
+                }
+
+                assertEquals(THREADS, jdbcTemplate.queryForObject(
+                        "SELECT quantidade_vendas FROM resumo_venda_diario WHERE dia = ?", Long.class, dia));
+                assertEquals(2L * THREADS, jdbcTemplate.queryForObject(
+                        "SELECT unidades FROM resumo_venda_produto_diario WHERE dia = ? AND produto_id = ?",
+                        Long.class, dia, 7000L + rodada));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Venda venda(LocalDate dia, Long produtoId) {
+        Produto produto = new Produto();
+        produto.setId(produtoId);
+        produto.setPreco(4.0);
+        ItemVenda item = new ItemVenda();
+        item.setProduto(produto);
+        item.setQuantidade(2);
+        item.setPrecoUnitario(4.0);
+        Venda venda = new Venda();
+        venda.setDataVenda(dia.atTime(10, 0));
+        venda.setItens(new ArrayList<>(List.of(item)));
+        return venda;
+    }
+}
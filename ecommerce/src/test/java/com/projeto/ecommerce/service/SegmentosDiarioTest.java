@@ -0,0 +1,139 @@
+package com.projeto.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Recuperação do diário depois de uma queda: o que vier depois do último registro íntegro do último
+// segmento é descartado (nunca foi confirmado), e um segmento fechado corrompido impede a abertura.
+// Cada registro de um item ocupa 60 bytes: 16 de cabeçalho e 44 de dados.
+class SegmentosDiarioTest {
+
+    private static final int REGISTRO = 60;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void ultimoRegistroTruncadoEDescartado() throws Exception {
+        gravar(4096, 1, 2, 3);
+        truncar(primeiroSegmento(), 2 * REGISTRO + 30);
+
+        SegmentosDiario segmentos = new SegmentosDiario(diretorio, 4096);
+        assertEquals(List.of(1L, 2L), lsns(segmentos.abrir(0)));
+        assertEquals(2, segmentos.ultimoLsn());
+
+        // O número do registro perdido é reaproveitado pela próxima venda
+        SegmentosDiario.Entrada nova = entrada(7);
+        segmentos.acrescentar(nova);
+        segmentos.sincronizar(0);
+        assertEquals(3, nova.lsn);
+
+        List<SegmentosDiario.Entrada> relidas = new SegmentosDiario(diretorio, 4096).abrir(0);
+        assertEquals(List.of(1L, 2L, 3L), lsns(relidas));
+        assertArrayEquals(new int[]{7}, relidas.get(2).quantidades);
+    }
+
+    @Test
+    void ultimoRegistroComChecksumInvalidoEDescartado() throws Exception {
+        gravar(4096, 1, 2, 3);
+        alterarByte(primeiroSegmento(), 2 * REGISTRO + 30);
+
+        SegmentosDiario segmentos = new SegmentosDiario(diretorio, 4096);
+        assertEquals(List.of(1L, 2L), lsns(segmentos.abrir(0)));
+
+        // O resto do segmento é zerado para não ser lido como registro de uma venda futura
+        byte[] conteudo = Files.readAllBytes(primeiroSegmento());
+        for (int i = 2 * REGISTRO; i < conteudo.length; i++) {
+            assertEquals(0, conteudo[i], "Byte " + i + " não foi zerado");
+        }
+    }
+
+    @Test
+    void registroCorrompidoNoMeioDescartaOsSeguintesDoUltimoSegmento() throws Exception {
+        gravar(4096, 1, 2, 3);
+        alterarByte(primeiroSegmento(), REGISTRO + 30);
+
+        assertEquals(List.of(1L), lsns(new SegmentosDiario(diretorio, 4096).abrir(0)));
+    }
+
+    @Test
+    void segmentoFechadoCorrompidoImpedeAAbertura() throws Exception {
+        // Três registros por segmento de 200 bytes: o quarto abre o segundo segmento
+        gravar(200, 1, 2, 3, 4);
+        assertEquals(2, arquivos().size());
+        alterarByte(primeiroSegmento(), REGISTRO + 30);
+
+        assertThrows(IOException.class, () -> new SegmentosDiario(diretorio, 200).abrir(0));
+    }
+
+    @Test
+    void reaberturaDevolveSoOsRegistrosPosterioresAoAplicado() throws Exception {
+        gravar(200, 1, 2, 3, 4, 5);
+
+        SegmentosDiario segmentos = new SegmentosDiario(diretorio, 200);
+        List<SegmentosDiario.Entrada> pendentes = segmentos.abrir(3);
+        assertEquals(List.of(4L, 5L), lsns(pendentes));
+        assertArrayEquals(new int[]{5}, pendentes.get(1).quantidades);
+
+        // Com tudo aplicado, os segmentos fechados são removidos e nada é devolvido na próxima abertura
+        assertEquals(1, segmentos.compactar(5));
+        assertEquals(List.of(), lsns(new SegmentosDiario(diretorio, 200).abrir(5)));
+    }
+
+    private void gravar(int tamanhoSegmento, int... quantidades) throws Exception {
+        SegmentosDiario segmentos = new SegmentosDiario(diretorio, tamanhoSegmento);
+        segmentos.abrir(0);
+        for (int quantidade : quantidades) {
+            segmentos.acrescentar(entrada(quantidade));
+        }
+        segmentos.sincronizar(0);
+    }
+
+    private static SegmentosDiario.Entrada entrada(int quantidade) {
+        return new SegmentosDiario.Entrada(LocalDateTime.of(2024, 5, 10, 12, 0), 2.5 * quantidade,
+                new long[]{42}, new int[]{quantidade}, new double[]{2.5});
+    }
+
+    private static List<Long> lsns(List<SegmentosDiario.Entrada> entradas) {
+        return entradas.stream().map(entrada -> entrada.lsn).toList();
+    }
+
+    private List<Path> arquivos() throws IOException {
+        try (var lista = Files.list(diretorio)) {
+            return lista.sorted().toList();
+        }
+    }
+
+    private Path primeiroSegmento() throws IOException {
+        return arquivos().get(0);
+    }
+
+    private static void truncar(Path arquivo, long tamanho) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho);
+        }
+    }
+
+    private static void alterarByte(Path arquivo, long posicao) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer valor = ByteBuffer.allocate(1);
+            canal.read(valor, posicao);
+            valor.put(0, (byte) (valor.get(0) ^ 0x5A));
+            valor.rewind();
+            canal.write(valor, posicao);
+        }
+    }
+}